@@ -0,0 +1,89 @@
+plugins {
+    java
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+group = "com.egg"
+version = "1.0.0-SNAPSHOT"
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    // Benchmarks sobre la API del launcher
+    jmhImplementation(project(":launcher"))
+}
+
+tasks.withType<JavaCompile> {
+    options.encoding = "UTF-8"
+}
+
+val jmhResults = layout.buildDirectory.file("results/jmh/results.json")
+val baselineResults = layout.projectDirectory.file("baseline/results.json")
+
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+    resultsFile.set(jmhResults)
+    // Filtro opcional: ./gradlew :benchmarks:jmh -Pbench=HashEngine
+    (project.findProperty("bench") as String?)?.let { includes.set(listOf(it)) }
+}
+
+// Guarda los resultados de la última ejecución como nueva línea base
+tasks.register<Copy>("jmhUpdateBaseline") {
+    group = "benchmark"
+    description = "Copia los resultados de JMH actuales a baseline/results.json"
+    from(jmhResults)
+    into(layout.projectDirectory.dir("baseline"))
+}
+
+// Compara la última ejecución con la línea base y falla si alguna prueba empeora más del umbral
+tasks.register("jmhCompareBaseline") {
+    group = "benchmark"
+    description = "Compara los resultados de JMH con baseline/results.json"
+    doLast {
+        val threshold = (project.findProperty("regressionThreshold") as String?)?.toDouble() ?: 0.10
+        val slurper = groovy.json.JsonSlurper()
+
+        fun load(file: File): Map<String, Pair<String, Double>> {
+            if (!file.exists()) return emptyMap()
+            return (slurper.parse(file) as List<*>).associate { raw ->
+                val entry = raw as Map<*, *>
+                val params = (entry["params"] as Map<*, *>?)?.entries
+                    ?.sortedBy { it.key.toString() }
+                    ?.joinToString(",") { "${it.key}=${it.value}" } ?: ""
+                val metric = entry["primaryMetric"] as Map<*, *>
+                "${entry["benchmark"]}($params)" to Pair(entry["mode"].toString(), (metric["score"] as Number).toDouble())
+            }
+        }
+
+        val current = load(jmhResults.get().asFile)
+        val baseline = load(baselineResults.asFile)
+        if (current.isEmpty()) {
+            throw GradleException("No hay resultados de JMH. Ejecuta primero ./gradlew :benchmarks:jmh")
+        }
+
+        val regressions = mutableListOf<String>()
+        current.toSortedMap().forEach { (key, result) ->
+            val (mode, score) = result
+            val base = baseline[key]
+            if (base == null) {
+                println("[NUEVO]     $key -> ${"%.3f".format(score)} ($mode)")
+                return@forEach
+            }
+            // En modo throughput más es mejor; en el resto (tiempos) menos es mejor
+            val change = if (mode == "thrpt") (base.second - score) / base.second else (score - base.second) / base.second
+            val tag = if (change > threshold) "[REGRESION]" else "[OK]       "
+            println("$tag $key -> ${"%.3f".format(score)} vs ${"%.3f".format(base.second)} (${"%+.1f".format(change * 100)}% peor)")
+            if (change > threshold) regressions.add(key)
+        }
+
+        if (regressions.isNotEmpty()) {
+            throw GradleException("${regressions.size} benchmarks empeoraron mas de ${(threshold * 100).toInt()}%: $regressions")
+        }
+    }
+}
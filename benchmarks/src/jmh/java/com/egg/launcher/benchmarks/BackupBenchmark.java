@@ -0,0 +1,92 @@
+package com.egg.launcher.benchmarks;
+
+import com.egg.launcher.backup.IncrementalBackupStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Se mide IncrementalBackupStore directamente: BackupManager nombra los backups con
+// resolución de segundos y los cataloga y limpia, así que repetir createBackup dentro
+// de una iteración reutilizaba el directorio y medía también las limpiezas.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BackupBenchmark {
+
+    // Número de archivos de región (.mca) de 4 MB en el mundo sintético
+    @Param({"16", "128"})
+    public int regionFiles;
+
+    private Path baseDir;
+    private Path worldDir;
+    private Path storeRoot;
+    private IncrementalBackupStore store;
+
+    @Setup
+    public void setup() throws IOException {
+        baseDir = Files.createTempDirectory("egg-backup-bench");
+        Fixtures.syntheticServer(baseDir, regionFiles);
+        worldDir = baseDir.resolve("server").resolve("world");
+        storeRoot = baseDir.resolve("store");
+    }
+
+    // Cada iteración de fullSnapshot empieza con el almacén vacío
+    @Setup(Level.Iteration)
+    public void resetStore() throws IOException {
+        Fixtures.deleteTree(storeRoot);
+        store = new IncrementalBackupStore(storeRoot);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.deleteTree(baseDir);
+    }
+
+    // Primer backup: se lee, se trocea y se escribe todo el mundo. Una sola llamada por
+    // iteración, porque la siguiente ya encontraría los trozos en el almacén
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public IncrementalBackupStore.SnapshotStats fullSnapshot() throws IOException {
+        return store.snapshot(worldDir, null, baseDir.resolve("full.manifest"));
+    }
+
+    // Backup de un mundo sin cambios respecto a la instantánea anterior
+    @Benchmark
+    public IncrementalBackupStore.SnapshotStats unchangedSnapshot(SeededStore seeded) throws IOException {
+        return seeded.store.snapshot(worldDir, seeded.previous, seeded.root.resolve("next.manifest"));
+    }
+
+    // Almacén propio con una instantánea base del mundo
+    @State(Scope.Benchmark)
+    public static class SeededStore {
+
+        Path root;
+        Path previous;
+        IncrementalBackupStore store;
+
+        @Setup
+        public void seed(BackupBenchmark benchmark) throws IOException {
+            root = Files.createTempDirectory("egg-backup-bench-seeded");
+            store = new IncrementalBackupStore(root.resolve("store"));
+            previous = root.resolve("base.manifest");
+            store.snapshot(benchmark.worldDir, null, previous);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            Fixtures.deleteTree(root);
+        }
+    }
+}
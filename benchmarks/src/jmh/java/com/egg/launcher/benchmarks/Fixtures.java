@@ -0,0 +1,72 @@
+package com.egg.launcher.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+// Generadores de datos sintéticos compartidos por los benchmarks
+final class Fixtures {
+
+    private static final int REGION_FILE_SIZE = 4 * 1024 * 1024;
+
+    private Fixtures() {
+    }
+
+    static Path randomFile(Path file, int size) throws IOException {
+        Random random = new Random(file.getFileName().toString().hashCode());
+        byte[] block = new byte[64 * 1024];
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int written = 0; written < size; written += block.length) {
+                random.nextBytes(block);
+                out.write(block, 0, Math.min(block.length, size - written));
+            }
+        }
+        return file;
+    }
+
+    // Estructura mínima del directorio del launcher: server/, server/world/ y logs/
+    static void syntheticServer(Path baseDir, int regionFiles) throws IOException {
+        Path serverDir = Files.createDirectories(baseDir.resolve("server"));
+        Files.write(serverDir.resolve("server.properties"),
+                    "level-name=world\nserver-port=25565\n".getBytes(StandardCharsets.UTF_8));
+
+        Path world = Files.createDirectories(serverDir.resolve("world"));
+        Files.write(world.resolve("level.dat"), new byte[16 * 1024]);
+        Path region = Files.createDirectories(world.resolve("region"));
+        for (int i = 0; i < regionFiles; i++) {
+            randomFile(region.resolve("r." + (i % 16) + "." + (i / 16) + ".mca"), REGION_FILE_SIZE);
+        }
+        Path playerdata = Files.createDirectories(world.resolve("playerdata"));
+        for (int i = 0; i < 32; i++) {
+            randomFile(playerdata.resolve("player-" + i + ".dat"), 8 * 1024);
+        }
+
+        Path logs = Files.createDirectories(baseDir.resolve("logs"));
+        randomFile(logs.resolve("latest.log"), 2 * 1024 * 1024);
+    }
+
+    static void pluginJar(Path jar, String name, String mainClass) throws IOException {
+        String descriptor = "name: " + name + "\nversion: 1.0.0\nauthor: bench\nmain: " + mainClass + "\n";
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new JarEntry("egg-plugin.yml"));
+            out.write(descriptor.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+    }
+
+    static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
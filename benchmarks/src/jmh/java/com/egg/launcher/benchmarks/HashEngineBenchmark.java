@@ -0,0 +1,67 @@
+package com.egg.launcher.benchmarks;
+
+import com.egg.launcher.scanner.HashEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HashEngineBenchmark {
+
+    // 4 KB, 1 MB, 16 MB (buffer directo) y 128 MB (MappedByteBuffer)
+    @Param({"4096", "1048576", "16777216", "134217728"})
+    public int fileSize;
+
+    @Param({"SHA_256", "CRC32C"})
+    public HashEngine.Algorithm algorithm;
+
+    private Path workDir;
+    private Path singleFile;
+    private List<Path> modpack;
+    private HashEngine engine;
+
+    @Setup
+    public void setup() throws IOException {
+        workDir = Files.createTempDirectory("egg-hash-bench");
+        singleFile = Fixtures.randomFile(workDir.resolve("single.jar"), fileSize);
+        // Un "modpack" de 64 archivos que suma como máximo 256 MB para medir el paralelismo
+        int count = 64;
+        int size = (int) Math.min(fileSize, 256L * 1024 * 1024 / count);
+        modpack = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            modpack.add(Fixtures.randomFile(workDir.resolve("mod-" + i + ".jar"), size));
+        }
+        engine = HashEngine.create();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        engine.close();
+        Fixtures.deleteTree(workDir);
+    }
+
+    @Benchmark
+    public String[] hashSingleFile() throws IOException {
+        return engine.hash(singleFile, algorithm);
+    }
+
+    @Benchmark
+    public List<String> hashModpackParallel() {
+        return engine.hashAll(modpack, algorithm);
+    }
+}
@@ -0,0 +1,15 @@
+package com.egg.launcher.benchmarks;
+
+import com.egg.launcher.plugin.EggPlugin;
+
+// Plugin vacío que usan los jars generados por PluginLoadingBenchmark
+public class NoopPlugin implements EggPlugin {
+
+    @Override
+    public void onEnable() {
+    }
+
+    @Override
+    public void onDisable() {
+    }
+}
@@ -0,0 +1,63 @@
+package com.egg.launcher.benchmarks;
+
+import com.egg.launcher.plugin.PluginManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PluginLoadingBenchmark {
+
+    @Param({"50", "200"})
+    public int plugins;
+
+    // "cold" borra el índice de plugins antes de cada carga; "warm" lo reutiliza
+    @Param({"cold", "warm"})
+    public String discovery;
+
+    private Path pluginDir;
+    private Path indexFile;
+
+    @Setup
+    public void setup() throws IOException {
+        pluginDir = Files.createTempDirectory("egg-plugin-bench");
+        for (int i = 0; i < plugins; i++) {
+            Fixtures.pluginJar(pluginDir.resolve("plugin-" + i + ".jar"), "plugin-" + i, NoopPlugin.class.getName());
+        }
+        indexFile = pluginDir.resolve("cache").resolve("plugin-index.bin");
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareIndex() throws IOException {
+        if (discovery.equals("cold")) {
+            Files.deleteIfExists(indexFile);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.deleteTree(pluginDir);
+    }
+
+    @Benchmark
+    public PluginManager loadPlugins() {
+        PluginManager pluginManager = new PluginManager(pluginDir.toFile(), indexFile);
+        pluginManager.loadPlugins();
+        pluginManager.disablePlugins();
+        return pluginManager;
+    }
+}
@@ -0,0 +1,55 @@
+package com.egg.launcher.benchmarks;
+
+import com.egg.launcher.scanner.FileScanResult;
+import com.egg.launcher.scanner.ScanResult;
+import com.egg.launcher.scanner.ScanStatus;
+import com.egg.launcher.scanner.Scanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReportBenchmark {
+
+    @Param({"1000", "5000", "20000"})
+    public int entries;
+
+    private ScanResult scanResult;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        List<FileScanResult> results = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            StringBuilder hash = new StringBuilder(64);
+            for (int j = 0; j < 8; j++) {
+                hash.append(String.format("%08x", random.nextInt()));
+            }
+            ScanStatus status = i % 50 == 0 ? ScanStatus.WARNING : ScanStatus.OK;
+            results.add(new FileScanResult("mod-" + i + "-1.20.1.jar", hash.toString(), status, i % 10 == 0 ? "nota" : ""));
+        }
+        scanResult = new ScanResult(results, false, entries / 2, entries / 2);
+    }
+
+    @Benchmark
+    public String formatTxtReport() {
+        return Scanner.formatTxtReport(scanResult);
+    }
+
+    @Benchmark
+    public String formatJsonReport() {
+        return Scanner.formatJsonReport(scanResult.getResults());
+    }
+}
@@ -1,145 +1,238 @@
 package com.egg.launcher;
 
 import com.egg.launcher.backup.BackupManager;
+import com.egg.launcher.config.LauncherConfig;
+import com.egg.launcher.coremod.CoreModEventBridge;
+import com.egg.launcher.coremod.CoreModServer;
+import com.egg.launcher.instance.InstanceConfig;
+import com.egg.launcher.instance.ServerInstance;
+import com.egg.launcher.jvm.AppCdsManager;
+import com.egg.launcher.jvm.HostResources;
+import com.egg.launcher.jvm.ServerJava;
+import com.egg.launcher.jvm.SharedSystemInfo;
+import com.egg.launcher.log.LogTail;
 import com.egg.launcher.plugin.PluginManager;
+import com.egg.launcher.runtime.LauncherRuntime;
+import com.egg.launcher.runtime.StartupTrace;
+import com.egg.launcher.runtime.TaskScope;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.egg.launcher.scanner.ScanResult;
 import com.egg.launcher.scanner.Scanner;
-import com.egg.launcher.watchdog.Watchdog;
-import oshi.SystemInfo;
-import oshi.hardware.GlobalMemory;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class Main {
 
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
-    private static Watchdog watchdog;
+    private static CoreModServer coreModServer;
+    private static ScanResult scanResult;
+    // Por id; el mismo orden que en la configuración
+    private static final Map<String, ServerInstance> instances = new LinkedHashMap<>();
     private static final PluginManager pluginManager = new PluginManager();
 
     public static void main(String[] args) {
+        if (args.length >= 2 && args[0].equals("restore")) {
+            restoreBackup(args);
+            return;
+        }
+        if (args.length >= 3 && args[0].equals("extract")) {
+            extractFromArchive(args);
+            return;
+        }
+
+        // Fases del arranque, con sus tiempos, para reports/startup_trace.json
+        StartupTrace trace = StartupTrace.begin();
         printBanner();
+        // Cola en memoria de los logs del launcher y del servidor, para consultas rápidas
+        LogTail logTail = LogTail.get();
         logger.info("Iniciando EGG HYBRID SERVER...");
 
-        if (!checkEnvironment()) {
+        if (!trace.time("entorno", Main::checkEnvironment)) {
             logger.error("Fallo en la verificacion del entorno. El servidor no puede iniciar.");
             return;
         }
         logger.info("Verificacion del entorno completada con exito.");
-
-        // Validar existencia del server JAR antes de escanear
-        File serverJar = new File("server", "forge-server.jar");
-        if (!serverJar.exists()) {
-            logger.error("!ERROR CRITICO! No se encontro 'forge-server.jar' en el directorio '/server'.");
-            logger.error("El arranque ha sido abortado. Por favor, asegurate de que el archivo del servidor Forge este en la ubicacion correcta.");
+        AppCdsManager.checkLauncherArchive();
+
+        // El arranque es un grafo: OSHI y los EGG Plugins se cargan en sus propios hilos
+        // mientras este escanea los mods, y Forge solo espera a lo que de verdad necesita
+        TaskScope boot = LauncherRuntime.openScope("boot");
+        CompletableFuture<HostResources> hostFuture = trace.async(boot, "oshi", () -> {
+            HostResources resources = HostResources.detect(SharedSystemInfo.get());
+            checkMemory(resources);
+            return resources;
+        });
+        // Los plugins no dependen del escaneo; si este falla, se desactivan antes de abortar
+        CompletableFuture<Boolean> pluginsFuture = trace.async(boot, "plugins", pluginManager::loadPlugins);
+
+        // Instancias del servidor: sin "instances" en la configuración, una sola en este directorio
+        List<InstanceConfig> instanceConfigs = trace.time("instancias", InstanceConfig::load);
+        if (instanceConfigs.isEmpty()) {
+            logger.error("La configuracion de las instancias no es valida. El arranque ha sido abortado.");
+            abortBoot(boot, pluginsFuture);
             return;
         }
 
-        // Ejecutar escaneo de mods y plugins
-        ScanResult scanResult = Scanner.runScans();
+        // Validar existencia del server JAR de cada instancia antes de escanear
+        List<Path> serverJars = new ArrayList<>();
+        for (InstanceConfig instance : instanceConfigs) {
+            Path serverJar = instance.getServerDir().resolve(ServerInstance.SERVER_JAR);
+            if (!Files.exists(serverJar)) {
+                logger.error("!ERROR CRITICO! No se encontro '{}' en el directorio '{}'.", ServerInstance.SERVER_JAR,
+                             instance.getServerDir().toAbsolutePath());
+                logger.error("El arranque ha sido abortado. Por favor, asegurate de que el archivo del servidor Forge este en la ubicacion correcta.");
+                abortBoot(boot, pluginsFuture);
+                return;
+            }
+            serverJars.add(serverJar);
+        }
+
+        // La versión de cada java se detecta una sola vez, lanzándolo con -version, mientras se escanea
+        Map<String, CompletableFuture<ServerJava>> javaFutures = new HashMap<>();
+        for (InstanceConfig instance : instanceConfigs) {
+            javaFutures.computeIfAbsent(instance.getConfig().getString("jvm.java", "java"),
+                                        executable -> trace.async(boot, "java", () -> ServerJava.detect(executable)));
+        }
+
+        // Ejecutar escaneo de mods y plugins, una sola vez para todas las instancias
+        scanResult = trace.time("escaneo", () -> Scanner.runScans(serverJars));
         if (scanResult.hasCriticalErrors()) {
             logger.error("Se detectaron errores criticos durante el escaneo. El arranque del servidor ha sido abortado.");
             logger.error("Por favor, revisa el ultimo reporte en el directorio '/reports' para mas detalles.");
+            abortBoot(boot, pluginsFuture);
             return;
         }
 
-        // Iniciar el listener del Core Mod en un nuevo hilo
-        new Thread(Main::startCoreModListener).start();
+        // Requisitos de Forge: los recursos de la máquina, los java y los plugins cargados
+        // (se suscriben a los eventos del core mod antes de que este se conecte)
+        HostResources hostResources;
+        Map<String, ServerJava> javas = new HashMap<>();
+        try (StartupTrace.Phase ignored = trace.phase("espera")) {
+            hostResources = await(hostFuture, "oshi");
+            for (Map.Entry<String, CompletableFuture<ServerJava>> entry : javaFutures.entrySet()) {
+                javas.put(entry.getKey(), await(entry.getValue(), "java"));
+            }
+            Boolean pluginsLoaded = await(pluginsFuture, "plugins");
+            if (hostResources == null || javas.containsValue(null) || pluginsLoaded == null) {
+                logger.error("Una fase del arranque fallo. El arranque del servidor ha sido abortado.");
+                abortBoot(boot, pluginsFuture);
+                return;
+            }
+            if (!pluginsLoaded) {
+                logger.error("Las dependencias entre EGG Plugins no son validas. El arranque del servidor ha sido abortado.");
+                abortBoot(boot, pluginsFuture);
+                return;
+            }
+        }
+        boot.close();
+
+        // Cada instancia con su perfil de JVM, pipeline de logs, watchdog y reinicios
+        InstanceConfig.shareMemory(instanceConfigs, hostResources);
+        int coreModPort = LauncherConfig.getInt("coremod.port", 25566); // Puerto de comunicación
+        try (StartupTrace.Phase ignored = trace.phase("preparacion")) {
+            for (InstanceConfig instance : instanceConfigs) {
+                ServerJava java = javas.get(instance.getConfig().getString("jvm.java", "java"));
+                instances.put(instance.getId(), new ServerInstance(instance, hostResources, java, scanResult, coreModPort));
+            }
+        }
+
+        // Iniciar el listener del Core Mod (hilo propio del selector NIO), compartido por las instancias
+        startCoreModListener(coreModPort);
 
-        // Cargar EGG plugins
-        pluginManager.loadPlugins();
+        // Iniciar los servidores por primera vez; los reinicios pasan por el orquestador de cada instancia
+        for (ServerInstance instance : instances.values()) {
+            instance.start();
+        }
+        trace.mark("lanzamiento de Forge");
+        logger.info("Forge lanzado a los {} ms del inicio del launcher ({}).", trace.elapsedMillis(), trace.summary());
 
-        // Iniciar el servidor por primera vez
-        restartServer(true);
+        // Lo que no retrasa a Forge: el reporte de plugins, la vigilancia de plugins/ y la traza
+        pluginManager.appendToReport(scanResult.getReportFile());
+        pluginManager.startWatching();
+        trace.write(Paths.get("reports", "startup_trace.json"));
 
         // Registrar hook de apagado para desactivar plugins
-        Runtime.getRuntime().addShutdownHook(new Thread(pluginManager::disablePlugins));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (ServerInstance instance : instances.values()) {
+                instance.shutdown();
+            }
+            pluginManager.disablePlugins();
+            // Al final: los ámbitos de las instancias y los hilos que queden
+            LauncherRuntime.shutdown();
+        }));
     }
 
-    private static void restartServer(boolean isInitialStart) {
-        if (isInitialStart) {
-            logger.info("Iniciando el servidor Forge por primera vez...");
-        } else {
-            logger.info("Iniciando el proceso de reinicio del servidor...");
-            BackupManager.createBackup("watchdog_restart");
+    // null si la fase falló; el error ya queda en el log
+    private static <T> T await(CompletableFuture<T> future, String phase) {
+        try {
+            return future.join();
+        } catch (CompletionException | CancellationException e) {
+            logger.error("Fallo la fase de arranque '{}'.", phase, e.getCause() != null ? e.getCause() : e);
+            return null;
         }
-
-        // Lanzar el servidor en un nuevo hilo para no bloquear el main
-        new Thread(Main::startForgeServer).start();
     }
 
-    private static void startCoreModListener() {
-        try (ServerSocket serverSocket = new ServerSocket(25566)) { // Puerto de comunicación
-            logger.info("Esperando conexion del EGG-CORE-MOD en el puerto 25566...");
-            Socket clientSocket = serverSocket.accept();
-            logger.info("!EGG-CORE-MOD conectado desde {}!", clientSocket.getInetAddress());
-
-            // Simular recepción de heartbeats
-            new Thread(() -> {
-                while (!clientSocket.isClosed()) {
-                    try {
-                        // Aquí se leerían los eventos, por ahora solo actualizamos el heartbeat
-                        if (watchdog != null) {
-                            watchdog.receiveHeartbeat();
-                        }
-                        Thread.sleep(5000); // Simular envío de heartbeat cada 5s
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                }
-            }).start();
+    // Los plugins pudieron activarse mientras se escaneaba; no deben quedar activos sin servidor
+    private static void abortBoot(TaskScope boot, CompletableFuture<Boolean> pluginsFuture) {
+        try {
+            pluginsFuture.join();
+        } catch (CompletionException | CancellationException e) {
+            logger.debug("La carga de plugins fallo durante un arranque abortado.", e);
+        }
+        pluginManager.disablePlugins();
+        boot.close();
+    }
 
+    // Uso: java -jar launcher.jar restore <backup> [destino]
+    private static void restoreBackup(String[] args) {
+        String backupName = args[1];
+        Path target = args.length >= 3 ? Paths.get(args[2]) : Paths.get("server", "world_restored_" + backupName);
+        try {
+            BackupManager.restoreWorld(Paths.get(""), backupName, target);
         } catch (IOException e) {
-            logger.error("Error en el listener del Core Mod.", e);
+            logger.error("No se pudo restaurar el backup '{}'.", backupName, e);
         }
     }
 
-    private static void startForgeServer() {
-        File serverDir = new File("server");
-        File serverJar = new File(serverDir, "forge-server.jar");
-
+    // Uso: java -jar launcher.jar extract <archivo.tar.gz> <entrada> [destino]
+    private static void extractFromArchive(String[] args) {
+        Path archive = Paths.get(args[1]);
+        String entry = args[2];
+        Path target = args.length >= 4 ? Paths.get(args[3]) : Paths.get(Paths.get(entry).getFileName().toString());
         try {
-            ProcessBuilder processBuilder = new ProcessBuilder("java", "-Xms2G", "-Xmx4G", "-jar", serverJar.getName(), "nogui");
-            processBuilder.directory(serverDir);
-
-            Process serverProcess = processBuilder.start();
-            logger.info("El proceso del servidor Forge ha sido iniciado. PID: {}", serverProcess.pid());
-
-            // Iniciar el Watchdog
-            watchdog = new Watchdog(serverProcess, () -> restartServer(false));
-            watchdog.start();
-
-            // Redirigir la salida del servidor a la consola del launcher
-            redirectStream(new InputStreamReader(serverProcess.getInputStream()), "SERVER");
-            // Redirigir la salida de errores del servidor
-            redirectStream(new InputStreamReader(serverProcess.getErrorStream()), "SERVER-ERROR");
-
-            // Esperar a que el proceso del servidor termine
-            int exitCode = serverProcess.waitFor();
-            logger.info("El proceso del servidor Forge ha terminado con el codigo de salida: {}", exitCode);
-
-        } catch (IOException | InterruptedException e) {
-            logger.error("Ocurrio un error al iniciar o gestionar el proceso del servidor Forge.", e);
-            Thread.currentThread().interrupt();
+            BackupManager.extractFromArchive(archive, entry, target);
+            logger.info("'{}' extraido en '{}'.", entry, target);
+        } catch (IOException e) {
+            logger.error("No se pudo extraer '{}' de '{}'.", entry, archive, e);
         }
     }
 
-    private static void redirectStream(InputStreamReader reader, String prefix) {
-        new Thread(() -> {
-            try (BufferedReader bufferedReader = new BufferedReader(reader)) {
-                String line;
-                while ((line = bufferedReader.readLine()) != null) {
-                    System.out.println("[" + prefix + "] " + line);
-                }
-            } catch (IOException e) {
-                logger.error("Error al leer la salida del stream del servidor.", e);
-            }
-        }).start();
+    private static void startCoreModListener(int port) {
+        coreModServer = new CoreModServer(port, new CoreModEventBridge(pluginManager.getEventBus(), Main::routeHeartbeat));
+        coreModServer.start();
+    }
+
+    // Un core mod sin identificar (o con un id desconocido) solo se acepta con una única instancia
+    private static void routeHeartbeat(String instanceId) {
+        ServerInstance instance = instanceId != null ? instances.get(instanceId) : null;
+        if (instance == null && instances.size() == 1) {
+            instance = instances.values().iterator().next();
+        }
+        if (instance != null) {
+            instance.receiveHeartbeat();
+        }
     }
 
     private static void printBanner() {
@@ -154,6 +247,14 @@ public class Main {
         System.out.println(banner);
     }
 
+    private static void checkMemory(HostResources resources) {
+        long totalMemoryGB = resources.getPhysicalMemory() / (1024 * 1024 * 1024);
+        logger.info("Memoria total del sistema: {} GB", totalMemoryGB);
+        if (totalMemoryGB < 2) {
+            logger.warn("Se recomienda tener al menos 2 GB de memoria RAM en el sistema.");
+        }
+    }
+
     private static boolean checkEnvironment() {
         logger.info("Realizando verificaciones del entorno...");
 
@@ -173,14 +274,7 @@ public class Main {
         }
 
 
-        // 2. Verificar memoria mínima
-        SystemInfo si = new SystemInfo();
-        GlobalMemory memory = si.getHardware().getMemory();
-        long totalMemoryGB = memory.getTotal() / (1024 * 1024 * 1024);
-        logger.info("Memoria total del sistema: {} GB", totalMemoryGB);
-        if (totalMemoryGB < 2) {
-            logger.warn("Se recomienda tener al menos 2 GB de memoria RAM en el sistema.");
-        }
+        // 2. La memoria mínima se comprueba en checkMemory(), cuando OSHI termina de iniciarse
 
         // 3. Verificar espacio en disco
         File currentDir = new File(".");
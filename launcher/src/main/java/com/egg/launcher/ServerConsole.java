@@ -0,0 +1,79 @@
+package com.egg.launcher;
+
+import com.egg.launcher.log.LogBatch;
+import com.egg.launcher.log.LogSubscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Consola del proceso Forge: envía comandos por stdin y reparte cada línea de salida a los oyentes
+public class ServerConsole implements LogSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerConsole.class);
+
+    private final Process process;
+    private final Writer stdin;
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    public ServerConsole(Process process) {
+        this.process = process;
+        this.stdin = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+    }
+
+    public synchronized boolean sendCommand(String command) {
+        if (!process.isAlive()) {
+            logger.warn("No se pudo enviar '{}': el servidor no esta activo.", command);
+            return false;
+        }
+        try {
+            stdin.write(command);
+            stdin.write('\n');
+            stdin.flush();
+            logger.info("Comando enviado al servidor: {}", command);
+            return true;
+        } catch (IOException e) {
+            logger.error("Error al enviar el comando '{}' al servidor.", command, e);
+            return false;
+        }
+    }
+
+    public void addListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<String> listener) {
+        listeners.remove(listener);
+    }
+
+    // Solo se crean Strings si hay algún oyente
+    @Override
+    public void onBatch(LogBatch batch) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            onLine(batch.lineAsString(i));
+        }
+    }
+
+    void onLine(String line) {
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(line);
+            } catch (RuntimeException e) {
+                logger.error("Error en un oyente de la consola del servidor.", e);
+            }
+        }
+    }
+
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+}
@@ -0,0 +1,331 @@
+package com.egg.launcher.backup;
+
+import com.egg.launcher.config.ConfigView;
+import com.egg.launcher.runtime.LauncherRuntime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Archivos de backup portables: un tar.gz formado por bloques gzip independientes
+// (como bgzip/pigz) que se comprimen en paralelo y se escriben en orden. Cualquier
+// "tar xzf" los lee, y el índice .idx permite extraer un archivo sin leer el resto.
+public class BackupArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackupArchiver.class);
+    private static final int BLOCK_SIZE = 256 * 1024;
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String INDEX_HEADER = "# egg-archive-index v1";
+
+    private final int threads;
+    private final int level;
+
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    public static class Entry {
+        final String name;
+        final long size;
+        final long modified;
+        final Source source;
+
+        // source == null indica un directorio
+        public Entry(String name, long size, long modified, Source source) {
+            this.name = name;
+            this.size = size;
+            this.modified = modified;
+            this.source = source;
+        }
+    }
+
+    public BackupArchiver(int threads, int level) {
+        this.threads = Math.max(1, threads);
+        this.level = level;
+    }
+
+    // Deja un núcleo libre para el servidor, que sigue funcionando mientras se comprime
+    public static BackupArchiver fromConfig(ConfigView config) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return new BackupArchiver(config.getInt("backup.archive.threads", Math.max(1, cores - 1)),
+                                  config.getInt("backup.archive.level", 6));
+    }
+
+    public static List<Entry> directoryEntries(Path dir, String prefix, Predicate<Path> exclude) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.filter(path -> !path.equals(dir)).collect(Collectors.toList())) {
+                if (exclude.test(path)) {
+                    continue;
+                }
+                String name = prefix + dir.relativize(path).toString().replace('\\', '/');
+                long modified = Files.getLastModifiedTime(path).toMillis();
+                if (Files.isDirectory(path)) {
+                    entries.add(new Entry(name, 0, modified, null));
+                } else if (Files.isRegularFile(path)) {
+                    entries.add(new Entry(name, Files.size(path), modified, () -> Files.newInputStream(path)));
+                }
+            }
+        }
+        return entries;
+    }
+
+    public String archive(List<Entry> entries, Path archiveFile) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(archiveFile.toAbsolutePath().getParent());
+        Path tmp = archiveFile.resolveSibling(archiveFile.getFileName() + ".tmp");
+        List<Long> positions = new ArrayList<>(entries.size());
+
+        ExecutorService pool = LauncherRuntime.root().newPool("egg-archive", threads, 0, Thread.MIN_PRIORITY);
+        BlockOutputStream blocks;
+        // Bytes de los archivos de origen, sin encabezados ni relleno del tar
+        long sourceBytes = 0;
+        boolean moved = false;
+        try {
+            try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(tmp), 1024 * 1024)) {
+                blocks = new BlockOutputStream(file, pool, level, threads * 2);
+                TarWriter tar = new TarWriter(blocks);
+                for (Entry entry : entries) {
+                    positions.add(blocks.position());
+                    if (entry.source == null) {
+                        tar.writeDirectory(entry.name, entry.modified);
+                    } else {
+                        try (InputStream in = entry.source.open()) {
+                            tar.writeFile(entry.name, entry.size, entry.modified, in);
+                        }
+                        sourceBytes += entry.size;
+                    }
+                }
+                tar.finish();
+                blocks.close();
+            } finally {
+                pool.shutdownNow();
+            }
+
+            Path indexFile = archiveFile.resolveSibling(archiveFile.getFileName() + INDEX_SUFFIX);
+            try (BufferedWriter writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+                writer.write(INDEX_HEADER);
+                writer.newLine();
+                for (int i = 0; i < entries.size(); i++) {
+                    Entry entry = entries.get(i);
+                    long position = positions.get(i);
+                    writer.write(blocks.compressedOffsetOf(position) + "\t" + (position % BLOCK_SIZE) + "\t"
+                                 + entry.size + "\t" + entry.name);
+                    writer.newLine();
+                }
+            }
+            Files.move(tmp, archiveFile, StandardCopyOption.REPLACE_EXISTING);
+            moved = true;
+        } finally {
+            // Un archivo a medio escribir no debe quedarse ocupando disco
+            if (!moved) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException e) {
+                    logger.warn("No se pudo borrar el archivo temporal '{}'.", tmp, e);
+                }
+            }
+        }
+
+        double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+        double megabytes = sourceBytes / (1024.0 * 1024.0);
+        return String.format("%.1f MB en %.1f s (%.1f MB/s, %d hilos, comprimido al %.0f%%)", megabytes, seconds,
+                             megabytes / seconds, threads, 100.0 * blocks.compressedSize() / Math.max(1, blocks.position()));
+    }
+
+    // Extrae una sola entrada leyendo únicamente los bloques que la contienen
+    public static void extract(Path archiveFile, String name, Path target) throws IOException {
+        long[] location = null;
+        Path indexFile = archiveFile.resolveSibling(archiveFile.getFileName() + INDEX_SUFFIX);
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            if (!INDEX_HEADER.equals(reader.readLine())) {
+                throw new IOException("Formato de indice desconocido: " + indexFile);
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", 4);
+                if (parts.length == 4 && parts[3].equals(name)) {
+                    location = new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2])};
+                    break;
+                }
+            }
+        }
+        if (location == null) {
+            throw new IOException("La entrada '" + name + "' no existe en " + archiveFile);
+        }
+
+        try (FileInputStream file = new FileInputStream(archiveFile.toFile())) {
+            file.getChannel().position(location[0]);
+            InputStream in = new GZIPInputStream(new BufferedInputStream(file, 64 * 1024), 64 * 1024);
+            skipFully(in, location[1]);
+            byte[] header = new byte[TarWriter.RECORD_SIZE];
+            readFully(in, header);
+            if (header[156] == 'L') {
+                // Saltar el nombre largo y su relleno hasta el encabezado real
+                long nameLength = Long.parseLong(new String(header, 124, 11, StandardCharsets.US_ASCII).trim(), 8);
+                skipFully(in, (nameLength + TarWriter.RECORD_SIZE - 1) / TarWriter.RECORD_SIZE * TarWriter.RECORD_SIZE);
+                readFully(in, header);
+            }
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            try (OutputStream out = Files.newOutputStream(target)) {
+                byte[] buffer = new byte[64 * 1024];
+                long remaining = location[2];
+                while (remaining > 0) {
+                    int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (read == -1) {
+                        throw new IOException("Archivo truncado al extraer " + name);
+                    }
+                    out.write(buffer, 0, read);
+                    remaining -= read;
+                }
+            }
+        }
+    }
+
+    private static void readFully(InputStream in, byte[] buffer) throws IOException {
+        int offset = 0;
+        while (offset < buffer.length) {
+            int read = in.read(buffer, offset, buffer.length - offset);
+            if (read == -1) {
+                throw new IOException("Fin inesperado del archivo.");
+            }
+            offset += read;
+        }
+    }
+
+    private static void skipFully(InputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            long skipped = in.skip(bytes);
+            if (skipped <= 0) {
+                throw new IOException("Fin inesperado del archivo.");
+            }
+            bytes -= skipped;
+        }
+    }
+
+    // Corta el tar en bloques de tamaño fijo, los comprime en el pool y los escribe en orden
+    // con un número acotado de bloques en vuelo para no acumular memoria.
+    private static class BlockOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final ExecutorService pool;
+        private final int level;
+        private final int maxInFlight;
+        private final Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+        private final List<Long> blockOffsets = new ArrayList<>();
+        private byte[] block = new byte[BLOCK_SIZE];
+        private int blockLength;
+        private long submittedBlocks;
+        private long compressedSize;
+
+        BlockOutputStream(OutputStream out, ExecutorService pool, int level, int maxInFlight) {
+            this.out = out;
+            this.pool = pool;
+            this.level = level;
+            this.maxInFlight = maxInFlight;
+        }
+
+        long position() {
+            return submittedBlocks * BLOCK_SIZE + blockLength;
+        }
+
+        long compressedSize() {
+            return compressedSize;
+        }
+
+        long compressedOffsetOf(long position) {
+            return blockOffsets.get((int) (position / BLOCK_SIZE));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            while (length > 0) {
+                int copied = Math.min(length, BLOCK_SIZE - blockLength);
+                System.arraycopy(data, offset, block, blockLength, copied);
+                blockLength += copied;
+                offset += copied;
+                length -= copied;
+                if (blockLength == BLOCK_SIZE) {
+                    submitBlock();
+                }
+            }
+        }
+
+        private void submitBlock() throws IOException {
+            byte[] data = block;
+            int length = blockLength;
+            inFlight.add(pool.submit(() -> compress(data, length, level)));
+            submittedBlocks++;
+            block = new byte[BLOCK_SIZE];
+            blockLength = 0;
+            while (inFlight.size() >= maxInFlight) {
+                writeNext();
+            }
+        }
+
+        private void writeNext() throws IOException {
+            try {
+                byte[] compressed = inFlight.poll().get();
+                blockOffsets.add(compressedSize);
+                out.write(compressed);
+                compressedSize += compressed.length;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Compresion interrumpida.", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Error al comprimir un bloque.", e.getCause());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (blockLength > 0) {
+                submitBlock();
+            }
+            while (!inFlight.isEmpty()) {
+                writeNext();
+            }
+            out.flush();
+        }
+
+        private static byte[] compress(byte[] data, int length, int level) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(length / 2 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes, 64 * 1024) {
+                {
+                    def.setLevel(level);
+                }
+            }) {
+                gzip.write(data, 0, length);
+            }
+            return bytes.toByteArray();
+        }
+    }
+}
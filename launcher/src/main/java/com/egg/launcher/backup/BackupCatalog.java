@@ -0,0 +1,292 @@
+package com.egg.launcher.backup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Catálogo de backups (backups/catalog.tsv): una línea por instantánea con su fecha,
+// motivo, tamaño y trozos referenciados, para decidir la retención sin recorrer directorios.
+// A su lado, catalog.refs cuenta cuántos backups catalogados usan cada trozo: se suma al
+// añadir un backup y se resta al quitarlo, y la limpieza saca de ahí los trozos vivos sin
+// leer todos los manifiestos. Si no cuadra con el catálogo, se reconstruye desde ellos.
+class BackupCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackupCatalog.class);
+    private static final String HEADER = "# id\tcreated\treason\tsize\tnewBytes\tobjects";
+    private static final String REFS_HEADER = "# egg-chunk-refs v1";
+
+    static class Entry {
+        final String id;
+        final long created;
+        final String reason;
+        final long size;
+        final long newBytes;
+        final int objects;
+
+        Entry(String id, long created, String reason, long size, long newBytes, int objects) {
+            this.id = id;
+            this.created = created;
+            this.reason = reason;
+            this.size = size;
+            this.newBytes = newBytes;
+            this.objects = objects;
+        }
+
+        String toLine() {
+            return id + "\t" + created + "\t" + reason + "\t" + size + "\t" + newBytes + "\t" + objects;
+        }
+    }
+
+    // Un cerrojo por archivo de catálogo, compartido por todos los BackupCatalog que lo abren:
+    // la limpieza reescribe el archivo y no debe perder una entrada añadida mientras tanto
+    private static final Map<Path, Object> locks = new ConcurrentHashMap<>();
+
+    private final Path catalogFile;
+    private final Path refsFile;
+    private final Path backupRoot;
+    private final Object lock;
+
+    BackupCatalog(Path catalogFile, Path backupRoot) {
+        this.catalogFile = catalogFile;
+        this.refsFile = catalogFile.resolveSibling("catalog.refs");
+        this.backupRoot = backupRoot;
+        this.lock = locks.computeIfAbsent(catalogFile.toAbsolutePath().normalize(), file -> new Object());
+    }
+
+    // chunks: los trozos únicos del manifiesto del backup (vacío si no tiene mundo)
+    void append(Entry entry, Set<String> chunks) throws IOException {
+        synchronized (lock) {
+            doAppend(entry);
+            List<Entry> entries = doLoad();
+            ChunkRefs refs = loadRefs();
+            if (refs != null && refs.backups == entries.size() - 1) {
+                refs.add(chunks, 1);
+                writeRefs(refs);
+            } else {
+                writeRefs(rebuildRefs(entries));
+            }
+        }
+    }
+
+    List<Entry> load() throws IOException {
+        synchronized (lock) {
+            return doLoad();
+        }
+    }
+
+    // Hay que llamarlo antes de borrar los directorios: sus manifiestos dicen qué trozos restar
+    void remove(Collection<String> ids) throws IOException {
+        synchronized (lock) {
+            List<Entry> entries = doLoad();
+            List<Entry> remaining = entries.stream().filter(e -> !ids.contains(e.id)).collect(Collectors.toList());
+            rewrite(remaining);
+
+            ChunkRefs refs = loadRefs();
+            boolean consistent = refs != null && refs.backups == entries.size();
+            for (Entry entry : entries) {
+                if (!consistent) {
+                    break;
+                }
+                if (ids.contains(entry.id)) {
+                    Set<String> chunks = chunksOf(entry.id);
+                    if (chunks == null && entry.objects > 0) {
+                        consistent = false;
+                    } else {
+                        refs.add(chunks != null ? chunks : new HashSet<>(), -1);
+                    }
+                }
+            }
+            writeRefs(consistent ? refs : rebuildRefs(remaining));
+        }
+    }
+
+    // Trozos referenciados por algún backup catalogado
+    Set<String> liveChunks() throws IOException {
+        synchronized (lock) {
+            List<Entry> entries = doLoad();
+            ChunkRefs refs = loadRefs();
+            if (refs == null || refs.backups != entries.size()) {
+                refs = rebuildRefs(entries);
+                writeRefs(refs);
+            }
+            return new HashSet<>(refs.counts.keySet());
+        }
+    }
+
+    private void doAppend(Entry entry) throws IOException {
+        if (!Files.exists(catalogFile)) {
+            // La primera vez se reconstruye a partir de los directorios que ya existen
+            rewrite(rebuild());
+            if (doLoad().stream().anyMatch(e -> e.id.equals(entry.id))) {
+                return;
+            }
+        }
+        Files.write(catalogFile, (entry.toLine() + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private List<Entry> doLoad() throws IOException {
+        if (!Files.exists(catalogFile)) {
+            return rebuild();
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(catalogFile, StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\t");
+            if (parts.length != 6) {
+                logger.warn("Linea invalida en el catalogo de backups: {}", line);
+                continue;
+            }
+            entries.add(new Entry(parts[0], Long.parseLong(parts[1]), parts[2], Long.parseLong(parts[3]),
+                                  Long.parseLong(parts[4]), Integer.parseInt(parts[5])));
+        }
+        return entries;
+    }
+
+    private void rewrite(List<Entry> entries) throws IOException {
+        Files.createDirectories(catalogFile.toAbsolutePath().getParent());
+        Path tmp = catalogFile.resolveSibling(catalogFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Entry entry : entries) {
+                writer.write(entry.toLine());
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, catalogFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // null si el archivo no existe o no se puede leer: se reconstruirá
+    private ChunkRefs loadRefs() {
+        if (!Files.exists(refsFile)) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(refsFile, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.get(0).startsWith(REFS_HEADER + "\t")) {
+                return null;
+            }
+            ChunkRefs refs = new ChunkRefs(Integer.parseInt(lines.get(0).substring(REFS_HEADER.length() + 1)));
+            for (int i = 1; i < lines.size(); i++) {
+                String line = lines.get(i);
+                int tab = line.indexOf('\t');
+                refs.counts.put(line.substring(0, tab), Integer.parseInt(line.substring(tab + 1)));
+            }
+            return refs;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("No se pudo leer '{}'. Se reconstruira a partir de los manifiestos.", refsFile, e);
+            return null;
+        }
+    }
+
+    private void writeRefs(ChunkRefs refs) throws IOException {
+        Path tmp = refsFile.resolveSibling(refsFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            writer.write(REFS_HEADER + "\t" + refs.backups);
+            writer.newLine();
+            for (Map.Entry<String, Integer> count : refs.counts.entrySet()) {
+                writer.write(count.getKey() + "\t" + count.getValue());
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, refsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Recorrido completo, solo si catalog.refs falta o no cuadra con el catálogo
+    private ChunkRefs rebuildRefs(List<Entry> entries) throws IOException {
+        ChunkRefs refs = new ChunkRefs(0);
+        for (Entry entry : entries) {
+            Set<String> chunks = chunksOf(entry.id);
+            refs.add(chunks != null ? chunks : new HashSet<>(), 1);
+        }
+        logger.info("Referencias de trozos reconstruidas a partir de {} backups.", entries.size());
+        return refs;
+    }
+
+    // null si el backup no tiene manifiesto (p. ej. el mundo no existía)
+    private Set<String> chunksOf(String id) throws IOException {
+        Path manifestFile = backupRoot.resolve(id).resolve(SnapshotManifest.FILE_NAME);
+        return Files.exists(manifestFile) ? SnapshotManifest.read(manifestFile).uniqueChunks() : null;
+    }
+
+    private static final class ChunkRefs {
+
+        // Backups catalogados que ya están contados
+        int backups;
+        final Map<String, Integer> counts = new HashMap<>();
+
+        ChunkRefs(int backups) {
+            this.backups = backups;
+        }
+
+        void add(Set<String> chunks, int delta) {
+            for (String chunk : chunks) {
+                int count = counts.getOrDefault(chunk, 0) + delta;
+                if (count > 0) {
+                    counts.put(chunk, count);
+                } else {
+                    counts.remove(chunk);
+                }
+            }
+            backups += delta;
+        }
+    }
+
+    // Backups anteriores al catálogo: la fecha y el motivo salen del nombre "yyyyMMdd_HHmmss_motivo"
+    private List<Entry> rebuild() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.isDirectory(backupRoot)) {
+            return entries;
+        }
+        SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd_HHmmss");
+        try (Stream<Path> dirs = Files.list(backupRoot)) {
+            for (Path dir : dirs.filter(Files::isDirectory).sorted(Comparator.comparing(Path::toString)).collect(Collectors.toList())) {
+                String id = dir.getFileName().toString();
+                if (id.length() < 16) {
+                    continue;
+                }
+                long created;
+                try {
+                    created = format.parse(id.substring(0, 15)).getTime();
+                } catch (ParseException e) {
+                    continue;
+                }
+                String reason = id.length() > 16 ? id.substring(16) : "";
+                long size = 0;
+                int objects = 0;
+                Path manifestFile = dir.resolve(SnapshotManifest.FILE_NAME);
+                if (Files.exists(manifestFile)) {
+                    SnapshotManifest manifest = SnapshotManifest.read(manifestFile);
+                    size = manifest.totalSize();
+                    objects = manifest.uniqueChunks().size();
+                }
+                entries.add(new Entry(id, created, reason, size, 0, objects));
+            }
+        }
+        logger.info("Catalogo de backups reconstruido con {} entradas.", entries.size());
+        return entries;
+    }
+}
@@ -1,19 +1,37 @@
 package com.egg.launcher.backup;
 
+import com.egg.launcher.config.ConfigView;
+import com.egg.launcher.log.LogEntry;
+import com.egg.launcher.log.LogLevel;
+import com.egg.launcher.log.LogQuery;
+import com.egg.launcher.log.LogTail;
+import com.egg.launcher.runtime.LauncherRuntime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -21,32 +39,224 @@ public class BackupManager {
 
     private static final Logger logger = LoggerFactory.getLogger(BackupManager.class);
     private static final String BACKUP_DIR = "backups/auto";
-    private static final int RETENTION_POLICY_COUNT = 10; // Mantener los últimos 10 backups
+    private static final String STORE_DIR = "backups/store";
+    private static final String ARCHIVE_DIR = "backups/archives";
+    private static final String CATALOG_FILE = "backups/catalog.tsv";
+    private static final int RECENT_WARNINGS_MINUTES = 30;
+
+    // Los reportes del escaneo son del launcher, no de cada instancia
+    private static final Path REPORTS_DIR = Paths.get("reports");
+
+    // Todo va por directorio de instancia: el backup de un reinicio no espera al programado
+    // de otra instancia, ni sus archivos comprimidos o limpiezas se descartan por los de otra
+    private static final Map<Path, Object> backupLocks = new ConcurrentHashMap<>();
+    // Un solo archivo comprimido a la vez y como mucho uno en espera
+    private static final Map<Path, ExecutorService> archiveExecutors = new ConcurrentHashMap<>();
+    // Las limpiezas se agrupan: si ya hay una en espera, no se encola otra
+    private static final Map<Path, ExecutorService> pruneExecutors = new ConcurrentHashMap<>();
 
     public static void createBackup(String reason) {
+        createBackup(Paths.get(""), reason);
+    }
+
+    public static void createBackup(Path baseDir, String reason) {
+        createBackup(baseDir, ConfigView.global(), reason, null);
+    }
+
+    // baseDir es el directorio raíz del launcher (contiene server/, logs/ y backups/).
+    // config es la vista de la instancia: sus claves backup.* y sus avisos recientes.
+    // throttle limita la lectura del mundo cuando el servidor está en marcha; null = sin límite.
+    public static void createBackup(Path baseDir, ConfigView config, String reason, IoThrottle throttle) {
+        // Un backup programado y el de un reinicio de la misma instancia nunca copian a la vez
+        synchronized (backupLocks.computeIfAbsent(home(baseDir), home -> new Object())) {
+            doCreateBackup(baseDir, config, reason, throttle);
+        }
+    }
+
+    private static void doCreateBackup(Path baseDir, ConfigView config, String reason, IoThrottle throttle) {
         logger.info("Iniciando creación de backup por motivo: {}", reason);
 
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+        Path backupRoot = baseDir.resolve(BACKUP_DIR);
+        Path backupPath = backupRoot.resolve(timestamp + "_" + reason);
+        // Si el backup no llega al catálogo, se borra lo que se haya escrito de él
+        boolean created = false;
+        boolean cataloged = false;
         try {
-            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-            Path backupPath = Paths.get(BACKUP_DIR, timestamp + "_" + reason);
+            created = !Files.exists(backupPath);
             Files.createDirectories(backupPath);
 
             // 1. Copiar server.properties
-            copyFile(Paths.get("server", "server.properties"), backupPath.resolve("server.properties"));
+            copyFile(baseDir.resolve("server").resolve("server.properties"), backupPath.resolve("server.properties"));
 
             // 2. Copiar logs recientes (ej: último log)
-            copyLatestLog(Paths.get("logs"), backupPath.resolve("logs"));
+            copyLatestLog(baseDir.resolve("logs"), backupPath.resolve("logs"));
+
+            // 2b. Avisos y errores recientes, sacados de la memoria sin releer los logs
+            writeRecentWarnings(config.getInstanceId(), backupPath.resolve("recent_warnings.log"));
 
-            // 3. (Placeholder) Guardar hashes de mods/plugins
-            // Esta información ya se genera en el reporte de startup, se podría unificar.
-            Files.write(backupPath.resolve("mods_plugins_info.txt"), "Placeholder for hashes".getBytes());
+            // 3. Guardar hashes de mods/plugins a partir del último reporte de compatibilidad
+            copyLatestCompatibilityReport(REPORTS_DIR, backupPath.resolve("mods_plugins_info.json"));
+
+            // 4. Instantánea incremental del mundo: solo se escriben los trozos que cambiaron
+            IncrementalBackupStore.SnapshotStats stats = snapshotWorld(baseDir, backupRoot, backupPath, throttle);
+            catalog(baseDir).append(new BackupCatalog.Entry(backupPath.getFileName().toString(), System.currentTimeMillis(), reason,
+                                                            stats != null ? stats.getTotalBytes() : 0,
+                                                            stats != null ? stats.getBytesWritten() : 0,
+                                                            stats != null ? stats.getUniqueChunks() : 0),
+                                    stats != null ? stats.chunkHashes : new HashSet<>());
+            cataloged = true;
 
             logger.info("Backup creado exitosamente en: {}", backupPath);
 
-            applyRetentionPolicy();
+            // 5. Archivo comprimido portable, en segundo plano para no alargar el reinicio
+            if (config.getBoolean("backup.archive.enabled", false)) {
+                scheduleArchive(baseDir, config, backupPath);
+            }
 
-        } catch (IOException e) {
+            schedulePrune(baseDir, config);
+
+        } catch (InterruptedIOException e) {
+            // El scheduler cancela la copia al detener el servidor
+            logger.info("Backup '{}' cancelado: {}", backupPath.getFileName(), e.getMessage());
+        } catch (IOException | RuntimeException e) {
             logger.error("Ocurrió un error al crear el backup.", e);
+        } finally {
+            if (created && !cataloged && Files.exists(backupPath)) {
+                logger.info("Eliminando el backup incompleto '{}'.", backupPath.getFileName());
+                deleteDirectory(backupPath.toFile());
+            }
+        }
+    }
+
+    private static void writeRecentWarnings(String instanceId, Path target) {
+        List<LogEntry> entries = LogTail.get().query(LogQuery.lastMinutes(RECENT_WARNINGS_MINUTES)
+                                                             .minLevel(LogLevel.WARN)
+                                                             .instance(instanceId));
+        if (entries.isEmpty()) {
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (LogEntry entry : entries) {
+            text.append(entry).append('\n');
+        }
+        try {
+            Files.write(target, text.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.warn("No se pudieron guardar los avisos recientes en el backup.", e);
+        }
+    }
+
+    private static IncrementalBackupStore.SnapshotStats snapshotWorld(Path baseDir, Path backupRoot, Path backupPath,
+                                                                      IoThrottle throttle) throws IOException {
+        Path worldDir = baseDir.resolve("server").resolve(readLevelName(baseDir.resolve("server")));
+        if (!Files.isDirectory(worldDir)) {
+            logger.warn("El mundo a respaldar no existe: {}", worldDir);
+            return null;
+        }
+
+        long start = System.nanoTime();
+        IncrementalBackupStore store = new IncrementalBackupStore(baseDir.resolve(STORE_DIR));
+        IncrementalBackupStore.SnapshotStats stats = store.snapshot(worldDir, findPreviousManifest(backupRoot, backupPath),
+                                                                    backupPath.resolve(SnapshotManifest.FILE_NAME), throttle);
+        logger.info("Instantanea del mundo '{}' completada en {} ms: {}", worldDir.getFileName(),
+                    (System.nanoTime() - start) / 1_000_000, stats);
+        return stats;
+    }
+
+    private static void scheduleArchive(Path baseDir, ConfigView config, Path backupPath) {
+        try {
+            archiveExecutors.computeIfAbsent(home(baseDir), home -> LauncherRuntime.root().newPool("egg-backup-archive", 1, 1))
+                            .execute(() -> createArchive(baseDir, config, backupPath));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Ya hay un archivo comprimido en curso; se omite el de '{}'.", backupPath.getFileName());
+        }
+    }
+
+    // El mundo se lee de la instantánea recién creada y el resto de server/ directamente del disco
+    private static void createArchive(Path baseDir, ConfigView config, Path backupPath) {
+        Path serverDir = baseDir.resolve("server");
+        String levelName = readLevelName(serverDir);
+        Path worldDir = serverDir.resolve(levelName);
+        Path manifestFile = backupPath.resolve(SnapshotManifest.FILE_NAME);
+        Path archiveFile = baseDir.resolve(ARCHIVE_DIR).resolve(backupPath.getFileName() + ".tar.gz");
+        logger.info("Creando archivo comprimido del servidor en '{}'...", archiveFile);
+
+        try {
+            boolean hasSnapshot = Files.exists(manifestFile);
+            List<BackupArchiver.Entry> entries = BackupArchiver.directoryEntries(serverDir, "server/", path ->
+                    (hasSnapshot && path.startsWith(worldDir)) || path.getFileName().toString().equals("session.lock"));
+            if (hasSnapshot) {
+                entries.add(new BackupArchiver.Entry("server/" + levelName, 0, System.currentTimeMillis(), null));
+                entries.addAll(new IncrementalBackupStore(baseDir.resolve(STORE_DIR))
+                                       .archiveEntries(manifestFile, "server/" + levelName + "/"));
+            }
+            String summary = BackupArchiver.fromConfig(config).archive(entries, archiveFile);
+            logger.info("Archivo comprimido '{}' creado: {}", archiveFile.getFileName(), summary);
+            pruneArchives(baseDir.resolve(ARCHIVE_DIR), config.getInt("backup.archive.keep", 3));
+        } catch (IOException | RuntimeException e) {
+            logger.error("No se pudo crear el archivo comprimido '{}'.", archiveFile, e);
+        }
+    }
+
+    private static void pruneArchives(Path archiveDir, int keep) throws IOException {
+        List<Path> archives;
+        try (Stream<Path> files = Files.list(archiveDir)) {
+            archives = files.filter(f -> f.getFileName().toString().endsWith(".tar.gz"))
+                            .sorted(Comparator.comparing((Path f) -> f.getFileName().toString()).reversed())
+                            .collect(Collectors.toList());
+        }
+        for (int i = keep; i < archives.size(); i++) {
+            logger.info("Eliminando archivo comprimido antiguo: {}", archives.get(i).getFileName());
+            Files.deleteIfExists(archives.get(i));
+            Files.deleteIfExists(archives.get(i).resolveSibling(archives.get(i).getFileName() + ".idx"));
+        }
+    }
+
+    // Extrae una sola entrada (p. ej. "server/world/level.dat") de un archivo comprimido
+    public static void extractFromArchive(Path archiveFile, String entryName, Path target) throws IOException {
+        BackupArchiver.extract(archiveFile, entryName, target);
+    }
+
+    // Reconstruye el mundo de un backup en targetDir (que debe estar vacío o no existir)
+    public static void restoreWorld(Path baseDir, String backupName, Path targetDir) throws IOException {
+        Path manifestFile = baseDir.resolve(BACKUP_DIR).resolve(backupName).resolve(SnapshotManifest.FILE_NAME);
+        if (!Files.exists(manifestFile)) {
+            throw new IOException("El backup '" + backupName + "' no contiene una instantanea del mundo.");
+        }
+        new IncrementalBackupStore(baseDir.resolve(STORE_DIR)).restore(manifestFile, targetDir);
+    }
+
+    private static String readLevelName(Path serverDir) {
+        Properties properties = new Properties();
+        Path propertiesFile = serverDir.resolve("server.properties");
+        if (Files.exists(propertiesFile)) {
+            try (InputStream in = Files.newInputStream(propertiesFile)) {
+                properties.load(in);
+            } catch (IOException e) {
+                logger.warn("No se pudo leer '{}'. Se usara el mundo por defecto.", propertiesFile, e);
+            }
+        }
+        return properties.getProperty("level-name", "world");
+    }
+
+    private static Path findPreviousManifest(Path backupRoot, Path currentBackup) throws IOException {
+        try (Stream<Path> backups = Files.list(backupRoot)) {
+            return backups.filter(path -> !path.equals(currentBackup))
+                          .map(path -> path.resolve(SnapshotManifest.FILE_NAME))
+                          .filter(Files::exists)
+                          .max(Comparator.comparing(path -> path.getParent().getFileName().toString()))
+                          .orElse(null);
+        }
+    }
+
+    private static void copyLatestCompatibilityReport(Path reportsDir, Path destination) throws IOException {
+        if (!Files.exists(reportsDir)) return;
+
+        try (Stream<Path> files = Files.list(reportsDir)) {
+            files.filter(f -> f.getFileName().toString().startsWith("compatibility_"))
+                 .max(Comparator.comparing(f -> f.getFileName().toString()))
+                 .ifPresent(report -> copyFile(report, destination));
         }
     }
 
@@ -75,26 +285,90 @@ public class BackupManager {
         }
     }
 
-    private static void applyRetentionPolicy() {
-        logger.info("Aplicando política de retención (mantener {} backups)...", RETENTION_POLICY_COUNT);
-        File backupDir = new File(BACKUP_DIR);
-        if (!backupDir.exists()) return;
-
-        File[] backups = backupDir.listFiles(File::isDirectory);
-        if (backups == null || backups.length <= RETENTION_POLICY_COUNT) {
-            logger.info("No se requiere limpieza.");
-            return;
+    private static void schedulePrune(Path baseDir, ConfigView config) {
+        try {
+            pruneExecutors.computeIfAbsent(home(baseDir), home -> LauncherRuntime.root().newPool("egg-backup-prune", 1, 1))
+                          .execute(() -> pruneBackups(baseDir, config));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Ya hay una limpieza de backups pendiente.");
         }
+    }
+
+    // Se ejecuta en segundo plano: borra en paralelo los backups que la política no conserva
+    // y luego libera los trozos sin referencias, sin bloquear nunca un reinicio.
+    private static void pruneBackups(Path baseDir, ConfigView config) {
+        RetentionPolicy policy = RetentionPolicy.fromConfig(config);
+        long start = System.nanoTime();
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool = LauncherRuntime.root().newPool("egg-backup-prune", threads, 0, Thread.MIN_PRIORITY);
+        try {
+            BackupCatalog catalog = catalog(baseDir);
+            List<BackupCatalog.Entry> entries = catalog.load();
+            Set<String> keep = policy.selectToKeep(entries, System.currentTimeMillis());
+            List<String> expired = entries.stream().map(e -> e.id).filter(id -> !keep.contains(id)).collect(Collectors.toList());
+            logger.info("Aplicando política de retención ({}): se conservan {} de {} backups.", policy, keep.size(), entries.size());
 
-        List<File> sortedBackups = Arrays.stream(backups)
-                                         .sorted(Comparator.comparing(File::getName).reversed())
-                                         .collect(Collectors.toList());
+            // Primero se quitan del catálogo y después se borran del disco
+            catalog.remove(expired);
+            List<Future<?>> deletions = new ArrayList<>();
+            for (String id : expired) {
+                deletions.add(pool.submit(() -> deleteDirectory(baseDir.resolve(BACKUP_DIR).resolve(id).toFile())));
+            }
+            for (Future<?> deletion : deletions) {
+                deletion.get();
+            }
+
+            // Directorios que nunca llegaron al catálogo (un backup que falló o se interrumpió);
+            // sus manifiestos parciales retendrían trozos para siempre
+            int orphans = deleteOrphans(baseDir.resolve(BACKUP_DIR), catalog.load());
 
-        for (int i = RETENTION_POLICY_COUNT; i < sortedBackups.size(); i++) {
-            deleteDirectory(sortedBackups.get(i));
+            // Liberar los trozos del mundo que ya no referencia ningún backup conservado
+            long freed = new IncrementalBackupStore(baseDir.resolve(STORE_DIR)).collectGarbage(catalog, baseDir.resolve(BACKUP_DIR), pool);
+            logger.info("Limpieza de backups completada en {} ms: {} eliminados, {} huerfanos, {} MB de trozos liberados.",
+                        (System.nanoTime() - start) / 1_000_000, expired.size(), orphans, freed / (1024 * 1024));
+        } catch (IOException | ExecutionException e) {
+            logger.error("No se pudo completar la limpieza de backups.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
         }
     }
 
+    // Solo los anteriores a la entrada más reciente: uno más nuevo puede estar creándose ahora
+    private static int deleteOrphans(Path backupRoot, List<BackupCatalog.Entry> entries) throws IOException {
+        if (entries.isEmpty() || !Files.isDirectory(backupRoot)) {
+            return 0;
+        }
+        Set<String> known = entries.stream().map(e -> e.id).collect(Collectors.toSet());
+        String newest = entries.stream().map(e -> timestampOf(e.id)).max(Comparator.naturalOrder()).orElse("");
+        List<Path> orphans;
+        try (Stream<Path> dirs = Files.list(backupRoot)) {
+            orphans = dirs.filter(Files::isDirectory)
+                          .filter(dir -> !known.contains(dir.getFileName().toString()))
+                          .filter(dir -> timestampOf(dir.getFileName().toString()).compareTo(newest) < 0)
+                          .collect(Collectors.toList());
+        }
+        for (Path orphan : orphans) {
+            logger.warn("Eliminando backup incompleto que no esta en el catalogo: {}", orphan.getFileName());
+            deleteDirectory(orphan.toFile());
+        }
+        return orphans.size();
+    }
+
+    // "yyyyMMdd_HHmmss" del id "yyyyMMdd_HHmmss_motivo"
+    private static String timestampOf(String id) {
+        return id.length() >= 15 ? id.substring(0, 15) : id;
+    }
+
+    private static Path home(Path baseDir) {
+        return baseDir.toAbsolutePath().normalize();
+    }
+
+    private static BackupCatalog catalog(Path baseDir) {
+        return new BackupCatalog(baseDir.resolve(CATALOG_FILE), baseDir.resolve(BACKUP_DIR));
+    }
+
     private static void deleteDirectory(File directory) {
         logger.info("Eliminando backup antiguo: {}", directory.getName());
         try {
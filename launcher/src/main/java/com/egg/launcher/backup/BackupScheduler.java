@@ -0,0 +1,111 @@
+package com.egg.launcher.backup;
+
+import com.egg.launcher.ServerConsole;
+import com.egg.launcher.config.ConfigView;
+import com.egg.launcher.perf.TickAnalyzer;
+import com.egg.launcher.perf.TickListener;
+import com.egg.launcher.runtime.ScheduledTask;
+import com.egg.launcher.runtime.TaskScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Backups programados con el servidor en marcha: desactiva el guardado automático,
+// fuerza un guardado completo, copia con la E/S limitada y vuelve a activar el guardado.
+public class BackupScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackupScheduler.class);
+    private static final long SAVE_TIMEOUT_SECONDS = 120;
+
+    private final ServerConsole console;
+    private final Path baseDir;
+    private final ConfigView config;
+    private final long intervalMinutes;
+    private final IoThrottle throttle;
+    private final TickAnalyzer tickAnalyzer;
+    private final TickListener lagListener = new TickListener() {
+        @Override
+        public void onLag(long millisBehind, long ticksBehind) {
+            throttle.onServerLag(millisBehind);
+            logger.debug("Lag del servidor ({} ms): backup ralentizado a {} KB/s.", millisBehind, throttle.currentRate() / 1024);
+        }
+
+        // Con "forge tps" activado, un tick por encima de 50 ms ya frena la copia sin pausarla
+        @Override
+        public void onSample(String dimension, double mspt, double tps) {
+            if (dimension.equals(TickAnalyzer.OVERALL) && mspt >= TickAnalyzer.TARGET_MSPT) {
+                throttle.onServerLag(0);
+            }
+        }
+    };
+    private final TaskScope scope;
+    private final String threadName;
+    private volatile ScheduledTask task;
+
+    // scope: el del proceso del servidor
+    public BackupScheduler(ServerConsole console, Path baseDir, TickAnalyzer tickAnalyzer, ConfigView config, TaskScope scope) {
+        this.console = console;
+        this.baseDir = baseDir;
+        this.config = config;
+        this.tickAnalyzer = tickAnalyzer;
+        this.intervalMinutes = config.getLong("backup.schedule.intervalMinutes", 0);
+        this.throttle = new IoThrottle(config.getLong("backup.schedule.bytesPerSecond", 32L * 1024 * 1024));
+        this.scope = scope;
+        this.threadName = config.threadName("egg-backup-scheduler");
+    }
+
+    public void start() {
+        if (intervalMinutes <= 0) {
+            logger.info("Backups programados desactivados (backup.schedule.intervalMinutes = 0).");
+            return;
+        }
+        logger.info("Backups programados cada {} minutos, limitados a {} MB/s.", intervalMinutes,
+                    throttle.currentRate() / (1024 * 1024));
+        tickAnalyzer.addListener(lagListener);
+        task = scope.scheduleWithFixedDelay(threadName, this::runScheduledBackup, intervalMinutes, intervalMinutes,
+                                            TimeUnit.MINUTES);
+    }
+
+    // Cancela la copia en curso para que el reinicio pueda hacer su propio backup sin esperar
+    public void stop() {
+        tickAnalyzer.removeListener(lagListener);
+        throttle.cancel();
+        ScheduledTask current = task;
+        if (current != null) {
+            current.cancel(true);
+        }
+    }
+
+    private void runScheduledBackup() {
+        if (!console.isAlive()) {
+            return;
+        }
+        CountDownLatch saved = new CountDownLatch(1);
+        Consumer<String> saveListener = line -> {
+            if (line.contains("Saved the game")) {
+                saved.countDown();
+            }
+        };
+
+        console.addListener(saveListener);
+        try {
+            if (!console.sendCommand("save-off") || !console.sendCommand("save-all flush")) {
+                return;
+            }
+            if (!saved.await(SAVE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("El servidor no confirmo el guardado en {} s. Se omite el backup programado.", SAVE_TIMEOUT_SECONDS);
+                return;
+            }
+            BackupManager.createBackup(baseDir, config, "scheduled", throttle);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            console.removeListener(saveListener);
+            console.sendCommand("save-on");
+        }
+    }
+}
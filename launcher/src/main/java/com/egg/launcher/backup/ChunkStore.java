@@ -0,0 +1,92 @@
+package com.egg.launcher.backup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Almacén de objetos direccionado por contenido: cada trozo único se guarda una
+// sola vez en objects/<2 primeros hex>/<resto del SHA-256>.
+class ChunkStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkStore.class);
+
+    private final Path objectsDir;
+
+    ChunkStore(Path storeRoot) {
+        this.objectsDir = storeRoot.resolve("objects");
+    }
+
+    Path objectPath(String hash) {
+        return objectsDir.resolve(hash.substring(0, 2)).resolve(hash.substring(2));
+    }
+
+    // Devuelve true si el trozo era nuevo y se escribió en disco
+    boolean put(String hash, byte[] data, int length) throws IOException {
+        Path target = objectPath(hash);
+        if (Files.exists(target)) {
+            return false;
+        }
+        Files.createDirectories(target.getParent());
+        Path tmp = target.resolveSibling(target.getFileName() + "." + Thread.currentThread().getId() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            out.write(data, 0, length);
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Otro hilo escribió el mismo trozo a la vez
+            Files.deleteIfExists(tmp);
+            return false;
+        }
+        return true;
+    }
+
+    byte[] read(String hash) throws IOException {
+        return Files.readAllBytes(objectPath(hash));
+    }
+
+    // Subdirectorios de objetos (uno por prefijo de dos caracteres hexadecimales)
+    List<Path> prefixDirs() throws IOException {
+        if (!Files.isDirectory(objectsDir)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> dirs = Files.list(objectsDir)) {
+            return dirs.filter(Files::isDirectory).collect(Collectors.toList());
+        }
+    }
+
+    // Borra los objetos de un prefijo que no aparecen en ningún manifiesto vivo; devuelve los bytes liberados
+    long sweep(Path prefixDir, Set<String> liveHashes) {
+        long freed = 0;
+        String prefix = prefixDir.getFileName().toString();
+        try (Stream<Path> objects = Files.list(prefixDir)) {
+            for (Path object : objects.collect(Collectors.toList())) {
+                String name = object.getFileName().toString();
+                if (name.endsWith(".tmp") || liveHashes.contains(prefix + name)) {
+                    continue;
+                }
+                try {
+                    long size = Files.size(object);
+                    Files.delete(object);
+                    freed += size;
+                } catch (IOException e) {
+                    logger.warn("No se pudo eliminar el objeto de backup '{}'.", object, e);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Error al recorrer el almacen de objetos '{}'.", prefixDir, e);
+        }
+        return freed;
+    }
+}
@@ -0,0 +1,80 @@
+package com.egg.launcher.backup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+// Particionado por contenido (CDC) con un gear hash al estilo FastCDC: los cortes
+// dependen de los bytes y no de la posición, así que un cambio en medio de un
+// archivo de región solo altera los trozos cercanos.
+class Chunker {
+
+    static final int MIN_SIZE = 16 * 1024;
+    static final int AVG_SIZE = 64 * 1024;
+    static final int MAX_SIZE = 256 * 1024;
+
+    // Chunking normalizado: máscara más estricta antes del tamaño medio y más laxa después
+    private static final long MASK_STRICT = -1L << (64 - 18);
+    private static final long MASK_LOOSE = -1L << (64 - 14);
+    private static final long[] GEAR = new long[256];
+
+    static {
+        // La semilla es fija: cambiarla cambiaría todos los cortes y anularía la deduplicación
+        Random random = new Random(0x45474743444300L);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    interface ChunkConsumer {
+        void accept(byte[] data, int length) throws IOException;
+    }
+
+    private final byte[] buffer = new byte[MAX_SIZE];
+
+    // Lee todo el stream y entrega cada trozo al consumidor; el array se reutiliza entre llamadas
+    void split(InputStream in, ChunkConsumer consumer) throws IOException {
+        int filled = 0;
+        boolean eof = false;
+        while (true) {
+            while (!eof && filled < buffer.length) {
+                int read = in.read(buffer, filled, buffer.length - filled);
+                if (read == -1) {
+                    eof = true;
+                } else {
+                    filled += read;
+                }
+            }
+            if (filled == 0) {
+                return;
+            }
+            int cut = eof && filled <= MIN_SIZE ? filled : cutPoint(buffer, filled);
+            consumer.accept(buffer, cut);
+            System.arraycopy(buffer, cut, buffer, 0, filled - cut);
+            filled -= cut;
+        }
+    }
+
+    static int cutPoint(byte[] data, int length) {
+        if (length <= MIN_SIZE) {
+            return length;
+        }
+        int limit = Math.min(length, MAX_SIZE);
+        int normal = Math.min(limit, AVG_SIZE);
+        long hash = 0;
+        int i = MIN_SIZE;
+        for (; i < normal; i++) {
+            hash = (hash << 1) + GEAR[data[i] & 0xff];
+            if ((hash & MASK_STRICT) == 0) {
+                return i + 1;
+            }
+        }
+        for (; i < limit; i++) {
+            hash = (hash << 1) + GEAR[data[i] & 0xff];
+            if ((hash & MASK_LOOSE) == 0) {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+}
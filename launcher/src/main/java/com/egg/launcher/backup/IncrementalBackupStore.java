@@ -0,0 +1,416 @@
+package com.egg.launcher.backup;
+
+import com.egg.launcher.runtime.LauncherRuntime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Backups incrementales deduplicados: los archivos se parten en trozos por
+// contenido, cada trozo único se guarda una vez y cada instantánea es solo un manifiesto.
+public class IncrementalBackupStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalBackupStore.class);
+    private static final int SWEEP_BATCH = 16;
+
+    // Un cerrojo y una generación por almacén: cada instancia tiene el suyo y sus backups
+    // no esperan a los de otra
+    private static final Map<Path, StoreLock> locks = new ConcurrentHashMap<>();
+
+    private final ChunkStore chunkStore;
+    private final int threads;
+    private final ReentrantReadWriteLock lock;
+    private final AtomicLong generation;
+
+    public IncrementalBackupStore(Path storeRoot) {
+        this.chunkStore = new ChunkStore(storeRoot);
+        StoreLock storeLock = locks.computeIfAbsent(storeRoot.toAbsolutePath().normalize(), root -> new StoreLock());
+        this.lock = storeLock.lock;
+        this.generation = storeLock.generation;
+        this.threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public static class SnapshotStats {
+        final AtomicInteger files = new AtomicInteger();
+        final AtomicInteger reusedFiles = new AtomicInteger();
+        final AtomicInteger chunks = new AtomicInteger();
+        final AtomicInteger newChunks = new AtomicInteger();
+        final AtomicLong bytesRead = new AtomicLong();
+        final AtomicLong bytesWritten = new AtomicLong();
+        long totalBytes;
+        int uniqueChunks;
+        // Los trozos únicos del manifiesto, para las referencias del catálogo
+        Set<String> chunkHashes = new HashSet<>();
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public long getBytesWritten() {
+            return bytesWritten.get();
+        }
+
+        public int getUniqueChunks() {
+            return uniqueChunks;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d archivos (%d sin cambios), %d trozos (%d nuevos), %d MB leidos, %d MB escritos",
+                                 files.get(), reusedFiles.get(), chunks.get(), newChunks.get(),
+                                 bytesRead.get() / (1024 * 1024), bytesWritten.get() / (1024 * 1024));
+        }
+    }
+
+    // Crea la instantánea de sourceDir en manifestFile. Los archivos con el mismo tamaño y
+    // fecha que en la instantánea anterior reutilizan su lista de trozos sin leerse.
+    public SnapshotStats snapshot(Path sourceDir, Path previousManifestFile, Path manifestFile) throws IOException {
+        return snapshot(sourceDir, previousManifestFile, manifestFile, null);
+    }
+
+    public SnapshotStats snapshot(Path sourceDir, Path previousManifestFile, Path manifestFile, IoThrottle throttle)
+            throws IOException {
+        lock.readLock().lock();
+        try {
+            SnapshotStats stats = doSnapshot(sourceDir, previousManifestFile, manifestFile, throttle);
+            generation.incrementAndGet();
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private SnapshotStats doSnapshot(Path sourceDir, Path previousManifestFile, Path manifestFile, IoThrottle throttle)
+            throws IOException {
+        SnapshotManifest previous = null;
+        if (previousManifestFile != null && Files.exists(previousManifestFile)) {
+            try {
+                previous = SnapshotManifest.read(previousManifestFile);
+            } catch (IOException e) {
+                logger.warn("No se pudo leer el manifiesto anterior '{}'. Se hara una copia completa.", previousManifestFile, e);
+            }
+        }
+
+        SnapshotManifest manifest = new SnapshotManifest();
+        SnapshotStats stats = new SnapshotStats();
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(sourceDir)) {
+            List<Path> all = paths.collect(Collectors.toList());
+            files = new ArrayList<>();
+            for (Path path : all) {
+                if (Files.isDirectory(path)) {
+                    if (!path.equals(sourceDir)) {
+                        manifest.addDirectory(relativize(sourceDir, path));
+                    }
+                } else if (Files.isRegularFile(path) && !path.getFileName().toString().equals("session.lock")) {
+                    files.add(path);
+                }
+            }
+        }
+
+        ExecutorService pool = newPool();
+        try {
+            List<Future<?>> pending = new ArrayList<>();
+            SnapshotManifest base = previous;
+            ThreadLocal<Chunker> chunkers = ThreadLocal.withInitial(Chunker::new);
+            for (Path file : files) {
+                pending.add(pool.submit(() -> {
+                    snapshotFile(sourceDir, file, base, manifest, stats, chunkers.get(), throttle);
+                    return null;
+                }));
+            }
+            awaitAll(pending);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        manifest.write(manifestFile);
+        stats.totalBytes = manifest.totalSize();
+        stats.chunkHashes = manifest.uniqueChunks();
+        stats.uniqueChunks = stats.chunkHashes.size();
+        return stats;
+    }
+
+    private void snapshotFile(Path sourceDir, Path file, SnapshotManifest previous, SnapshotManifest manifest,
+                              SnapshotStats stats, Chunker chunker, IoThrottle throttle) throws IOException {
+        String relative = relativize(sourceDir, file);
+        long size = Files.size(file);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        stats.files.incrementAndGet();
+
+        SnapshotManifest.FileEntry old = previous != null ? previous.getFile(relative) : null;
+        if (old != null && old.size == size && old.modified == modified) {
+            manifest.addFile(new SnapshotManifest.FileEntry(relative, size, modified, old.chunks));
+            stats.reusedFiles.incrementAndGet();
+            stats.chunks.addAndGet(old.chunks.size());
+            return;
+        }
+
+        MessageDigest digest = sha256();
+        List<String> chunks = new ArrayList<>();
+        long[] readBytes = new long[1];
+        try (InputStream in = throttle != null ? throttle.wrap(Files.newInputStream(file)) : Files.newInputStream(file)) {
+            chunker.split(in, (data, length) -> {
+                readBytes[0] += length;
+                digest.update(data, 0, length);
+                String hash = HexFormat.of().formatHex(digest.digest());
+                if (chunkStore.put(hash, data, length)) {
+                    stats.newChunks.incrementAndGet();
+                    stats.bytesWritten.addAndGet(length);
+                }
+                stats.chunks.incrementAndGet();
+                stats.bytesRead.addAndGet(length);
+                chunks.add(hash);
+            });
+        }
+        // Se guarda lo que realmente se leyó por si el archivo cambió durante la copia
+        manifest.addFile(new SnapshotManifest.FileEntry(relative, readBytes[0], modified, chunks));
+    }
+
+    // Reconstruye la instantánea en targetDir verificando el hash de cada trozo
+    public void restore(Path manifestFile, Path targetDir) throws IOException {
+        lock.readLock().lock();
+        try {
+            doRestore(manifestFile, targetDir);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void doRestore(Path manifestFile, Path targetDir) throws IOException {
+        SnapshotManifest manifest = SnapshotManifest.read(manifestFile);
+        if (Files.isDirectory(targetDir)) {
+            try (Stream<Path> existing = Files.list(targetDir)) {
+                if (existing.findAny().isPresent()) {
+                    throw new IOException("El directorio de destino no esta vacio: " + targetDir);
+                }
+            }
+        }
+        Files.createDirectories(targetDir);
+        for (String directory : manifest.getDirectories()) {
+            Files.createDirectories(targetDir.resolve(directory));
+        }
+
+        ExecutorService pool = newPool();
+        try {
+            List<Future<?>> pending = new ArrayList<>();
+            for (SnapshotManifest.FileEntry entry : manifest.getFiles()) {
+                pending.add(pool.submit(() -> {
+                    restoreFile(entry, targetDir);
+                    return null;
+                }));
+            }
+            awaitAll(pending);
+        } finally {
+            pool.shutdownNow();
+        }
+        logger.info("Instantanea restaurada en '{}': {} archivos, {} MB.", targetDir,
+                    manifest.getFiles().size(), manifest.totalSize() / (1024 * 1024));
+    }
+
+    private void restoreFile(SnapshotManifest.FileEntry entry, Path targetDir) throws IOException {
+        Path target = targetDir.resolve(entry.path);
+        Files.createDirectories(target.getParent());
+        MessageDigest digest = sha256();
+        long written = 0;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            for (String hash : entry.chunks) {
+                byte[] data = chunkStore.read(hash);
+                if (!Arrays.equals(digest.digest(data), HexFormat.of().parseHex(hash))) {
+                    throw new IOException("Trozo corrupto " + hash + " en " + entry.path);
+                }
+                out.write(data);
+                written += data.length;
+            }
+        }
+        if (written != entry.size) {
+            throw new IOException("Tamaño restaurado incorrecto para " + entry.path + ": " + written + " != " + entry.size);
+        }
+        Files.setLastModifiedTime(target, FileTime.fromMillis(entry.modified));
+    }
+
+    // Entradas de archivo que leen el mundo directamente desde los trozos de la instantánea,
+    // sin reconstruirlo en disco; la instantánea es inmutable aunque el servidor siga escribiendo
+    public List<BackupArchiver.Entry> archiveEntries(Path manifestFile, String prefix) throws IOException {
+        SnapshotManifest manifest = SnapshotManifest.read(manifestFile);
+        long now = System.currentTimeMillis();
+        List<BackupArchiver.Entry> entries = new ArrayList<>();
+        for (String directory : manifest.getDirectories()) {
+            entries.add(new BackupArchiver.Entry(prefix + directory, 0, now, null));
+        }
+        for (SnapshotManifest.FileEntry entry : manifest.getFiles()) {
+            entries.add(new BackupArchiver.Entry(prefix + entry.path, entry.size, entry.modified,
+                                                 () -> new ChunkInputStream(entry.chunks)));
+        }
+        return entries;
+    }
+
+    private class ChunkInputStream extends InputStream {
+        private final Iterator<String> chunks;
+        private byte[] current = new byte[0];
+        private int position;
+
+        ChunkInputStream(List<String> chunks) {
+            this.chunks = chunks.iterator();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            while (position == current.length) {
+                if (!chunks.hasNext()) {
+                    return -1;
+                }
+                current = chunkStore.read(chunks.next());
+                position = 0;
+            }
+            int copied = Math.min(length, current.length - position);
+            System.arraycopy(current, position, buffer, offset, copied);
+            position += copied;
+            return copied;
+        }
+    }
+
+    // Recolección de basura concurrente con los backups: los trozos vivos salen de las referencias
+    // del catálogo, más los manifiestos de backupRoot que aún no están en él (un backup que acaba
+    // de terminar su instantánea). Barre los prefijos por lotes con el cerrojo de escritura; entre
+    // lotes puede empezar una instantánea y, si termina alguna durante el barrido, se vuelve a marcar.
+    long collectGarbage(BackupCatalog catalog, Path backupRoot, ExecutorService pool) throws IOException {
+        List<Path> prefixes = chunkStore.prefixDirs();
+        long freed = 0;
+        long markedGeneration = -1;
+        Set<String> live = null;
+        for (int from = 0; from < prefixes.size(); from += SWEEP_BATCH) {
+            List<Path> batch = prefixes.subList(from, Math.min(prefixes.size(), from + SWEEP_BATCH));
+            while (true) {
+                if (markedGeneration != generation.get()) {
+                    markedGeneration = generation.get();
+                    live = markLiveChunks(catalog, backupRoot, pool);
+                }
+                lock.writeLock().lock();
+                try {
+                    if (markedGeneration != generation.get()) {
+                        continue;
+                    }
+                    Set<String> liveSet = live;
+                    List<Future<Long>> sweeps = new ArrayList<>();
+                    for (Path prefix : batch) {
+                        sweeps.add(pool.submit(() -> chunkStore.sweep(prefix, liveSet)));
+                    }
+                    for (Future<Long> sweep : sweeps) {
+                        freed += await(sweep);
+                    }
+                    break;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+        return freed;
+    }
+
+    private static Set<String> markLiveChunks(BackupCatalog catalog, Path backupRoot, ExecutorService pool)
+            throws IOException {
+        // Los ids se leen antes que las referencias: un backup catalogado entre medias se cuenta dos veces, no ninguna
+        Set<String> cataloged = catalog.load().stream().map(entry -> entry.id).collect(Collectors.toSet());
+        Set<String> live = catalog.liveChunks();
+        List<Path> manifests;
+        try (Stream<Path> dirs = Files.list(backupRoot)) {
+            manifests = dirs.filter(dir -> !cataloged.contains(dir.getFileName().toString()))
+                            .map(dir -> dir.resolve(SnapshotManifest.FILE_NAME))
+                            .filter(Files::exists)
+                            .collect(Collectors.toList());
+        }
+        List<Future<Set<String>>> reads = new ArrayList<>();
+        for (Path manifest : manifests) {
+            reads.add(pool.submit(() -> SnapshotManifest.read(manifest).uniqueChunks()));
+        }
+        for (Future<Set<String>> read : reads) {
+            live.addAll(await(read));
+        }
+        return live;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Limpieza interrumpida.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private ExecutorService newPool() {
+        return LauncherRuntime.root().newPool("egg-backup", threads);
+    }
+
+    private static void awaitAll(List<Future<?>> pending) throws IOException {
+        try {
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Backup interrumpido.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static String relativize(Path root, Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Las instantáneas y restauraciones toman el cerrojo de lectura; la limpieza, el de
+    // escritura. La generación se incrementa cada vez que se escribe un manifiesto nuevo
+    private static final class StoreLock {
+
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final AtomicLong generation = new AtomicLong();
+    }
+}
@@ -0,0 +1,90 @@
+package com.egg.launcher.backup;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+// Limitador de E/S por cubeta de tokens. Cuando el servidor avisa de lag, la
+// velocidad baja a una cuarta parte durante un tiempo, o se pausa si el lag es grave.
+public class IoThrottle {
+
+    private static final long DEGRADED_MILLIS = 30_000;
+    private static final long PAUSE_MILLIS = 10_000;
+    private static final long SEVERE_LAG_MILLIS = 2_000;
+    private static final long MAX_CREDIT_NANOS = 1_000_000_000L;
+
+    private final long bytesPerSecond;
+    private long available;
+    private long lastRefill = System.nanoTime();
+    private volatile long degradedUntil;
+    private volatile long pausedUntil;
+    private volatile boolean cancelled;
+
+    public IoThrottle(long bytesPerSecond) {
+        this.bytesPerSecond = Math.max(1, bytesPerSecond);
+    }
+
+    public void onServerLag(long millisBehind) {
+        long now = System.currentTimeMillis();
+        degradedUntil = now + DEGRADED_MILLIS;
+        if (millisBehind >= SEVERE_LAG_MILLIS) {
+            pausedUntil = now + PAUSE_MILLIS;
+        }
+    }
+
+    // Aborta las copias en curso: la siguiente llamada a acquire lanza InterruptedIOException
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // Nunca 0: se usa como divisor en acquire
+    public long currentRate() {
+        return System.currentTimeMillis() < degradedUntil ? Math.max(1, bytesPerSecond / 4) : bytesPerSecond;
+    }
+
+    public synchronized void acquire(int bytes) throws InterruptedIOException {
+        try {
+            while (System.currentTimeMillis() < pausedUntil && !cancelled) {
+                Thread.sleep(200);
+            }
+            if (cancelled) {
+                throw new InterruptedIOException("Copia cancelada.");
+            }
+            long rate = currentRate();
+            long now = System.nanoTime();
+            // Se permite acumular como máximo un segundo de crédito. El tiempo se acota antes de
+            // multiplicar: entre backups programados pasan minutos y el producto desbordaba
+            long elapsed = Math.min(now - lastRefill, MAX_CREDIT_NANOS);
+            available = Math.min(rate, available + elapsed * rate / MAX_CREDIT_NANOS);
+            lastRefill = now;
+            available -= bytes;
+            if (available < 0) {
+                long waitNanos = -available * MAX_CREDIT_NANOS / rate;
+                Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Copia interrumpida.");
+        }
+    }
+
+    InputStream wrap(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                acquire(1);
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                if (read > 0) {
+                    acquire(read);
+                }
+                return read;
+            }
+        };
+    }
+}
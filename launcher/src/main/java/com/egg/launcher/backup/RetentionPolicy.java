@@ -0,0 +1,75 @@
+package com.egg.launcher.backup;
+
+import com.egg.launcher.config.ConfigView;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.WeekFields;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Retención escalonada (abuelo-padre-hijo): siempre los últimos N backups, y además el más
+// reciente de cada hora durante un día, de cada día durante una semana y de cada semana durante un mes.
+class RetentionPolicy {
+
+    private final int keepLast;
+    private final int hourlyHours;
+    private final int dailyDays;
+    private final int weeklyWeeks;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    RetentionPolicy(int keepLast, int hourlyHours, int dailyDays, int weeklyWeeks) {
+        this.keepLast = Math.max(1, keepLast);
+        this.hourlyHours = hourlyHours;
+        this.dailyDays = dailyDays;
+        this.weeklyWeeks = weeklyWeeks;
+    }
+
+    static RetentionPolicy fromConfig(ConfigView config) {
+        return new RetentionPolicy(config.getInt("backup.retention.keepLast", 3),
+                                   config.getInt("backup.retention.hourly", 24),
+                                   config.getInt("backup.retention.daily", 7),
+                                   config.getInt("backup.retention.weekly", 4));
+    }
+
+    Set<String> selectToKeep(List<BackupCatalog.Entry> entries, long now) {
+        List<BackupCatalog.Entry> newestFirst = entries.stream()
+                                                       .sorted(Comparator.comparingLong((BackupCatalog.Entry e) -> e.created).reversed())
+                                                       .collect(Collectors.toList());
+        Set<String> keep = new HashSet<>();
+        for (int i = 0; i < Math.min(keepLast, newestFirst.size()); i++) {
+            keep.add(newestFirst.get(i).id);
+        }
+        keepNewestPerBucket(newestFirst, keep, now - hourlyHours * 3_600_000L,
+                            time -> time.truncatedTo(ChronoUnit.HOURS));
+        keepNewestPerBucket(newestFirst, keep, now - dailyDays * 86_400_000L,
+                            time -> time.truncatedTo(ChronoUnit.DAYS));
+        keepNewestPerBucket(newestFirst, keep, now - weeklyWeeks * 7 * 86_400_000L,
+                            time -> time.truncatedTo(ChronoUnit.DAYS).with(WeekFields.ISO.dayOfWeek(), 1));
+        return keep;
+    }
+
+    private void keepNewestPerBucket(List<BackupCatalog.Entry> newestFirst, Set<String> keep, long since,
+                                     Function<ZonedDateTime, ZonedDateTime> bucketOf) {
+        Set<ZonedDateTime> seen = new HashSet<>();
+        for (BackupCatalog.Entry entry : newestFirst) {
+            if (entry.created < since) {
+                break;
+            }
+            if (seen.add(bucketOf.apply(Instant.ofEpochMilli(entry.created).atZone(zone)))) {
+                keep.add(entry.id);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ultimos %d, horarios %d h, diarios %d d, semanales %d sem", keepLast, hourlyHours, dailyDays, weeklyWeeks);
+    }
+}
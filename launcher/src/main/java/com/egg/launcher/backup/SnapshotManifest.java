@@ -0,0 +1,118 @@
+package com.egg.launcher.backup;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Manifiesto de una instantánea: lista de directorios y, por cada archivo, su
+// tamaño, fecha de modificación y los hashes de sus trozos en orden.
+class SnapshotManifest {
+
+    static final String FILE_NAME = "world.manifest";
+    private static final String HEADER = "# egg-snapshot v1";
+
+    private final Map<String, FileEntry> files = new TreeMap<>();
+    private final List<String> directories = new ArrayList<>();
+
+    static class FileEntry {
+        final String path;
+        final long size;
+        final long modified;
+        final List<String> chunks;
+
+        FileEntry(String path, long size, long modified, List<String> chunks) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.chunks = chunks;
+        }
+    }
+
+    synchronized void addFile(FileEntry entry) {
+        files.put(entry.path, entry);
+    }
+
+    synchronized void addDirectory(String path) {
+        directories.add(path);
+    }
+
+    FileEntry getFile(String path) {
+        return files.get(path);
+    }
+
+    Collection<FileEntry> getFiles() {
+        return files.values();
+    }
+
+    List<String> getDirectories() {
+        return directories;
+    }
+
+    Set<String> uniqueChunks() {
+        Set<String> chunks = new HashSet<>();
+        for (FileEntry entry : files.values()) {
+            chunks.addAll(entry.chunks);
+        }
+        return chunks;
+    }
+
+    long totalSize() {
+        long total = 0;
+        for (FileEntry entry : files.values()) {
+            total += entry.size;
+        }
+        return total;
+    }
+
+    void write(Path manifestFile) throws IOException {
+        Path tmp = manifestFile.resolveSibling(manifestFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (String directory : directories) {
+                writer.write("D\t" + directory);
+                writer.newLine();
+            }
+            for (FileEntry entry : files.values()) {
+                writer.write("F\t" + entry.path + "\t" + entry.size + "\t" + entry.modified + "\t" + String.join(",", entry.chunks));
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, manifestFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    static SnapshotManifest read(Path manifestFile) throws IOException {
+        SnapshotManifest manifest = new SnapshotManifest();
+        try (BufferedReader reader = Files.newBufferedReader(manifestFile, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (!HEADER.equals(header)) {
+                throw new IOException("Formato de manifiesto desconocido en " + manifestFile);
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", -1);
+                if (parts[0].equals("D") && parts.length == 2) {
+                    manifest.directories.add(parts[1]);
+                } else if (parts[0].equals("F") && parts.length == 5) {
+                    List<String> chunks = parts[4].isEmpty() ? new ArrayList<>() : Arrays.asList(parts[4].split(","));
+                    manifest.files.put(parts[1], new FileEntry(parts[1], Long.parseLong(parts[2]), Long.parseLong(parts[3]), chunks));
+                } else {
+                    throw new IOException("Linea invalida en el manifiesto " + manifestFile + ": " + line);
+                }
+            }
+        }
+        return manifest;
+    }
+}
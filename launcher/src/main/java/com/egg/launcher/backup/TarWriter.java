@@ -0,0 +1,103 @@
+package com.egg.launcher.backup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Escritor mínimo de tar (ustar, con entradas GNU 'L' para nombres largos)
+class TarWriter {
+
+    static final int RECORD_SIZE = 512;
+    private static final long MAX_SIZE = 077777777777L;
+
+    private final OutputStream out;
+    private final byte[] copyBuffer = new byte[64 * 1024];
+
+    TarWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    void writeDirectory(String name, long modifiedMillis) throws IOException {
+        writeHeader(name.endsWith("/") ? name : name + "/", 0, modifiedMillis, '5');
+    }
+
+    // Copia exactamente size bytes: si el archivo encogió se rellena con ceros, si creció se trunca
+    void writeFile(String name, long size, long modifiedMillis, InputStream data) throws IOException {
+        if (size > MAX_SIZE) {
+            throw new IOException("Archivo demasiado grande para tar: " + name);
+        }
+        writeHeader(name, size, modifiedMillis, '0');
+        long remaining = size;
+        int read;
+        while (remaining > 0 && (read = data.read(copyBuffer, 0, (int) Math.min(copyBuffer.length, remaining))) != -1) {
+            out.write(copyBuffer, 0, read);
+            remaining -= read;
+        }
+        while (remaining > 0) {
+            int zeros = (int) Math.min(copyBuffer.length, remaining);
+            Arrays.fill(copyBuffer, 0, zeros, (byte) 0);
+            out.write(copyBuffer, 0, zeros);
+            remaining -= zeros;
+        }
+        pad(size);
+    }
+
+    // Dos registros vacíos marcan el final del archivo tar
+    void finish() throws IOException {
+        out.write(new byte[RECORD_SIZE * 2]);
+    }
+
+    private void writeHeader(String name, long size, long modifiedMillis, char type) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length > 100) {
+            // Extensión GNU: el nombre completo va en una entrada previa de tipo 'L'
+            out.write(header("././@LongLink", nameBytes.length + 1, 0, 'L'));
+            out.write(nameBytes);
+            out.write(0);
+            pad(nameBytes.length + 1);
+        }
+        out.write(header(name, size, modifiedMillis, type));
+    }
+
+    private static byte[] header(String name, long size, long modifiedMillis, char type) {
+        byte[] header = new byte[RECORD_SIZE];
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(nameBytes, 0, header, 0, Math.min(nameBytes.length, 100));
+        octal(header, 100, 8, type == '5' ? 0755 : 0644);
+        octal(header, 108, 8, 0);
+        octal(header, 116, 8, 0);
+        octal(header, 124, 12, size);
+        octal(header, 136, 12, modifiedMillis / 1000);
+        header[156] = (byte) type;
+        System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+        System.arraycopy("egg".getBytes(StandardCharsets.US_ASCII), 0, header, 265, 3);
+        System.arraycopy("egg".getBytes(StandardCharsets.US_ASCII), 0, header, 297, 3);
+
+        // El checksum se calcula con su propio campo relleno de espacios
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        octal(header, 148, 7, checksum);
+        return header;
+    }
+
+    private static void octal(byte[] header, int offset, int length, long value) {
+        String digits = Long.toOctalString(value);
+        int padding = length - 1 - digits.length();
+        for (int i = 0; i < length - 1; i++) {
+            header[offset + i] = (byte) (i < padding ? '0' : digits.charAt(i - padding));
+        }
+        header[offset + length - 1] = 0;
+    }
+
+    private void pad(long size) throws IOException {
+        int remainder = (int) (size % RECORD_SIZE);
+        if (remainder != 0) {
+            out.write(new byte[RECORD_SIZE - remainder]);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.egg.launcher.config;
+
+import java.util.Collections;
+import java.util.Map;
+
+// La configuración vista desde una instancia del servidor: las claves de su sección en
+// "instances" prevalecen sobre las globales de egg-launcher.yml (y sus -Degg.<clave>).
+// La vista global es la de siempre. Los hilos de los componentes de una instancia
+// llevan su id en el nombre para distinguir sus líneas en el log.
+public class ConfigView {
+
+    private static final ConfigView GLOBAL = new ConfigView(null, Collections.emptyMap());
+
+    private final String instanceId;
+    private final Map<?, ?> overrides;
+
+    ConfigView(String instanceId, Map<?, ?> overrides) {
+        this.instanceId = instanceId;
+        this.overrides = overrides;
+    }
+
+    public static ConfigView global() {
+        return GLOBAL;
+    }
+
+    public static ConfigView forInstance(String instanceId, Map<?, ?> section) {
+        return new ConfigView(instanceId, section);
+    }
+
+    public String getString(String key, String defaultValue) {
+        Object value = LauncherConfig.lookup(overrides, key);
+        return value != null ? value.toString() : LauncherConfig.getString(key, defaultValue);
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        return LauncherConfig.parseBoolean(getString(key, null), defaultValue);
+    }
+
+    public int getInt(String key, int defaultValue) {
+        return (int) getLong(key, defaultValue);
+    }
+
+    public long getLong(String key, long defaultValue) {
+        return LauncherConfig.parseLong(key, getString(key, null), defaultValue);
+    }
+
+    // null en la vista global
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public String threadName(String base) {
+        return instanceId == null ? base : base + "-" + instanceId;
+    }
+}
@@ -0,0 +1,110 @@
+package com.egg.launcher.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class LauncherConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(LauncherConfig.class);
+    private static final Path CONFIG_FILE = Paths.get("egg-launcher.yml");
+    private static final String PROPERTY_PREFIX = "egg.";
+
+    private static Map<String, Object> values;
+
+    // Las claves usan notación con puntos ("scanner.paranoid") y pueden
+    // sobrescribirse desde la línea de comandos con -Degg.<clave>=<valor>
+    public static String getString(String key, String defaultValue) {
+        String override = System.getProperty(PROPERTY_PREFIX + key);
+        if (override != null) {
+            return override;
+        }
+        Object value = lookup(load(), key);
+        return value != null ? value.toString() : defaultValue;
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        return parseBoolean(getString(key, null), defaultValue);
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        return (int) getLong(key, defaultValue);
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        return parseLong(key, getString(key, null), defaultValue);
+    }
+
+    // Lista de secciones (p. ej. "instances"); los elementos que no son mapas se ignoran
+    public static List<Map<?, ?>> getSections(String key) {
+        Object value = lookup(load(), key);
+        List<Map<?, ?>> sections = new ArrayList<>();
+        if (value instanceof List) {
+            for (Object element : (List<?>) value) {
+                if (element instanceof Map) {
+                    sections.add((Map<?, ?>) element);
+                } else {
+                    logger.warn("Elemento no valido en '{}' de la configuracion: '{}'.", key, element);
+                }
+            }
+        }
+        return sections;
+    }
+
+    static boolean parseBoolean(String value, boolean defaultValue) {
+        return value != null ? Boolean.parseBoolean(value.trim()) : defaultValue;
+    }
+
+    static long parseLong(String key, String value, long defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Valor no numerico para '{}' en la configuracion: '{}'. Se usara {}.", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    static Object lookup(Object root, String key) {
+        Object current = root;
+        for (String part : key.split("\\.")) {
+            if (!(current instanceof Map)) {
+                return null;
+            }
+            current = ((Map<?, ?>) current).get(part);
+        }
+        return current;
+    }
+
+    private static synchronized Map<String, Object> load() {
+        if (values != null) {
+            return values;
+        }
+        values = Collections.emptyMap();
+        if (!Files.exists(CONFIG_FILE)) {
+            return values;
+        }
+        try (InputStream in = Files.newInputStream(CONFIG_FILE)) {
+            Map<String, Object> loaded = new Yaml().load(in);
+            if (loaded != null) {
+                values = loaded;
+            }
+            logger.info("Configuracion del launcher cargada desde '{}'.", CONFIG_FILE);
+        } catch (IOException | RuntimeException e) {
+            logger.error("No se pudo leer '{}'. Se usaran los valores por defecto.", CONFIG_FILE, e);
+        }
+        return values;
+    }
+}
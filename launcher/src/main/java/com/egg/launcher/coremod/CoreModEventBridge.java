@@ -0,0 +1,76 @@
+package com.egg.launcher.coremod;
+
+import com.egg.launcher.plugin.EventBus;
+import com.egg.launcher.plugin.event.ChunkStatsEvent;
+import com.egg.launcher.plugin.event.PlayerJoinEvent;
+import com.egg.launcher.plugin.event.PlayerLeaveEvent;
+import com.egg.launcher.plugin.event.ServerHeartbeatEvent;
+import com.egg.launcher.plugin.event.TickTimingEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Traduce los eventos del canal del core mod a eventos tipados del EventBus de
+// plugins. Solo se construye el objeto del evento si algún plugin lo escucha.
+// Los latidos van a la instancia que se identificó en el HELLO de su conexión (null
+// si el core mod no se ha identificado).
+public class CoreModEventBridge implements CoreModEventHandler {
+
+    private final EventBus eventBus;
+    private final Consumer<String> heartbeatCallback;
+    // Solo se usa desde el hilo del selector
+    private final Map<Integer, String> instances = new HashMap<>();
+
+    public CoreModEventBridge(EventBus eventBus, Consumer<String> heartbeatCallback) {
+        this.eventBus = eventBus;
+        this.heartbeatCallback = heartbeatCallback;
+    }
+
+    @Override
+    public void onHello(int connectionId, int version, String instanceId) {
+        instances.put(connectionId, instanceId);
+    }
+
+    @Override
+    public void onDisconnected(int connectionId) {
+        instances.remove(connectionId);
+    }
+
+    @Override
+    public void onHeartbeat(int connectionId, long timestamp) {
+        heartbeatCallback.accept(instances.get(connectionId));
+        if (eventBus.hasListeners(ServerHeartbeatEvent.class)) {
+            eventBus.post(new ServerHeartbeatEvent(timestamp));
+        }
+    }
+
+    @Override
+    public void onTickTiming(int connectionId, long timestamp, int dimension, long tickNanos) {
+        if (eventBus.hasListeners(TickTimingEvent.class)) {
+            eventBus.post(new TickTimingEvent(timestamp, dimension, tickNanos));
+        }
+    }
+
+    @Override
+    public void onPlayerJoin(int connectionId, long timestamp, long uuidMostBits, long uuidLeastBits) {
+        if (eventBus.hasListeners(PlayerJoinEvent.class)) {
+            eventBus.post(new PlayerJoinEvent(timestamp, new UUID(uuidMostBits, uuidLeastBits)));
+        }
+    }
+
+    @Override
+    public void onPlayerLeave(int connectionId, long timestamp, long uuidMostBits, long uuidLeastBits) {
+        if (eventBus.hasListeners(PlayerLeaveEvent.class)) {
+            eventBus.post(new PlayerLeaveEvent(timestamp, new UUID(uuidMostBits, uuidLeastBits)));
+        }
+    }
+
+    @Override
+    public void onChunkStats(int connectionId, long timestamp, int dimension, int loadedChunks, int entities) {
+        if (eventBus.hasListeners(ChunkStatsEvent.class)) {
+            eventBus.post(new ChunkStatsEvent(timestamp, dimension, loadedChunks, entities));
+        }
+    }
+}
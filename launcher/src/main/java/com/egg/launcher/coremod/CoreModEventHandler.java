@@ -0,0 +1,29 @@
+package com.egg.launcher.coremod;
+
+// Receptor de los eventos del core mod. Los campos llegan como primitivos para no
+// reservar objetos por mensaje; las llamadas se hacen desde el hilo del selector.
+public interface CoreModEventHandler {
+
+    default void onConnected(int connectionId, String remoteAddress) {
+    }
+
+    default void onHello(int connectionId, int version, String instanceId) {
+    }
+
+    void onHeartbeat(int connectionId, long timestamp);
+
+    default void onTickTiming(int connectionId, long timestamp, int dimension, long tickNanos) {
+    }
+
+    default void onPlayerJoin(int connectionId, long timestamp, long uuidMostBits, long uuidLeastBits) {
+    }
+
+    default void onPlayerLeave(int connectionId, long timestamp, long uuidMostBits, long uuidLeastBits) {
+    }
+
+    default void onChunkStats(int connectionId, long timestamp, int dimension, int loadedChunks, int entities) {
+    }
+
+    default void onDisconnected(int connectionId) {
+    }
+}
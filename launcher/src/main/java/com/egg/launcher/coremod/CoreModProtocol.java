@@ -0,0 +1,48 @@
+package com.egg.launcher.coremod;
+
+// Protocolo binario entre el EGG-CORE-MOD y el launcher (big-endian).
+//
+// Trama:   [int longitud][lote de "longitud" bytes]
+// Lote:    [short número de eventos][evento]...
+// Evento:  [byte tipo][long timestamp en ms][campos del tipo]
+//
+//   HELLO         short versión, short n, n bytes UTF-8 con el id de instancia
+//   HEARTBEAT     (sin campos)
+//   TICK_TIMING   int dimensión, long duración del tick en ns
+//   PLAYER_JOIN   long uuid (bits altos), long uuid (bits bajos)
+//   PLAYER_LEAVE  long uuid (bits altos), long uuid (bits bajos)
+//   CHUNK_STATS   int dimensión, int chunks cargados, int entidades
+public final class CoreModProtocol {
+
+    public static final int VERSION = 1;
+    public static final int MAX_FRAME_SIZE = 64 * 1024;
+
+    public static final byte HELLO = 0;
+    public static final byte HEARTBEAT = 1;
+    public static final byte TICK_TIMING = 2;
+    public static final byte PLAYER_JOIN = 3;
+    public static final byte PLAYER_LEAVE = 4;
+    public static final byte CHUNK_STATS = 5;
+
+    static final int EVENT_HEADER_SIZE = 1 + 8;
+
+    private CoreModProtocol() {
+    }
+
+    // Tamaño fijo de los campos de cada tipo, o -1 si es variable o desconocido
+    static int payloadSize(byte type) {
+        switch (type) {
+            case HEARTBEAT:
+                return 0;
+            case TICK_TIMING:
+                return 4 + 8;
+            case PLAYER_JOIN:
+            case PLAYER_LEAVE:
+                return 8 + 8;
+            case CHUNK_STATS:
+                return 4 + 4 + 4;
+            default:
+                return -1;
+        }
+    }
+}
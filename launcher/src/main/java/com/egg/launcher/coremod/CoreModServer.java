@@ -0,0 +1,265 @@
+package com.egg.launcher.coremod;
+
+import com.egg.launcher.runtime.LauncherRuntime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Servidor NIO no bloqueante para el canal de eventos del core mod. Un solo hilo
+// atiende todas las conexiones; cada una decodifica sus tramas en un buffer propio
+// reutilizado, sin reservar objetos por evento. Si el core mod se desconecta o el
+// servidor Forge se reinicia, simplemente se acepta la nueva conexión.
+public class CoreModServer implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoreModServer.class);
+
+    private final int port;
+    private final CoreModEventHandler handler;
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+    private volatile boolean running;
+    private volatile Selector selector;
+    private int nextConnectionId;
+    private int openConnections;
+
+    public CoreModServer(int port, CoreModEventHandler handler) {
+        this.port = port;
+        this.handler = handler;
+    }
+
+    public void start() {
+        running = true;
+        // Hilo de plataforma: el selector bloquea su hilo portador
+        LauncherRuntime.root().forkPlatform("egg-coremod-channel", this);
+    }
+
+    public void stop() {
+        running = false;
+        Selector current = selector;
+        if (current != null) {
+            current.wakeup();
+        }
+    }
+
+    public long getEventCount() {
+        return events.get();
+    }
+
+    public long getFrameCount() {
+        return frames.get();
+    }
+
+    @Override
+    public void run() {
+        try (Selector selector = Selector.open(); ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            this.selector = selector;
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            logger.info("Esperando conexion del EGG-CORE-MOD en el puerto {}...", port);
+
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    // Un fallo en un handler no debe matar este hilo: sin él se pierden los heartbeats
+                    // y el watchdog reiniciaría un servidor sano
+                    try {
+                        if (key.isAcceptable()) {
+                            accept(serverChannel, selector);
+                        } else if (key.isReadable()) {
+                            read(key);
+                        }
+                    } catch (RuntimeException e) {
+                        logger.error("Error inesperado al atender una conexion del Core Mod.", e);
+                    }
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+        } catch (IOException e) {
+            logger.error("Error en el listener del Core Mod.", e);
+        }
+    }
+
+    private void accept(ServerSocketChannel serverChannel, Selector selector) throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Connection connection = new Connection(++nextConnectionId, channel);
+        channel.register(selector, SelectionKey.OP_READ, connection);
+        openConnections++;
+        logger.info("!EGG-CORE-MOD conectado desde {}! (conexion #{})", channel.getRemoteAddress(), connection.id);
+        handler.onConnected(connection.id, String.valueOf(channel.getRemoteAddress()));
+    }
+
+    private void read(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        try {
+            int read = connection.channel.read(connection.buffer);
+            if (read == -1) {
+                close(key, connection, "conexion cerrada por el core mod");
+                return;
+            }
+            connection.buffer.flip();
+            decodeFrames(connection);
+            connection.buffer.compact();
+        } catch (IOException | ProtocolException e) {
+            close(key, connection, e.getMessage());
+        }
+    }
+
+    private void decodeFrames(Connection connection) throws ProtocolException {
+        ByteBuffer buffer = connection.buffer;
+        while (buffer.remaining() >= 4) {
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            if (length < 2 || length > CoreModProtocol.MAX_FRAME_SIZE) {
+                throw new ProtocolException("trama de longitud invalida: " + length);
+            }
+            if (buffer.remaining() < 4 + length) {
+                return;
+            }
+            decodeBatch(connection, buffer, start + 4, start + 4 + length);
+            buffer.position(start + 4 + length);
+            frames.incrementAndGet();
+        }
+    }
+
+    private void decodeBatch(Connection connection, ByteBuffer buffer, int offset, int end) throws ProtocolException {
+        int count = buffer.getShort(offset) & 0xffff;
+        int position = offset + 2;
+        for (int i = 0; i < count; i++) {
+            if (position + CoreModProtocol.EVENT_HEADER_SIZE > end) {
+                throw new ProtocolException("lote truncado");
+            }
+            byte type = buffer.get(position);
+            long timestamp = buffer.getLong(position + 1);
+            position += CoreModProtocol.EVENT_HEADER_SIZE;
+
+            if (type == CoreModProtocol.HELLO) {
+                position = decodeHello(connection, buffer, position, end);
+                continue;
+            }
+            int size = CoreModProtocol.payloadSize(type);
+            if (size < 0) {
+                throw new ProtocolException("tipo de evento desconocido: " + type);
+            }
+            if (position + size > end) {
+                throw new ProtocolException("evento truncado de tipo " + type);
+            }
+            dispatch(connection.id, type, timestamp, buffer, position);
+            position += size;
+            events.incrementAndGet();
+        }
+    }
+
+    private int decodeHello(Connection connection, ByteBuffer buffer, int position, int end) throws ProtocolException {
+        if (position + 4 > end) {
+            throw new ProtocolException("HELLO truncado");
+        }
+        int version = buffer.getShort(position) & 0xffff;
+        int length = buffer.getShort(position + 2) & 0xffff;
+        if (position + 4 + length > end) {
+            throw new ProtocolException("HELLO truncado");
+        }
+        byte[] id = new byte[length];
+        buffer.get(position + 4, id);
+        String instanceId = new String(id, StandardCharsets.UTF_8);
+        logger.info("Core mod de la conexion #{} identificado: instancia '{}', protocolo v{}.", connection.id, instanceId, version);
+        if (version != CoreModProtocol.VERSION) {
+            logger.warn("El core mod usa la version {} del protocolo; el launcher espera la {}.", version, CoreModProtocol.VERSION);
+        }
+        try {
+            handler.onHello(connection.id, version, instanceId);
+        } catch (RuntimeException e) {
+            logger.error("Error en el handler del HELLO de la conexion #{}.", connection.id, e);
+        }
+        return position + 4 + length;
+    }
+
+    // Los errores de un handler se registran y el lote sigue decodificándose
+    private void dispatch(int connectionId, byte type, long timestamp, ByteBuffer buffer, int position) {
+        try {
+            dispatchEvent(connectionId, type, timestamp, buffer, position);
+        } catch (RuntimeException e) {
+            logger.error("Error en el handler del evento de tipo {} del core mod.", type, e);
+        }
+    }
+
+    private void dispatchEvent(int connectionId, byte type, long timestamp, ByteBuffer buffer, int position) {
+        switch (type) {
+            case CoreModProtocol.HEARTBEAT:
+                handler.onHeartbeat(connectionId, timestamp);
+                break;
+            case CoreModProtocol.TICK_TIMING:
+                handler.onTickTiming(connectionId, timestamp, buffer.getInt(position), buffer.getLong(position + 4));
+                break;
+            case CoreModProtocol.PLAYER_JOIN:
+                handler.onPlayerJoin(connectionId, timestamp, buffer.getLong(position), buffer.getLong(position + 8));
+                break;
+            case CoreModProtocol.PLAYER_LEAVE:
+                handler.onPlayerLeave(connectionId, timestamp, buffer.getLong(position), buffer.getLong(position + 8));
+                break;
+            case CoreModProtocol.CHUNK_STATS:
+                handler.onChunkStats(connectionId, timestamp, buffer.getInt(position), buffer.getInt(position + 4),
+                                     buffer.getInt(position + 8));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void close(SelectionKey key, Connection connection, String reason) {
+        key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            logger.debug("Error al cerrar la conexion del core mod.", e);
+        }
+        openConnections--;
+        logger.warn("EGG-CORE-MOD desconectado (conexion #{}): {}. Esperando reconexion...", connection.id, reason);
+        handler.onDisconnected(connection.id);
+    }
+
+    public int getOpenConnections() {
+        return openConnections;
+    }
+
+    private static class Connection {
+        final int id;
+        final SocketChannel channel;
+        // Cabe siempre una trama completa más su longitud
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(CoreModProtocol.MAX_FRAME_SIZE + 4);
+
+        Connection(int id, SocketChannel channel) {
+            this.id = id;
+            this.channel = channel;
+        }
+    }
+
+    private static class ProtocolException extends Exception {
+        ProtocolException(String message) {
+            super("error de protocolo: " + message);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.egg.launcher.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+// Piezas comunes de los índices binarios de metadatos (escaneo y plugins): la
+// comprobación de que un archivo no cambió y el guardado atómico del índice.
+public final class IndexFiles {
+
+    private IndexFiles() {
+    }
+
+    public interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    public static String fileKey(BasicFileAttributes attrs) {
+        // En sistemas Unix incluye dispositivo e inodo; en Windows puede ser null
+        Object fileKey = attrs.fileKey();
+        return fileKey != null ? fileKey.toString() : "";
+    }
+
+    public static long modifiedNanos(BasicFileAttributes attrs) {
+        return attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+
+    // true si la ruta conserva el tamaño, la fecha de modificación y el inodo guardados
+    public static boolean unchanged(long size, long modifiedNanos, String fileKey, BasicFileAttributes attrs) {
+        return size == attrs.size()
+               && modifiedNanos == modifiedNanos(attrs)
+               && fileKey.equals(fileKey(attrs));
+    }
+
+    // Escribe la cabecera y el cuerpo en un temporal junto al índice y lo mueve encima,
+    // para que un cierre a medias nunca deje un índice truncado
+    public static void writeAtomically(Path indexFile, int magic, int version, Body body) throws IOException {
+        Files.createDirectories(indexFile.toAbsolutePath().getParent());
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(magic);
+            out.writeInt(version);
+            body.write(out);
+        }
+        Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
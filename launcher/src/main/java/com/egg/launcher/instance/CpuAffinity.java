@@ -0,0 +1,90 @@
+package com.egg.launcher.instance;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+// Fija el proceso del servidor a una lista de núcleos ("0-3,8") lanzándolo con
+// taskset, que la hereda la JVM y todos sus hilos. Solo Linux: en otros sistemas, o
+// sin taskset en el PATH, el servidor se lanza sin fijar y se avisa una vez.
+final class CpuAffinity {
+
+    private static final Logger logger = LoggerFactory.getLogger(CpuAffinity.class);
+    private static final String TASKSET = "taskset";
+    private static final int MAX_CPU = 4096;
+
+    private static Boolean available;
+
+    private CpuAffinity() {
+    }
+
+    // Número de núcleos de la lista, o -1 si no es válida
+    static int count(String cpus) {
+        BitSet set = new BitSet();
+        for (String part : cpus.split(",")) {
+            String range = part.trim();
+            if (range.isEmpty()) {
+                return -1;
+            }
+            try {
+                int dash = range.indexOf('-');
+                int from = Integer.parseInt(dash < 0 ? range : range.substring(0, dash).trim());
+                int to = dash < 0 ? from : Integer.parseInt(range.substring(dash + 1).trim());
+                if (from < 0 || to < from || to >= MAX_CPU) {
+                    return -1;
+                }
+                set.set(from, to + 1);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return set.cardinality();
+    }
+
+    // Prefijo de la línea de comandos; vacío si no se puede fijar
+    static List<String> commandPrefix(String cpus) {
+        List<String> prefix = new ArrayList<>();
+        if (cpus == null || !isAvailable()) {
+            return prefix;
+        }
+        prefix.add(TASKSET);
+        prefix.add("-c");
+        prefix.add(cpus);
+        return prefix;
+    }
+
+    private static synchronized boolean isAvailable() {
+        if (available == null) {
+            available = System.getProperty("os.name", "").toLowerCase().contains("linux") && findOnPath(TASKSET);
+            if (!available) {
+                logger.warn("No se pueden fijar nucleos: hace falta Linux con '{}' en el PATH. Las instancias se lanzaran sin "
+                            + "fijar.", TASKSET);
+            }
+        }
+        return available;
+    }
+
+    private static boolean findOnPath(String executable) {
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return false;
+        }
+        for (String dir : path.split(File.pathSeparator)) {
+            if (dir.isEmpty()) {
+                continue;
+            }
+            Path candidate = Paths.get(dir, executable);
+            if (Files.isExecutable(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
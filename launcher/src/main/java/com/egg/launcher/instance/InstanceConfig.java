@@ -0,0 +1,179 @@
+package com.egg.launcher.instance;
+
+import com.egg.launcher.config.ConfigView;
+import com.egg.launcher.config.LauncherConfig;
+import com.egg.launcher.jvm.HostResources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Una instancia del servidor declarada en la lista "instances" de egg-launcher.yml:
+//
+//   instances:
+//     - id: survival
+//       directory: instances/survival   # contiene server/, y ahí van sus logs/, backups/ y reports/
+//       port: 25565                      # se escribe en server.properties antes de cada lanzamiento
+//       cpus: "0-3"                      # núcleos a los que se fija el proceso (taskset)
+//       memoryMB: 8192                   # su parte de la memoria; por defecto, la efectiva entre N
+//       watchdog:                        # cualquier otra clave sustituye a la global para esta instancia
+//         timeoutSeconds: 60
+//
+// Las claves de todo el launcher (plugins.*, scanner.*, coremod.port, logs.tail*, runtime.*)
+// solo se leen de la configuración global; en la sección de una instancia se ignoran.
+// Sin "instances" hay una sola instancia en el directorio del launcher, como siempre.
+public class InstanceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstanceConfig.class);
+    private static final String DEFAULT_ID = "default";
+    private static final long MB = 1024L * 1024;
+
+    private final String id;
+    private final Path home;
+    private final int port;
+    private final String cpus;
+    private final int cpuCount;
+    // -1 hasta que shareMemory() le asigna su parte de la memoria efectiva
+    private long memoryBytes;
+    private final ConfigView config;
+
+    InstanceConfig(String id, Path home, int port, String cpus, int cpuCount, long memoryBytes, ConfigView config) {
+        this.id = id;
+        this.home = home;
+        this.port = port;
+        this.cpus = cpus;
+        this.cpuCount = cpuCount;
+        this.memoryBytes = memoryBytes;
+        this.config = config;
+    }
+
+    // Lista vacía si la configuración de las instancias no es válida. No necesita OSHI: el
+    // reparto de memoria por defecto se hace después con shareMemory()
+    public static List<InstanceConfig> load() {
+        List<Map<?, ?>> sections = LauncherConfig.getSections("instances");
+        List<InstanceConfig> instances = new ArrayList<>();
+        if (sections.isEmpty()) {
+            instances.add(new InstanceConfig(DEFAULT_ID, Paths.get(""), 0, null, 0, 0, ConfigView.global()));
+            return instances;
+        }
+
+        Set<String> ids = new HashSet<>();
+        Set<Path> homes = new HashSet<>();
+        Map<Integer, String> ports = new HashMap<>();
+        for (Map<?, ?> section : sections) {
+            String id = value(section, "id", "");
+            if (id.isEmpty() || !id.matches("[A-Za-z0-9_.-]+")) {
+                logger.error("Instancia con un id no valido: '{}'. Solo se admiten letras, numeros, '.', '_' y '-'.", id);
+                return new ArrayList<>();
+            }
+            if (!ids.add(id)) {
+                logger.error("El id de instancia '{}' esta repetido.", id);
+                return new ArrayList<>();
+            }
+            ConfigView config = ConfigView.forInstance(id, section);
+
+            Path home = Paths.get(value(section, "directory", Paths.get("instances", id).toString())).normalize();
+            if (!homes.add(home.toAbsolutePath())) {
+                logger.error("El directorio '{}' de la instancia '{}' lo usa tambien otra instancia.", home, id);
+                return new ArrayList<>();
+            }
+
+            int port = (int) number(id, section, "port", 0);
+            if (port > 0) {
+                String other = ports.putIfAbsent(port, id);
+                if (other != null) {
+                    logger.warn("Las instancias '{}' y '{}' usan el mismo puerto {}. La segunda no podra abrirlo.", other, id,
+                                port);
+                }
+            }
+
+            String cpus = value(section, "cpus", null);
+            int cpuCount = 0;
+            if (cpus != null) {
+                cpuCount = CpuAffinity.count(cpus);
+                if (cpuCount <= 0) {
+                    logger.warn("Lista de nucleos no valida para la instancia '{}': '{}'. No se fijaran nucleos.", id, cpus);
+                    cpus = null;
+                    cpuCount = 0;
+                }
+            }
+
+            long memoryMB = number(id, section, "memoryMB", -1);
+            long memoryBytes = memoryMB >= 0 ? memoryMB * MB : -1;
+            instances.add(new InstanceConfig(id, home, port, cpus, cpuCount, memoryBytes, config));
+        }
+        return instances;
+    }
+
+    // Las instancias sin memoryMB se reparten la memoria efectiva entre todas
+    public static void shareMemory(List<InstanceConfig> instances, HostResources host) {
+        long share = host.getEffectiveMemory() / instances.size();
+        for (InstanceConfig instance : instances) {
+            if (instance.memoryBytes < 0) {
+                instance.memoryBytes = share;
+            }
+        }
+    }
+
+    // Las claves propias de la instancia no caen en las globales
+    private static String value(Map<?, ?> section, String key, String defaultValue) {
+        Object value = section.get(key);
+        return value != null ? value.toString().trim() : defaultValue;
+    }
+
+    private static long number(String id, Map<?, ?> section, String key, long defaultValue) {
+        String value = value(section, key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Valor no numerico para '{}' en la instancia '{}': '{}'. Se usara {}.", key, id, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    // Directorio de la instancia; el del servidor es server/ dentro de él
+    public Path getHome() {
+        return home;
+    }
+
+    public Path getServerDir() {
+        return home.resolve("server");
+    }
+
+    // 0 = el de server.properties
+    public int getPort() {
+        return port;
+    }
+
+    // null = sin fijar núcleos
+    public String getCpus() {
+        return cpus;
+    }
+
+    public int getCpuCount() {
+        return cpuCount;
+    }
+
+    // 0 = sin recorte
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public ConfigView getConfig() {
+        return config;
+    }
+}
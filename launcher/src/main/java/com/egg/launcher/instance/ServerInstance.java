@@ -0,0 +1,271 @@
+package com.egg.launcher.instance;
+
+import com.egg.launcher.ServerConsole;
+import com.egg.launcher.backup.BackupManager;
+import com.egg.launcher.backup.BackupScheduler;
+import com.egg.launcher.config.ConfigView;
+import com.egg.launcher.jvm.AppCdsManager;
+import com.egg.launcher.jvm.HostResources;
+import com.egg.launcher.jvm.LaunchProfile;
+import com.egg.launcher.jvm.ServerJava;
+import com.egg.launcher.log.LogPipeline;
+import com.egg.launcher.log.LogTail;
+import com.egg.launcher.perf.GcLogMonitor;
+import com.egg.launcher.perf.TickAnalyzer;
+import com.egg.launcher.restart.RestartOrchestrator;
+import com.egg.launcher.restart.ServerHost;
+import com.egg.launcher.runtime.LauncherRuntime;
+import com.egg.launcher.runtime.TaskScope;
+import com.egg.launcher.scanner.ScanResult;
+import com.egg.launcher.watchdog.FreezeForensics;
+import com.egg.launcher.watchdog.Watchdog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Una instancia del servidor Forge con todo lo suyo: perfil de JVM según su parte de la
+// máquina, núcleos fijados, pipeline de logs, análisis de ticks, log de GC, AppCDS,
+// watchdog, backups programados y orquestador de reinicios. Cada proceso de la
+// instancia, lanzado en frío o desde la JVM de reserva, pasa por aquí. Los hilos de la
+// instancia viven en su ámbito y los de cada proceso en uno hijo que se cierra cuando
+// ese proceso termina, para que no se acumulen de un reinicio a otro.
+public class ServerInstance implements ServerHost {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerInstance.class);
+    public static final String SERVER_JAR = "forge-server.jar";
+    private static final String SERVER_PROPERTIES = "server.properties";
+    private static final String PORT_PROPERTY = "server-port=";
+
+    private final InstanceConfig instance;
+    private final ConfigView config;
+    private final Path home;
+    private final Path serverDir;
+    private final ScanResult scanResult;
+    private final int coreModPort;
+    private final List<String> affinity;
+    private final TaskScope instanceScope;
+    private final TickAnalyzer tickAnalyzer = new TickAnalyzer();
+    private final GcLogMonitor gcLogMonitor;
+    private final AppCdsManager appCdsManager;
+    private final LaunchProfile launchProfile;
+    private final LogPipeline logPipeline;
+    private final RestartOrchestrator restartOrchestrator;
+
+    private volatile Watchdog watchdog;
+    private volatile ServerConsole serverConsole;
+    private TaskScope serverScope;
+    private BackupScheduler backupScheduler;
+    private int standbyCount;
+    private volatile Path standbyGcLog;
+
+    public ServerInstance(InstanceConfig instance, HostResources host, ServerJava java, ScanResult scanResult,
+                          int coreModPort) {
+        this.instance = instance;
+        this.config = instance.getConfig();
+        this.home = instance.getHome();
+        this.serverDir = instance.getServerDir();
+        this.scanResult = scanResult;
+        this.coreModPort = coreModPort;
+        this.affinity = CpuAffinity.commandPrefix(instance.getCpus());
+        this.instanceScope = LauncherRuntime.openScope("instance-" + instance.getId());
+        this.gcLogMonitor = GcLogMonitor.create(config, home, instanceScope);
+        this.appCdsManager = AppCdsManager.create(config, home);
+
+        // Opciones de la JVM según los núcleos fijados y la memoria que le tocan a la instancia
+        HostResources share = host.restrict(instance.getCpuCount(), instance.getMemoryBytes());
+        this.launchProfile = LaunchProfile.generate(share, java, config);
+
+        // Pipeline por lotes para la salida del servidor; TPS/MSPT extraídos de ella
+        this.logPipeline = LogPipeline.create(config, home, instanceScope);
+        logPipeline.subscribe(LogTail.get().subscriber(config.getInstanceId()));
+        logPipeline.subscribe(tickAnalyzer);
+
+        this.restartOrchestrator = RestartOrchestrator.create(this, home, share, launchProfile, config, instanceScope);
+    }
+
+    public void start() {
+        if (instance.getCpus() != null) {
+            logger.info("Instancia '{}': nucleos {} ({}), {} MB.", instance.getId(), instance.getCpus(),
+                        affinity.isEmpty() ? "sin fijar" : "fijados", instance.getMemoryBytes() / (1024 * 1024));
+        }
+        logger.info("Iniciando el servidor Forge de la instancia '{}' por primera vez...", instance.getId());
+        restartOrchestrator.start();
+    }
+
+    // Al cerrar el launcher
+    public void shutdown() {
+        restartOrchestrator.shutdown();
+        logPipeline.close();
+    }
+
+    public String getId() {
+        return instance.getId();
+    }
+
+    public Path getServerJar() {
+        return serverDir.resolve(SERVER_JAR);
+    }
+
+    // Latido del core mod de esta instancia
+    public void receiveHeartbeat() {
+        Watchdog current = watchdog;
+        if (current != null) {
+            current.receiveHeartbeat();
+        }
+    }
+
+    @Override
+    public Process launch(boolean standby) throws IOException {
+        applyPort();
+        List<String> additionalArguments = new ArrayList<>();
+        // El core mod se identifica con el id de la instancia para que sus latidos lleguen a su watchdog
+        additionalArguments.add("-Degg.instance=" + instance.getId());
+        additionalArguments.add("-Degg.coremod.port=" + coreModPort);
+        Path gcLog = null;
+        if (launchProfile.getJava().supportsUnifiedLogging()) {
+            // Grabación JFR continua para poder volcarla si el servidor se congela
+            additionalArguments.addAll(FreezeForensics.jvmArguments(config));
+            // Log de GC unificado que el launcher lee para separar pausas de congelamientos
+            if (standby) {
+                gcLog = gcLogMonitor.standbyLogFile(standbyCount++);
+                Files.createDirectories(gcLog.getParent());
+                additionalArguments.addAll(gcLogMonitor.jvmArguments(gcLog));
+            } else {
+                additionalArguments.addAll(gcLogMonitor.jvmArguments());
+            }
+        }
+
+        List<String> command = new ArrayList<>(affinity);
+        if (standby) {
+            // Sin AppCDS: el archivo se valida contra el classpath de -jar y el de la reserva es otro
+            command.addAll(launchProfile.standbyCommand(additionalArguments, SERVER_JAR,
+                                                        RestartOrchestrator.standbyClasspath(),
+                                                        RestartOrchestrator.standbyMainClass()));
+            standbyGcLog = gcLog;
+            logger.info("Linea de comandos de la JVM de reserva de '{}': {}", instance.getId(), String.join(" ", command));
+        } else {
+            // Archivo AppCDS de las clases del servidor para este java, este Forge y estos mods
+            additionalArguments.addAll(appCdsManager.jvmArguments(launchProfile.getJava(), scanResult, getServerJar()));
+            command.addAll(launchProfile.command(additionalArguments, SERVER_JAR));
+            launchProfile.log(command);
+            gcLogMonitor.start();
+        }
+
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.directory(serverDir.toAbsolutePath().toFile());
+        Process process = processBuilder.start();
+        if (!standby) {
+            logger.info("El proceso del servidor Forge de '{}' ha sido iniciado. PID: {}", instance.getId(), process.pid());
+        }
+        return process;
+    }
+
+    @Override
+    public void attach(Process process, boolean fromStandby) {
+        if (fromStandby) {
+            logger.info("El servidor Forge de '{}' arranca en la JVM de reserva. PID: {}", instance.getId(), process.pid());
+            Path gcLog = standbyGcLog;
+            if (gcLog != null) {
+                gcLogMonitor.follow(gcLog);
+            }
+        }
+        ServerConsole console = new ServerConsole(process);
+        serverConsole = console;
+        TaskScope scope = instanceScope.openChild("server-" + process.pid());
+        serverScope = scope;
+
+        // Watchdog propio de la instancia
+        Watchdog current = new Watchdog(process, () -> restartOrchestrator.restart("watchdog", watchdog.getLastHeartbeat()),
+                                        tickAnalyzer, gcLogMonitor, config, home, scope);
+        current.setFirstHeartbeatListener(millis -> {
+            // Los arranques desde la reserva no llevan AppCDS y falsearían la comparación
+            if (!fromStandby) {
+                appCdsManager.recordFirstHeartbeat(millis);
+            }
+            restartOrchestrator.onFirstHeartbeat();
+        });
+        watchdog = current;
+        current.start();
+
+        // Backups programados con el servidor en marcha
+        backupScheduler = new BackupScheduler(console, home, tickAnalyzer, config, scope);
+        backupScheduler.start();
+
+        // Redirigir la salida y los errores del servidor a la consola del launcher
+        logPipeline.subscribe(console);
+        logPipeline.attach(scope, process.getInputStream(), LogPipeline.STDOUT);
+        logPipeline.attach(scope, process.getErrorStream(), LogPipeline.STDERR);
+        tickAnalyzer.startPolling(scope, console, config);
+    }
+
+    @Override
+    public void detach(Process process, int exitCode) {
+        // Cancela las tareas del proceso y espera a que los lectores vacíen sus tuberías
+        serverScope.close();
+        tickAnalyzer.stopPolling();
+        gcLogMonitor.stop();
+        appCdsManager.onServerExit();
+        logPipeline.unsubscribe(serverConsole);
+        logger.info("El proceso del servidor Forge de '{}' ha terminado con el codigo de salida: {}", instance.getId(),
+                    exitCode);
+        logger.info("Rendimiento de la sesion de '{}': {}", instance.getId(), tickAnalyzer.summary());
+        logger.info("{}", gcLogMonitor.summary());
+        logger.info("{}", LauncherRuntime.summary());
+    }
+
+    @Override
+    public void beforeStop() {
+        Watchdog current = watchdog;
+        if (current != null) {
+            current.stop();
+        }
+        if (backupScheduler != null) {
+            backupScheduler.stop();
+        }
+    }
+
+    // El backup se hace con el servidor ya detenido: el mundo está guardado y nadie lo modifica
+    @Override
+    public void beforeRelaunch(String reason) {
+        if (config.getBoolean("restart.backup", true)) {
+            BackupManager.createBackup(home, config, reason + "_restart", null);
+        }
+    }
+
+    @Override
+    public ServerConsole getConsole() {
+        return serverConsole;
+    }
+
+    // El puerto de la instancia manda sobre el de server.properties; el resto del archivo no se toca
+    private void applyPort() throws IOException {
+        int port = instance.getPort();
+        if (port <= 0) {
+            return;
+        }
+        Path file = serverDir.resolve(SERVER_PROPERTIES);
+        List<String> lines = Files.exists(file) ? Files.readAllLines(file, StandardCharsets.ISO_8859_1) : new ArrayList<>();
+        String line = PORT_PROPERTY + port;
+        boolean found = false;
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).trim().startsWith(PORT_PROPERTY)) {
+                if (lines.get(i).trim().equals(line)) {
+                    return;
+                }
+                lines.set(i, line);
+                found = true;
+            }
+        }
+        if (!found) {
+            lines.add(line);
+        }
+        Files.write(file, lines, StandardCharsets.ISO_8859_1);
+        logger.info("Puerto de la instancia '{}' fijado en {} en '{}'.", instance.getId(), port, file);
+    }
+}
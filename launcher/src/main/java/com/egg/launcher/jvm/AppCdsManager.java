@@ -0,0 +1,232 @@
+package com.egg.launcher.jvm;
+
+import com.egg.launcher.config.ConfigView;
+import com.egg.launcher.scanner.FileScanResult;
+import com.egg.launcher.scanner.ScanResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Archivo AppCDS de las clases del servidor Forge. La clave es un hash del java del
+// servidor, de forge-server.jar y de los hashes de mods y plugins del Scanner: si
+// algo cambia, el archivo deja de valer y se borra. Sin archivo válido, el arranque
+// es la ejecución de entrenamiento (-XX:ArchiveClassesAtExit) y el archivo queda
+// listo cuando el servidor se detiene limpiamente; con archivo, se pasa en
+// -XX:SharedArchiveFile. El tiempo hasta el primer latido se guarda por modo para
+// comparar los arranques con y sin archivo.
+public class AppCdsManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppCdsManager.class);
+    private static final String PREFIX = "forge-";
+    private static final String SUFFIX = ".jsa";
+    private static final String STARTUP_TIMES = "startup-times.tsv";
+    private static final Path LAUNCHER_ARCHIVE = Paths.get("cache", "cds", "launcher.jsa");
+    private static final Path LAUNCHER_JAR = Paths.get("launcher.jar");
+
+    public enum Mode { DISABLED, TRAINING, ARCHIVED }
+
+    private final boolean enabled;
+    private final Path directory;
+    private Mode mode = Mode.DISABLED;
+    private Path archive;
+    private Path trainingFile;
+
+    AppCdsManager(boolean enabled, Path directory) {
+        this.enabled = enabled;
+        this.directory = directory.toAbsolutePath();
+    }
+
+    // cds.directory es relativo al directorio de la instancia
+    public static AppCdsManager create(ConfigView config, Path baseDir) {
+        return new AppCdsManager(config.getBoolean("cds.enabled", true),
+                                 baseDir.resolve(config.getString("cds.directory", "cache/cds")));
+    }
+
+    // Opciones para este arranque del servidor; decide si se usa el archivo o se entrena uno
+    public synchronized List<String> jvmArguments(ServerJava java, ScanResult scanResult, Path serverJar) {
+        List<String> arguments = new ArrayList<>();
+        mode = Mode.DISABLED;
+        if (!enabled) {
+            return arguments;
+        }
+        // Los archivos dinámicos (ArchiveClassesAtExit) existen desde Java 13
+        if (java.getMajorVersion() < 13) {
+            logger.info("AppCDS desactivado: Java {} del servidor no admite archivos dinamicos.", java.getMajorVersion());
+            return arguments;
+        }
+        String serverJarHash = scanResult.getServerJarHash(serverJar);
+        if (serverJarHash == null) {
+            logger.info("AppCDS desactivado: no se pudo calcular el hash de '{}'.", serverJar);
+            return arguments;
+        }
+
+        String key = key(java, scanResult, serverJarHash);
+        archive = directory.resolve(PREFIX + key + SUFFIX);
+        invalidateOthers(archive);
+        if (Files.isRegularFile(archive)) {
+            mode = Mode.ARCHIVED;
+            arguments.add("-XX:SharedArchiveFile=" + archive);
+            logger.info("AppCDS: se usa el archivo '{}' ({} MB).", archive.getFileName(), size(archive) / (1024 * 1024));
+        } else {
+            mode = Mode.TRAINING;
+            trainingFile = directory.resolve(PREFIX + key + SUFFIX + ".tmp");
+            try {
+                Files.createDirectories(directory);
+                Files.deleteIfExists(trainingFile);
+            } catch (IOException e) {
+                logger.warn("No se pudo preparar el directorio de AppCDS '{}'.", directory, e);
+                mode = Mode.DISABLED;
+                return arguments;
+            }
+            arguments.add("-XX:ArchiveClassesAtExit=" + trainingFile);
+            logger.info("AppCDS: no hay archivo para esta combinacion de mods. Este arranque es el de entrenamiento; "
+                        + "el archivo se genera al detener el servidor.");
+        }
+        return arguments;
+    }
+
+    // Tras terminar el proceso: la JVM solo escribe el archivo si salió de forma ordenada
+    public synchronized void onServerExit() {
+        if (mode != Mode.TRAINING) {
+            return;
+        }
+        try {
+            if (Files.isRegularFile(trainingFile) && Files.size(trainingFile) > 0) {
+                Files.move(trainingFile, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                logger.info("AppCDS: archivo '{}' generado ({} MB). Se usara en el proximo arranque.", archive.getFileName(),
+                            size(archive) / (1024 * 1024));
+            } else {
+                Files.deleteIfExists(trainingFile);
+                logger.info("AppCDS: el servidor no se detuvo de forma ordenada; se entrenara en el proximo arranque.");
+            }
+        } catch (IOException e) {
+            logger.warn("No se pudo guardar el archivo de AppCDS.", e);
+        }
+        mode = Mode.DISABLED;
+    }
+
+    public synchronized Mode getMode() {
+        return mode;
+    }
+
+    // Registra el tiempo hasta el primer latido y lo compara con los arranques del otro modo
+    public void recordFirstHeartbeat(long millis) {
+        Mode current = getMode();
+        Path file = directory.resolve(STARTUP_TIMES);
+        String modeName = current == Mode.ARCHIVED ? "con-cds" : "sin-cds";
+        try {
+            Files.createDirectories(directory);
+            String line = System.currentTimeMillis() + "\t" + modeName + "\t" + millis + "\n";
+            Files.write(file, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.warn("No se pudo registrar el tiempo de arranque en '{}'.", file, e);
+        }
+
+        long[] with = average(file, "con-cds");
+        long[] without = average(file, "sin-cds");
+        logger.info("Primer latido del servidor a los {} ms ({}). Media con CDS: {} ({} arranques), sin CDS: {} ({} arranques).",
+                    millis, modeName, format(with), with[1], format(without), without[1]);
+        if (with[1] > 0 && without[1] > 0) {
+            logger.info("AppCDS ahorra de media {} ms por arranque ({}%).", without[0] - with[0],
+                        without[0] > 0 ? (without[0] - with[0]) * 100 / without[0] : 0);
+        }
+    }
+
+    // El archivo del propio launcher lo crea start.sh; si launcher.jar cambió ya no vale y se regenera
+    public static void checkLauncherArchive() {
+        try {
+            if (Files.isRegularFile(LAUNCHER_ARCHIVE) && Files.isRegularFile(LAUNCHER_JAR)
+                    && Files.getLastModifiedTime(LAUNCHER_JAR).compareTo(Files.getLastModifiedTime(LAUNCHER_ARCHIVE)) > 0) {
+                Files.delete(LAUNCHER_ARCHIVE);
+                logger.info("launcher.jar cambio: se regenerara el archivo AppCDS del launcher en el proximo arranque.");
+            }
+        } catch (IOException e) {
+            logger.debug("No se pudo comprobar el archivo AppCDS del launcher.", e);
+        }
+    }
+
+    private static String key(ServerJava java, ScanResult scanResult, String serverJarHash) {
+        List<String> entries = new ArrayList<>();
+        for (FileScanResult result : scanResult.getResults()) {
+            entries.add(result.getFileName() + "=" + result.getHash());
+        }
+        entries.sort(null);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((java.getVersionText() + "\n" + serverJarHash + "\n").getBytes(StandardCharsets.UTF_8));
+            for (String entry : entries) {
+                digest.update((entry + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder hex = new StringBuilder();
+            byte[] hash = digest.digest();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible.", e);
+        }
+    }
+
+    private void invalidateOthers(Path current) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().startsWith(PREFIX))
+                 .filter(path -> !path.equals(current))
+                 .forEach(path -> {
+                     try {
+                         Files.delete(path);
+                         logger.info("AppCDS: los mods o el servidor cambiaron; se descarta '{}'.", path.getFileName());
+                     } catch (IOException e) {
+                         logger.warn("No se pudo borrar el archivo AppCDS '{}'.", path, e);
+                     }
+                 });
+        } catch (IOException e) {
+            logger.warn("No se pudo revisar el directorio de AppCDS '{}'.", directory, e);
+        }
+    }
+
+    // {media, número de arranques}
+    private static long[] average(Path file, String mode) {
+        long sum = 0;
+        long count = 0;
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] fields = line.split("\t");
+                if (fields.length == 3 && fields[1].equals(mode)) {
+                    sum += Long.parseLong(fields[2]);
+                    count++;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.debug("No se pudo leer '{}'.", file, e);
+        }
+        return new long[] {count > 0 ? sum / count : 0, count};
+    }
+
+    private static String format(long[] average) {
+        return average[1] > 0 ? average[0] + " ms" : "?";
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.egg.launcher.jvm;
+
+import oshi.SystemInfo;
+import oshi.hardware.CentralProcessor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Recursos que de verdad tiene el servidor: núcleos y memoria de la máquina según
+// OSHI, recortados por los límites del cgroup si el launcher corre en un contenedor
+// (cgroup v2 en /sys/fs/cgroup, v1 en sus subdirectorios), y las páginas grandes.
+public class HostResources {
+
+    private static final Path CGROUP_ROOT = Paths.get("/sys/fs/cgroup");
+    private static final Path THP_ENABLED = Paths.get("/sys/kernel/mm/transparent_hugepage/enabled");
+    private static final Path MEMINFO = Paths.get("/proc/meminfo");
+
+    private final int logicalCores;
+    private final int physicalCores;
+    private final long physicalMemory;
+    private final long cgroupMemoryLimit;
+    private final double cgroupCpuLimit;
+    private final String transparentHugePages;
+    private final long hugePagesTotalBytes;
+
+    HostResources(int logicalCores, int physicalCores, long physicalMemory, long cgroupMemoryLimit, double cgroupCpuLimit,
+                  String transparentHugePages, long hugePagesTotalBytes) {
+        this.logicalCores = logicalCores;
+        this.physicalCores = physicalCores;
+        this.physicalMemory = physicalMemory;
+        this.cgroupMemoryLimit = cgroupMemoryLimit;
+        this.cgroupCpuLimit = cgroupCpuLimit;
+        this.transparentHugePages = transparentHugePages;
+        this.hugePagesTotalBytes = hugePagesTotalBytes;
+    }
+
+    public static HostResources detect(SystemInfo systemInfo) {
+        CentralProcessor processor = systemInfo.getHardware().getProcessor();
+        long memory = systemInfo.getHardware().getMemory().getTotal();
+        return new HostResources(processor.getLogicalProcessorCount(), processor.getPhysicalProcessorCount(), memory,
+                                 readCgroupMemoryLimit(), readCgroupCpuLimit(), readTransparentHugePages(),
+                                 readHugePagesTotal());
+    }
+
+    // La parte de la máquina de una instancia: sus núcleos fijados y su reparto de memoria,
+    // que se trata como un límite más, igual que el del cgroup (0 = sin recorte)
+    public HostResources restrict(int cores, long memoryBytes) {
+        int logical = cores > 0 ? Math.min(logicalCores, cores) : logicalCores;
+        int physical = cores > 0 ? Math.min(physicalCores, cores) : physicalCores;
+        long memoryLimit = cgroupMemoryLimit;
+        if (memoryBytes > 0) {
+            memoryLimit = memoryLimit > 0 ? Math.min(memoryLimit, memoryBytes) : memoryBytes;
+        }
+        return new HostResources(logical, physical, physicalMemory, memoryLimit, cgroupCpuLimit, transparentHugePages,
+                                 hugePagesTotalBytes);
+    }
+
+    public int getLogicalCores() {
+        return logicalCores;
+    }
+
+    public int getPhysicalCores() {
+        return physicalCores;
+    }
+
+    public long getPhysicalMemory() {
+        return physicalMemory;
+    }
+
+    // 0 si no hay límite de memoria del cgroup
+    public long getCgroupMemoryLimit() {
+        return cgroupMemoryLimit;
+    }
+
+    // Núcleos permitidos por la cuota del cgroup, 0 si no hay cuota
+    public double getCgroupCpuLimit() {
+        return cgroupCpuLimit;
+    }
+
+    public long getEffectiveMemory() {
+        return cgroupMemoryLimit > 0 ? Math.min(physicalMemory, cgroupMemoryLimit) : physicalMemory;
+    }
+
+    public int getEffectiveCores() {
+        if (cgroupCpuLimit > 0) {
+            return Math.max(1, Math.min(logicalCores, (int) Math.ceil(cgroupCpuLimit)));
+        }
+        return Math.max(1, logicalCores);
+    }
+
+    // Modo de transparent huge pages ("always", "madvise", "never"), o null fuera de Linux
+    public String getTransparentHugePages() {
+        return transparentHugePages;
+    }
+
+    public long getHugePagesTotalBytes() {
+        return hugePagesTotalBytes;
+    }
+
+    private static long readCgroupMemoryLimit() {
+        // v2: "max" o bytes; v1: un número enorme cuando no hay límite
+        String v2 = read(CGROUP_ROOT.resolve("memory.max"));
+        if (v2 != null) {
+            return v2.equals("max") ? 0 : parseLong(v2);
+        }
+        long v1 = parseLong(read(CGROUP_ROOT.resolve("memory").resolve("memory.limit_in_bytes")));
+        return v1 > 0 && v1 < Long.MAX_VALUE / 2 ? v1 : 0;
+    }
+
+    private static double readCgroupCpuLimit() {
+        // v2: "cuota periodo" o "max periodo"; v1: cfs_quota_us = -1 sin límite
+        String v2 = read(CGROUP_ROOT.resolve("cpu.max"));
+        if (v2 != null) {
+            String[] parts = v2.split("\\s+");
+            if (parts.length == 2 && !parts[0].equals("max")) {
+                long period = parseLong(parts[1]);
+                return period > 0 ? (double) parseLong(parts[0]) / period : 0;
+            }
+            return 0;
+        }
+        long quota = parseLong(read(CGROUP_ROOT.resolve("cpu").resolve("cpu.cfs_quota_us")));
+        long period = parseLong(read(CGROUP_ROOT.resolve("cpu").resolve("cpu.cfs_period_us")));
+        return quota > 0 && period > 0 ? (double) quota / period : 0;
+    }
+
+    private static String readTransparentHugePages() {
+        // "always [madvise] never": el modo activo va entre corchetes
+        String modes = read(THP_ENABLED);
+        if (modes == null) {
+            return null;
+        }
+        int open = modes.indexOf('[');
+        int close = modes.indexOf(']', open);
+        return open >= 0 && close > open ? modes.substring(open + 1, close) : null;
+    }
+
+    private static long readHugePagesTotal() {
+        String meminfo = read(MEMINFO);
+        if (meminfo == null) {
+            return 0;
+        }
+        long pages = 0;
+        long pageSizeKb = 0;
+        for (String line : meminfo.split("\n")) {
+            String[] parts = line.split("\\s+");
+            if (parts.length < 2) {
+                continue;
+            }
+            if (parts[0].equals("HugePages_Total:")) {
+                pages = parseLong(parts[1]);
+            } else if (parts[0].equals("Hugepagesize:")) {
+                pageSizeKb = parseLong(parts[1]);
+            }
+        }
+        return pages * pageSizeKb * 1024;
+    }
+
+    private static String read(Path file) {
+        try {
+            return Files.isReadable(file) ? new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static long parseLong(String text) {
+        if (text == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(text.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.egg.launcher.jvm;
+
+import com.egg.launcher.config.ConfigView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+// Opciones de la JVM del servidor Forge elegidas a partir del hardware detectado:
+// heap, GC, tamaño de región, pre-touch, páginas grandes e hilos del GC. Cada clave
+// jvm.* de la configuración sustituye la decisión automática correspondiente y
+// jvm.extraArgs se añade al final, así que también puede corregir cualquier opción.
+// Cada decisión queda anotada con su motivo para el log.
+public class LaunchProfile {
+
+    private static final Logger logger = LoggerFactory.getLogger(LaunchProfile.class);
+    private static final long MB = 1024L * 1024;
+    private static final long MIN_HEAP = 1024 * MB;
+    private static final long MIN_RESERVE = 1536 * MB;
+    private static final long LARGE_HEAP = 12 * 1024 * MB;
+
+    private final ServerJava java;
+    private final ConfigView config;
+    private final List<String> jvmArguments = new ArrayList<>();
+    private final List<String> extraArguments = new ArrayList<>();
+    private final List<String> reasons = new ArrayList<>();
+    private long heapBytes;
+    private String gc;
+
+    private LaunchProfile(ServerJava java, ConfigView config) {
+        this.java = java;
+        this.config = config;
+    }
+
+    // Con varias instancias, host ya viene recortado a los núcleos y la memoria de cada una
+    public static LaunchProfile generate(HostResources host, ServerJava java, ConfigView config) {
+        LaunchProfile profile = new LaunchProfile(java, config);
+        profile.reasons.add(String.format("Java del servidor: %s (Java %d, '%s')", java.getVersionText(),
+                                          java.getMajorVersion(), java.getExecutable()));
+        profile.chooseHeap(host);
+        profile.chooseGc(host);
+        profile.choosePreTouch();
+        profile.chooseLargePages(host);
+        for (String argument : config.getString("jvm.extraArgs", "").trim().split("\\s+")) {
+            if (!argument.isEmpty()) {
+                profile.extraArguments.add(argument);
+            }
+        }
+        if (!profile.extraArguments.isEmpty()) {
+            profile.reasons.add("jvm.extraArgs se anade al final y prevalece: " + String.join(" ", profile.extraArguments));
+        }
+        return profile;
+    }
+
+    private void chooseHeap(HostResources host) {
+        long effective = host.getEffectiveMemory();
+        String memorySource = host.getCgroupMemoryLimit() > 0 && host.getCgroupMemoryLimit() < host.getPhysicalMemory()
+                ? String.format("limite del cgroup; la maquina tiene %d MB", host.getPhysicalMemory() / MB)
+                : "memoria fisica";
+        long configured = config.getLong("jvm.heapMB", 0) * MB;
+        if (configured > 0) {
+            heapBytes = configured;
+            reasons.add(String.format("heap %d MB por jvm.heapMB", configured / MB));
+            if (configured + MIN_RESERVE / 2 > effective) {
+                reasons.add(String.format("¡jvm.heapMB deja menos de %d MB libres de %d MB efectivos (%s)!",
+                                          MIN_RESERVE / 2 / MB, effective / MB, memorySource));
+            }
+        } else {
+            long cap = config.getLong("jvm.maxAutoHeapMB", 16384) * MB;
+            long reserve = Math.max(MIN_RESERVE, effective / 4);
+            long heap = Math.min(cap, Math.max(MIN_HEAP, effective - reserve));
+            heapBytes = heap / (256 * MB) * (256 * MB);
+            reasons.add(String.format("heap %d MB = %d MB efectivos (%s) - reserva de %d MB (max(1.5 GB, 25%%)) para el "
+                                      + "sistema, metaspace, buffers directos y el launcher, hasta %d MB (jvm.maxAutoHeapMB)",
+                                      heapBytes / MB, effective / MB, memorySource, reserve / MB, cap / MB));
+        }
+
+        long minimum = config.getLong("jvm.minHeapMB", 0) * MB;
+        long initial = minimum > 0 ? Math.min(minimum, heapBytes) : heapBytes;
+        jvmArguments.add("-Xms" + initial / MB + "M");
+        jvmArguments.add("-Xmx" + heapBytes / MB + "M");
+        if (minimum <= 0) {
+            reasons.add("-Xms igual a -Xmx: el heap no se redimensiona durante la partida");
+        }
+    }
+
+    private void chooseGc(HostResources host) {
+        String requested = config.getString("jvm.gc", "auto").trim().toLowerCase(Locale.ROOT);
+        String chosen;
+        if (requested.equals("auto")) {
+            if (heapBytes >= LARGE_HEAP && java.getMajorVersion() >= 17 && java.accepts("-XX:+UseZGC")) {
+                chosen = "zgc";
+                reasons.add(String.format("GC: ZGC, heap de %d MB >= %d MB y Java %d: pausas por debajo del milisegundo "
+                                          + "sin depender del tamano del heap", heapBytes / MB, LARGE_HEAP / MB,
+                                          java.getMajorVersion()));
+            } else {
+                chosen = "g1";
+                reasons.add(heapBytes < LARGE_HEAP
+                        ? String.format("GC: G1, heap de %d MB < %d MB", heapBytes / MB, LARGE_HEAP / MB)
+                        : String.format("GC: G1, ZGC no esta disponible en Java %d", java.getMajorVersion()));
+            }
+        } else {
+            chosen = requested;
+            if (!gcSupported(chosen)) {
+                reasons.add(String.format("GC: G1, '%s' (jvm.gc) no esta disponible en este Java", requested));
+                chosen = "g1";
+            } else {
+                reasons.add("GC: " + chosen + " por jvm.gc");
+            }
+        }
+        gc = chosen;
+
+        switch (chosen) {
+            case "zgc":
+                if (java.getMajorVersion() < 15) {
+                    jvmArguments.add("-XX:+UnlockExperimentalVMOptions");
+                }
+                jvmArguments.add("-XX:+UseZGC");
+                if (java.getMajorVersion() == 21 || java.getMajorVersion() == 22) {
+                    jvmArguments.add("-XX:+ZGenerational");
+                    reasons.add("ZGC generacional (Java 21-22 lo trae desactivado)");
+                }
+                break;
+            case "shenandoah":
+                if (java.getMajorVersion() < 15) {
+                    jvmArguments.add("-XX:+UnlockExperimentalVMOptions");
+                }
+                jvmArguments.add("-XX:+UseShenandoahGC");
+                break;
+            case "parallel":
+                jvmArguments.add("-XX:+UseParallelGC");
+                break;
+            default:
+                addG1Options();
+                break;
+        }
+        chooseGcThreads(host, !chosen.equals("parallel"));
+        // Muchos mods llaman a System.gc() y provocan GC completos innecesarios
+        jvmArguments.add("-XX:+DisableExplicitGC");
+    }
+
+    private boolean gcSupported(String name) {
+        switch (name) {
+            case "g1":
+            case "parallel":
+                return true;
+            case "zgc":
+                return java.getMajorVersion() >= 11 && java.accepts("-XX:+UnlockExperimentalVMOptions", "-XX:+UseZGC");
+            case "shenandoah":
+                return java.accepts("-XX:+UnlockExperimentalVMOptions", "-XX:+UseShenandoahGC");
+            default:
+                return false;
+        }
+    }
+
+    // Ajustes habituales para Minecraft: mucha basura de vida corta, así que generación
+    // joven grande y promoción temprana; regiones mayores con heaps grandes para que los
+    // arreglos de chunks no sean objetos "humongous"
+    private void addG1Options() {
+        boolean large = heapBytes >= LARGE_HEAP;
+        long regionMB = config.getLong("jvm.regionSizeMB", 0);
+        String regionReason = "jvm.regionSizeMB";
+        if (regionMB <= 0) {
+            regionMB = large ? 16 : 8;
+            regionReason = large ? "heap >= 12 GB" : "heap < 12 GB";
+        }
+        long pauseMillis = config.getLong("jvm.maxPauseMillis", 200);
+        jvmArguments.addAll(Arrays.asList(
+                "-XX:+UseG1GC",
+                "-XX:MaxGCPauseMillis=" + pauseMillis,
+                "-XX:G1HeapRegionSize=" + regionMB + "M",
+                "-XX:+UnlockExperimentalVMOptions",
+                "-XX:G1NewSizePercent=" + (large ? 40 : 30),
+                "-XX:G1MaxNewSizePercent=" + (large ? 50 : 40),
+                "-XX:G1ReservePercent=" + (large ? 15 : 20),
+                "-XX:InitiatingHeapOccupancyPercent=" + (large ? 20 : 15),
+                "-XX:G1MixedGCCountTarget=4",
+                "-XX:G1MixedGCLiveThresholdPercent=90",
+                "-XX:MaxTenuringThreshold=1",
+                "-XX:SurvivorRatio=32",
+                "-XX:+ParallelRefProcEnabled",
+                "-XX:+PerfDisableSharedMem"));
+        reasons.add(String.format("G1: regiones de %d MB (%s), pausa objetivo %d ms, generacion joven %d-%d%%, "
+                                  + "promocion tras 1 GC: Minecraft genera mucha basura de vida corta",
+                                  regionMB, regionReason, pauseMillis, large ? 40 : 30, large ? 50 : 40));
+    }
+
+    // La ergonomía de la JVM usa los núcleos de la máquina; en un contenedor con cuota o
+    // en Java 8 sin soporte de cgroups eso sobredimensiona los hilos del GC
+    private void chooseGcThreads(HostResources host, boolean concurrent) {
+        int cores = host.getEffectiveCores();
+        int parallel = (int) config.getLong("jvm.parallelGcThreads", 0);
+        String source = "jvm.parallelGcThreads";
+        if (parallel <= 0) {
+            parallel = cores <= 8 ? cores : 8 + (cores - 8) * 5 / 8;
+            source = host.getCgroupCpuLimit() > 0
+                    ? String.format("%d nucleos efectivos por la cuota del cgroup (%.1f) de %d logicos", cores,
+                                    host.getCgroupCpuLimit(), host.getLogicalCores())
+                    : String.format("%d nucleos logicos", cores);
+        }
+        jvmArguments.add("-XX:ParallelGCThreads=" + parallel);
+        String line = String.format("%d hilos de GC en pausa (%s)", parallel, source);
+        if (concurrent) {
+            int concurrentThreads = (int) config.getLong("jvm.concGcThreads", 0);
+            if (concurrentThreads <= 0) {
+                concurrentThreads = Math.max(1, (parallel + 2) / 4);
+            }
+            jvmArguments.add("-XX:ConcGCThreads=" + concurrentThreads);
+            line += String.format(" y %d concurrentes, para no quitar CPU al hilo principal", concurrentThreads);
+        }
+        reasons.add(line);
+    }
+
+    private void choosePreTouch() {
+        String setting = config.getString("jvm.alwaysPreTouch", "auto").trim().toLowerCase(Locale.ROOT);
+        boolean enabled = setting.equals("auto") ? heapBytes <= 16 * 1024 * MB : Boolean.parseBoolean(setting);
+        if (enabled) {
+            jvmArguments.add("-XX:+AlwaysPreTouch");
+        }
+        if (setting.equals("auto")) {
+            reasons.add(enabled
+                    ? "AlwaysPreTouch: el heap se reserva entero al arrancar (unos segundos mas) y no hay fallos de pagina en partida"
+                    : "sin AlwaysPreTouch: con mas de 16 GB de heap alargaria demasiado el arranque");
+        } else {
+            reasons.add("AlwaysPreTouch " + (enabled ? "activado" : "desactivado") + " por jvm.alwaysPreTouch");
+        }
+    }
+
+    private void chooseLargePages(HostResources host) {
+        String setting = config.getString("jvm.largePages", "auto").trim().toLowerCase(Locale.ROOT);
+        String thp = host.getTransparentHugePages();
+        switch (setting) {
+            case "true":
+                jvmArguments.add("-XX:+UseLargePages");
+                reasons.add("paginas grandes explicitas por jvm.largePages");
+                return;
+            case "thp":
+                jvmArguments.add("-XX:+UseTransparentHugePages");
+                reasons.add("transparent huge pages por jvm.largePages");
+                return;
+            case "false":
+                reasons.add("sin paginas grandes por jvm.largePages");
+                return;
+            default:
+                break;
+        }
+        if (host.getHugePagesTotalBytes() >= heapBytes) {
+            jvmArguments.add("-XX:+UseLargePages");
+            reasons.add(String.format("paginas grandes explicitas: hay %d MB reservados en HugePages para %d MB de heap",
+                                      host.getHugePagesTotalBytes() / MB, heapBytes / MB));
+        } else if ("madvise".equals(thp) || "always".equals(thp)) {
+            jvmArguments.add("-XX:+UseTransparentHugePages");
+            reasons.add("transparent huge pages (modo del sistema: " + thp + "): menos fallos de TLB con heaps grandes");
+        } else {
+            reasons.add(thp == null ? "sin paginas grandes: no es Linux o no se pudo leer la configuracion de THP"
+                                    : "sin paginas grandes: THP desactivado en el sistema (" + thp + ")");
+        }
+    }
+
+    // java, el perfil, las opciones de otros módulos (GC log, JFR...), jvm.extraArgs y el jar
+    public List<String> command(List<String> additionalJvmArguments, String serverJar) {
+        List<String> command = new ArrayList<>();
+        command.add(java.getExecutable());
+        command.addAll(jvmArguments);
+        command.addAll(additionalJvmArguments);
+        command.addAll(extraArguments);
+        command.add("-jar");
+        command.add(serverJar);
+        command.add("nogui");
+        return command;
+    }
+
+    // Igual que command(), pero arranca la clase de reserva del launcher, que espera la orden
+    // del launcher antes de llamar a la clase principal del jar
+    public List<String> standbyCommand(List<String> additionalJvmArguments, String serverJar, Path standbyClasspath,
+                                       String standbyMainClass) {
+        List<String> command = new ArrayList<>();
+        command.add(java.getExecutable());
+        command.addAll(jvmArguments);
+        command.addAll(additionalJvmArguments);
+        command.addAll(extraArguments);
+        command.add("-cp");
+        command.add(serverJar + File.pathSeparator + standbyClasspath.toAbsolutePath());
+        command.add(standbyMainClass);
+        command.add(serverJar);
+        command.add("nogui");
+        return command;
+    }
+
+    public void log(List<String> command) {
+        logger.info("Perfil de la JVM del servidor:");
+        for (String reason : reasons) {
+            logger.info("  - {}", reason);
+        }
+        logger.info("Linea de comandos del servidor: {}", String.join(" ", command));
+    }
+
+    public ServerJava getJava() {
+        return java;
+    }
+
+    public long getHeapBytes() {
+        return heapBytes;
+    }
+
+    public String getGc() {
+        return gc;
+    }
+
+    public List<String> getJvmArguments() {
+        return Collections.unmodifiableList(jvmArguments);
+    }
+
+    public List<String> getReasons() {
+        return Collections.unmodifiableList(reasons);
+    }
+}
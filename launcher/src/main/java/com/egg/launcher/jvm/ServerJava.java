@@ -0,0 +1,117 @@
+package com.egg.launcher.jvm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// El java con el que se lanza el servidor, que no tiene por qué ser el del launcher:
+// su versión decide qué opciones existen y se comprueba si admite cada GC antes de usarlo.
+public class ServerJava {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerJava.class);
+    private static final long PROBE_TIMEOUT_SECONDS = 20;
+
+    private final String executable;
+    private final int majorVersion;
+    private final String versionText;
+
+    ServerJava(String executable, int majorVersion, String versionText) {
+        this.executable = executable;
+        this.majorVersion = majorVersion;
+        this.versionText = versionText;
+    }
+
+    public static ServerJava detect(String executable) {
+        ProbeResult result = run(executable, "-version");
+        String text = result.output;
+        int major = parseMajor(text);
+        if (major == 0) {
+            logger.warn("No se pudo determinar la version de '{}'. Se asume Java 17.", executable);
+            major = 17;
+        }
+        String firstLine = text.isEmpty() ? "?" : text.split("\r?\n")[0];
+        return new ServerJava(executable, major, firstLine);
+    }
+
+    public String getExecutable() {
+        return executable;
+    }
+
+    public int getMajorVersion() {
+        return majorVersion;
+    }
+
+    public String getVersionText() {
+        return versionText;
+    }
+
+    // -Xlog y JFR en OpenJDK existen desde Java 11
+    public boolean supportsUnifiedLogging() {
+        return majorVersion >= 11;
+    }
+
+    // Arranca la JVM con las opciones dadas y "-version"; true si las acepta
+    public boolean accepts(String... options) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(options));
+        arguments.add("-version");
+        return run(executable, arguments.toArray(new String[0])).exitCode == 0;
+    }
+
+    // 'openjdk version "17.0.9" 2023-10-17', 'java version "1.8.0_392"', 'openjdk version "21" ...'
+    static int parseMajor(String text) {
+        int open = text.indexOf('"');
+        int close = text.indexOf('"', open + 1);
+        if (open < 0 || close < 0) {
+            return 0;
+        }
+        String[] parts = text.substring(open + 1, close).split("[._+-]");
+        try {
+            int first = Integer.parseInt(parts[0]);
+            return first == 1 && parts.length > 1 ? Integer.parseInt(parts[1]) : first;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static final class ProbeResult {
+        final int exitCode;
+        final String output;
+
+        ProbeResult(int exitCode, String output) {
+            this.exitCode = exitCode;
+            this.output = output;
+        }
+    }
+
+    private static ProbeResult run(String executable, String... arguments) {
+        List<String> command = new ArrayList<>();
+        command.add(executable);
+        command.addAll(Arrays.asList(arguments));
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try (InputStream in = process.getInputStream()) {
+                in.transferTo(output);
+            }
+            if (!process.waitFor(PROBE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return new ProbeResult(-1, "");
+            }
+            return new ProbeResult(process.exitValue(), output.toString(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.warn("No se pudo ejecutar '{}'.", executable, e);
+            return new ProbeResult(-1, "");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ProbeResult(-1, "");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.egg.launcher.jvm;
+
+import oshi.SystemInfo;
+
+// Un solo SystemInfo de OSHI para todo el launcher: crearlo carga JNA y detecta la
+// plataforma, y cada watchdog creaba el suyo en cada arranque del servidor. OSHI es
+// seguro entre hilos y guarda en caché los datos que no cambian.
+public final class SharedSystemInfo {
+
+    // Se crea al primer get()
+    private static final SystemInfo INSTANCE = new SystemInfo();
+
+    private SharedSystemInfo() {
+    }
+
+    public static SystemInfo get() {
+        return INSTANCE;
+    }
+}
@@ -0,0 +1,100 @@
+package com.egg.launcher.log;
+
+import java.nio.charset.StandardCharsets;
+
+// Lote de líneas de salida del servidor. Todas comparten un mismo arreglo de bytes
+// que se reutiliza entre lotes: los suscriptores no deben guardar referencias a
+// él y, si necesitan un String, deben pedirlo con lineAsString.
+public final class LogBatch {
+
+    private byte[] data;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final byte[] streams;
+    private final long[] times;
+    private int size;
+    private int dataSize;
+
+    LogBatch(int maxLines, int maxBytes) {
+        this.data = new byte[maxBytes];
+        this.offsets = new int[maxLines];
+        this.lengths = new int[maxLines];
+        this.streams = new byte[maxLines];
+        this.times = new long[maxLines];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] data() {
+        return data;
+    }
+
+    public int offset(int line) {
+        return offsets[line];
+    }
+
+    public int length(int line) {
+        return lengths[line];
+    }
+
+    // LogPipeline.STDOUT o LogPipeline.STDERR
+    public int stream(int line) {
+        return streams[line];
+    }
+
+    // Momento en que el launcher leyó la línea (ms desde epoch)
+    public long time(int line) {
+        return times[line];
+    }
+
+    public String lineAsString(int line) {
+        return new String(data, offsets[line], lengths[line], StandardCharsets.UTF_8);
+    }
+
+    // Posición de "pattern" dentro de la línea (relativa a su inicio) o -1; no reserva memoria
+    public int indexOf(int line, byte[] pattern) {
+        return indexOf(line, pattern, 0);
+    }
+
+    public int indexOf(int line, byte[] pattern, int fromIndex) {
+        int start = offsets[line];
+        int last = start + lengths[line] - pattern.length;
+        outer:
+        for (int i = start + fromIndex; i <= last; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i - start;
+        }
+        return -1;
+    }
+
+    void clear() {
+        size = 0;
+        dataSize = 0;
+    }
+
+    boolean isFull() {
+        return size == offsets.length;
+    }
+
+    int freeBytes() {
+        return data.length - dataSize;
+    }
+
+    // Reserva espacio para una línea y devuelve dónde copiar sus bytes
+    int add(int stream, long time, int length) {
+        offsets[size] = dataSize;
+        lengths[size] = length;
+        streams[size] = (byte) stream;
+        times[size] = time;
+        size++;
+        int position = dataSize;
+        dataSize += length;
+        return position;
+    }
+}
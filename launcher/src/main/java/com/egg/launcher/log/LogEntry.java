@@ -0,0 +1,57 @@
+package com.egg.launcher.log;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+// Una línea devuelta por una consulta a LogTail
+public class LogEntry {
+
+    private final long time;
+    private final LogLevel level;
+    private final String logger;
+    private final int source;
+    private final String instance;
+    private final String message;
+
+    LogEntry(long time, LogLevel level, String logger, int source, String instance, String message) {
+        this.time = time;
+        this.level = level;
+        this.logger = logger;
+        this.source = source;
+        this.instance = instance;
+        this.message = message;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    public String getLogger() {
+        return logger;
+    }
+
+    // LogTail.SOURCE_SERVER o LogTail.SOURCE_LAUNCHER
+    public int getSource() {
+        return source;
+    }
+
+    // Id de la instancia que escribió la línea; null en las del launcher o con una sola instancia
+    public String getInstance() {
+        return instance;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return new SimpleDateFormat("HH:mm:ss.SSS").format(new Date(time)) + " " + level + " "
+                + (source != LogTail.SOURCE_SERVER ? "[LAUNCHER] " : instance == null ? "[SERVER] " : "[SERVER:" + instance + "] ")
+                + message;
+    }
+}
@@ -0,0 +1,16 @@
+package com.egg.launcher.log;
+
+// Niveles en orden de gravedad, comunes a la salida del servidor y a la del launcher
+public enum LogLevel {
+    TRACE, DEBUG, INFO, WARN, ERROR, FATAL;
+
+    private static final LogLevel[] VALUES = values();
+
+    static LogLevel of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    public boolean isAtLeast(LogLevel other) {
+        return ordinal() >= other.ordinal();
+    }
+}
@@ -0,0 +1,213 @@
+package com.egg.launcher.log;
+
+import com.egg.launcher.config.ConfigView;
+import com.egg.launcher.runtime.TaskScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Pipeline de la salida del proceso Forge. Un hilo por stream lee en bloques y
+// publica en un buffer circular; un único hilo consumidor vacía el buffer por
+// lotes y los escribe en la consola y en el archivo con una sola escritura por
+// lote, además de entregarlos a los suscriptores.
+public class LogPipeline implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogPipeline.class);
+
+    public static final int STDOUT = 0;
+    public static final int STDERR = 1;
+    static final String[] STREAM_NAMES = {"SERVER", "SERVER-ERROR"};
+
+    private static final int BATCH_LINES = 2048;
+    private static final int BATCH_BYTES = 1024 * 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long DROP_REPORT_INTERVAL_MILLIS = 1000;
+
+    private final LogRingBuffer ring;
+    private final LogBatch batch = new LogBatch(BATCH_LINES, BATCH_BYTES);
+    private final List<LogSubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final PrintStream console;
+    private final FileChannel file;
+    private final byte[][] prefixes = new byte[STREAM_NAMES.length][];
+    private final long[] reportedDrops = new long[STREAM_NAMES.length];
+    private byte[] output = new byte[BATCH_BYTES * 2];
+    private long lastDropReport;
+    private volatile boolean running = true;
+    private final String instanceId;
+    private final Thread consumer;
+
+    // instanceId: null con una sola instancia; si no, va en el prefijo de cada línea y en los hilos.
+    // El consumidor corre en scope hasta close()
+    public LogPipeline(int bufferBytes, int bufferLines, PrintStream console, Path outputFile, String instanceId,
+                       TaskScope scope) {
+        this.ring = new LogRingBuffer(bufferBytes, bufferLines);
+        this.console = console;
+        this.file = openOutputFile(outputFile);
+        this.instanceId = instanceId;
+        for (int i = 0; i < STREAM_NAMES.length; i++) {
+            String label = instanceId == null ? STREAM_NAMES[i] : STREAM_NAMES[i] + ":" + instanceId;
+            prefixes[i] = ("[" + label + "] ").getBytes(StandardCharsets.UTF_8);
+        }
+        // De plataforma: aparca entre lotes y escribe en un FileChannel, que se cerraría al interrumpirlo
+        this.consumer = scope.forkPlatform(threadName("egg-log-pipeline"), this::consume);
+    }
+
+    // logs.outputFile vacío desactiva la copia a archivo; la ruta es relativa al directorio de la instancia
+    public static LogPipeline create(ConfigView config, Path baseDir, TaskScope scope) {
+        int bufferBytes = config.getInt("logs.pipelineBufferBytes", 4 * 1024 * 1024);
+        int bufferLines = config.getInt("logs.pipelineBufferLines", 32 * 1024);
+        String outputFile = config.getString("logs.outputFile", "logs/server-output.log");
+        return new LogPipeline(bufferBytes, bufferLines, System.out,
+                               outputFile.isEmpty() ? null : baseDir.resolve(outputFile), config.getInstanceId(), scope);
+    }
+
+    // Empieza a leer un stream del proceso en su propio hilo (virtual si los hay) dentro del ámbito
+    // del proceso; termina al llegar al final del stream
+    public void attach(TaskScope scope, InputStream in, int stream) {
+        scope.fork(threadName("egg-log-reader-" + STREAM_NAMES[stream]), new StreamReader(in, stream, ring, this::wakeUp));
+    }
+
+    public void subscribe(LogSubscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(LogSubscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    public long getDroppedLines() {
+        long dropped = 0;
+        for (int i = 0; i < STREAM_NAMES.length; i++) {
+            dropped += ring.getDropped(i);
+        }
+        return dropped;
+    }
+
+    private String threadName(String base) {
+        return instanceId == null ? base : base + "-" + instanceId;
+    }
+
+    private void wakeUp() {
+        LockSupport.unpark(consumer);
+    }
+
+    private void consume() {
+        while (running || !ring.isEmpty()) {
+            if (ring.drain(batch) == 0) {
+                reportDrops();
+                if (running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                continue;
+            }
+            write(batch);
+            for (LogSubscriber subscriber : subscribers) {
+                try {
+                    subscriber.onBatch(batch);
+                } catch (RuntimeException e) {
+                    logger.error("Error en un suscriptor del pipeline de logs.", e);
+                }
+            }
+            reportDrops();
+        }
+    }
+
+    private void write(LogBatch lines) {
+        int position = 0;
+        byte[] data = lines.data();
+        for (int i = 0; i < lines.size(); i++) {
+            byte[] prefix = prefixes[lines.stream(i)];
+            int length = lines.length(i);
+            ensureOutputCapacity(position + prefix.length + length + 1);
+            System.arraycopy(prefix, 0, output, position, prefix.length);
+            position += prefix.length;
+            System.arraycopy(data, lines.offset(i), output, position, length);
+            position += length;
+            output[position++] = '\n';
+        }
+        console.write(output, 0, position);
+        console.flush();
+        if (file != null) {
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(output, 0, position);
+                while (buffer.hasRemaining()) {
+                    file.write(buffer);
+                }
+            } catch (IOException e) {
+                logger.error("Error al escribir la salida del servidor en el archivo de logs.", e);
+            }
+        }
+    }
+
+    private void ensureOutputCapacity(int size) {
+        if (size > output.length) {
+            byte[] grown = new byte[Math.max(size, output.length * 2)];
+            System.arraycopy(output, 0, grown, 0, output.length);
+            output = grown;
+        }
+    }
+
+    // Como mucho un resumen por segundo de las líneas descartadas por el buffer lleno
+    private void reportDrops() {
+        long now = System.currentTimeMillis();
+        if (now - lastDropReport < DROP_REPORT_INTERVAL_MILLIS) {
+            return;
+        }
+        lastDropReport = now;
+        for (int i = 0; i < STREAM_NAMES.length; i++) {
+            long dropped = ring.getDropped(i);
+            if (dropped > reportedDrops[i]) {
+                logger.warn("Se descartaron {} lineas de {} porque el buffer de logs estaba lleno ({} en total).",
+                            dropped - reportedDrops[i], STREAM_NAMES[i], dropped);
+                reportedDrops[i] = dropped;
+            }
+        }
+    }
+
+    private static FileChannel openOutputFile(Path outputFile) {
+        if (outputFile == null) {
+            return null;
+        }
+        try {
+            Path parent = outputFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            return FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.error("No se pudo abrir '{}'. La salida del servidor solo se mostrara en consola.", outputFile, e);
+            return null;
+        }
+    }
+
+    // Vacía lo pendiente y detiene el consumidor
+    @Override
+    public void close() {
+        running = false;
+        wakeUp();
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                logger.debug("Error al cerrar el archivo de logs.", e);
+            }
+        }
+    }
+}
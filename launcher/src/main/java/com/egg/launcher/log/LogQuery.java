@@ -0,0 +1,75 @@
+package com.egg.launcher.log;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Filtros de una consulta a LogTail. Ejemplo:
+//   LogQuery.lastMinutes(5).minLevel(LogLevel.WARN).contains("Exception").limit(200)
+public class LogQuery {
+
+    long since;
+    LogLevel minLevel = LogLevel.TRACE;
+    String loggerPrefix;
+    byte[] literal;
+    Pattern pattern;
+    int source = -1;
+    boolean filterInstance;
+    String instance;
+    int limit = 1000;
+
+    private LogQuery() {
+    }
+
+    public static LogQuery all() {
+        return new LogQuery();
+    }
+
+    public static LogQuery lastMinutes(long minutes) {
+        return all().since(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(minutes));
+    }
+
+    public LogQuery since(long timeMillis) {
+        this.since = timeMillis;
+        return this;
+    }
+
+    public LogQuery minLevel(LogLevel level) {
+        this.minLevel = level;
+        return this;
+    }
+
+    public LogQuery logger(String prefix) {
+        this.loggerPrefix = prefix;
+        return this;
+    }
+
+    // Búsqueda literal: se compara sobre los bytes sin decodificar cada línea
+    public LogQuery contains(String text) {
+        this.literal = text.getBytes(StandardCharsets.UTF_8);
+        return this;
+    }
+
+    public LogQuery matching(Pattern pattern) {
+        this.pattern = pattern;
+        return this;
+    }
+
+    public LogQuery source(int source) {
+        this.source = source;
+        return this;
+    }
+
+    // Solo las líneas del servidor de esa instancia (null con una sola instancia); las del launcher se mantienen
+    public LogQuery instance(String instanceId) {
+        this.filterInstance = true;
+        this.instance = instanceId;
+        return this;
+    }
+
+    // Máximo de líneas devueltas; se conservan las más recientes
+    public LogQuery limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+}
@@ -0,0 +1,104 @@
+package com.egg.launcher.log;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Buffer circular de bytes para líneas de log. Los lectores de cada stream
+// publican las líneas de un bloque leído de una sola vez; el único consumidor las
+// copia a un LogBatch sin tomar el candado. Si no hay sitio la línea se descarta:
+// el lector nunca espera, así que el proceso del servidor nunca se bloquea.
+class LogRingBuffer {
+
+    private final byte[] data;
+    private final int dataMask;
+    private final long[] starts;
+    private final int[] lengths;
+    private final byte[] streams;
+    private final long[] times;
+    private final int lineMask;
+    private final AtomicLongArray dropped = new AtomicLongArray(LogPipeline.STREAM_NAMES.length);
+
+    // Protegidos por "this" (productores)
+    private long writeLine;
+    private long writeByte;
+    private volatile long publishedLine;
+
+    // Solo los escribe el consumidor
+    private volatile long readLine;
+    private volatile long readByte;
+
+    LogRingBuffer(int capacityBytes, int capacityLines) {
+        int bytes = Integer.highestOneBit(Math.max(1024, capacityBytes - 1)) << 1;
+        int lines = Integer.highestOneBit(Math.max(64, capacityLines - 1)) << 1;
+        this.data = new byte[bytes];
+        this.dataMask = bytes - 1;
+        this.starts = new long[lines];
+        this.lengths = new int[lines];
+        this.streams = new byte[lines];
+        this.times = new long[lines];
+        this.lineMask = lines - 1;
+    }
+
+    // Publica "count" líneas de buffer; devuelve cuántas se aceptaron
+    synchronized int append(int stream, long time, byte[] buffer, int[] offsets, int[] lineLengths, int count) {
+        int accepted = 0;
+        for (int i = 0; i < count; i++) {
+            int length = lineLengths[i];
+            if (writeLine - readLine >= starts.length || writeByte + length - readByte > data.length) {
+                dropped.incrementAndGet(stream);
+                continue;
+            }
+            int slot = (int) (writeLine & lineMask);
+            starts[slot] = writeByte;
+            lengths[slot] = length;
+            streams[slot] = (byte) stream;
+            times[slot] = time;
+            copyIn(buffer, offsets[i], writeByte, length);
+            writeByte += length;
+            writeLine++;
+            accepted++;
+        }
+        publishedLine = writeLine;
+        return accepted;
+    }
+
+    private void copyIn(byte[] source, int offset, long position, int length) {
+        int index = (int) (position & dataMask);
+        int first = Math.min(length, data.length - index);
+        System.arraycopy(source, offset, data, index, first);
+        System.arraycopy(source, offset + first, data, 0, length - first);
+    }
+
+    // Copia al lote tantas líneas publicadas como quepan y libera su espacio
+    int drain(LogBatch batch) {
+        batch.clear();
+        long line = readLine;
+        long available = publishedLine;
+        long nextByte = readByte;
+        while (line < available && !batch.isFull()) {
+            int slot = (int) (line & lineMask);
+            int length = lengths[slot];
+            if (length > batch.freeBytes()) {
+                break;
+            }
+            int target = batch.add(streams[slot], times[slot], length);
+            int index = (int) (starts[slot] & dataMask);
+            int first = Math.min(length, data.length - index);
+            System.arraycopy(data, index, batch.data(), target, first);
+            System.arraycopy(data, 0, batch.data(), target + first, length - first);
+            nextByte = starts[slot] + length;
+            line++;
+        }
+        // Primero los bytes y después las líneas: un productor nunca ve más espacio del que hay
+        readByte = nextByte;
+        readLine = line;
+        return batch.size();
+    }
+
+    boolean isEmpty() {
+        return readLine == publishedLine;
+    }
+
+    long getDropped(int stream) {
+        return dropped.get(stream);
+    }
+}
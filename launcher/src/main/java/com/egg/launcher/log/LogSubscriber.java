@@ -0,0 +1,8 @@
+package com.egg.launcher.log;
+
+// Recibe los lotes de líneas desde el hilo del pipeline de logs. Debe ser rápido:
+// mientras procesa un lote, el siguiente se acumula en el buffer circular.
+public interface LogSubscriber {
+
+    void onBatch(LogBatch batch);
+}
@@ -0,0 +1,356 @@
+package com.egg.launcher.log;
+
+import com.egg.launcher.config.LauncherConfig;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Últimos megas de salida del servidor y del launcher, en memoria fuera del heap.
+// El texto vive en un buffer directo circular y cada línea tiene una entrada en
+// arreglos primitivos (posición, hora, nivel, logger, origen), ordenados por hora,
+// así que una consulta por ventana de tiempo empieza con una búsqueda binaria y
+// nunca toca el disco. Es compartida por todas las instancias: cada línea del servidor
+// lleva el id de la instancia que la escribió.
+public class LogTail {
+
+    public static final int SOURCE_SERVER = 0;
+    public static final int SOURCE_LAUNCHER = 1;
+
+    private static final int MAX_RECORD = 16 * 1024;
+    // Tamaño de cada tanda que una consulta copia con el candado tomado
+    private static final int QUERY_CHUNK_LINES = 512;
+    private static final int QUERY_CHUNK_BYTES = 256 * 1024;
+    private static final byte[][] LEVEL_NAMES = new byte[LogLevel.values().length][];
+
+    static {
+        for (LogLevel level : LogLevel.values()) {
+            LEVEL_NAMES[level.ordinal()] = level.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private static volatile LogTail instance;
+
+    private final ByteBuffer data;
+    private final int dataCapacity;
+    private final long[] positions;
+    private final int[] lengths;
+    private final long[] times;
+    private final byte[] levels;
+    private final short[] loggers;
+    private final byte[] sources;
+    private final short[] instances;
+    private final int recordMask;
+    private final LoggerNames loggerNames = new LoggerNames();
+    // Ids de las instancias suscritas; el 0 es null (una sola instancia) y el de las líneas del launcher
+    private final List<String> instanceIds = new ArrayList<>(Collections.singletonList(null));
+
+    private long oldestRecord;
+    private long nextRecord;
+    private long writePosition;
+    private long lastTime;
+
+    public LogTail(int capacityBytes, int capacityLines) {
+        this.dataCapacity = capacityBytes;
+        this.data = ByteBuffer.allocateDirect(capacityBytes);
+        int records = Integer.highestOneBit(Math.max(1024, capacityLines - 1)) << 1;
+        this.positions = new long[records];
+        this.lengths = new int[records];
+        this.times = new long[records];
+        this.levels = new byte[records];
+        this.loggers = new short[records];
+        this.sources = new byte[records];
+        this.instances = new short[records];
+        this.recordMask = records - 1;
+    }
+
+    // Instancia compartida por el watchdog, los backups y los plugins
+    public static LogTail get() {
+        LogTail tail = instance;
+        if (tail == null) {
+            synchronized (LogTail.class) {
+                tail = instance;
+                if (tail == null) {
+                    int bytes = LauncherConfig.getInt("logs.tailBytes", 16 * 1024 * 1024);
+                    int lines = LauncherConfig.getInt("logs.tailLines", 256 * 1024);
+                    tail = new LogTail(Math.max(MAX_RECORD * 4, bytes), lines);
+                    instance = tail;
+                }
+            }
+        }
+        return tail;
+    }
+
+    // Para el appender de logback: no crea la instancia mientras se carga la configuración
+    static LogTail getIfCreated() {
+        return instance;
+    }
+
+    // Suscriptor para el LogPipeline de una instancia (instanceId null con una sola instancia)
+    public synchronized LogSubscriber subscriber(String instanceId) {
+        int instance = instanceIds.indexOf(instanceId);
+        if (instance < 0) {
+            instance = instanceIds.size();
+            instanceIds.add(instanceId);
+        }
+        return new ServerLines(instance);
+    }
+
+    public synchronized void appendLauncher(long time, LogLevel level, String loggerName, String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        append(SOURCE_LAUNCHER, 0, time, level.ordinal(), loggerNames.intern(loggerName), bytes, 0, bytes.length);
+    }
+
+    private synchronized void appendServer(ServerLines lines, LogBatch batch) {
+        byte[] bytes = batch.data();
+        for (int i = 0; i < batch.size(); i++) {
+            int offset = batch.offset(i);
+            int length = batch.length(i);
+            parseServerLine(lines, bytes, offset, length);
+            append(SOURCE_SERVER, lines.instance, batch.time(i), lines.lastLevel, lines.lastLogger, bytes, offset, length);
+        }
+    }
+
+    // Formato de Forge/vanilla: "[hora] [hilo/NIVEL] [logger]: mensaje"; en vanilla antiguo falta el logger
+    private void parseServerLine(ServerLines lines, byte[] bytes, int offset, int length) {
+        int end = offset + Math.min(length, 256);
+        for (int i = offset; i < end; i++) {
+            if (bytes[i] != '/') {
+                continue;
+            }
+            for (int level = 0; level < LEVEL_NAMES.length; level++) {
+                byte[] name = LEVEL_NAMES[level];
+                int close = i + 1 + name.length;
+                if (close < offset + length && bytes[close] == ']' && regionMatches(bytes, i + 1, name)) {
+                    lines.lastLevel = level;
+                    lines.lastLogger = parseLogger(bytes, close + 1, offset + length);
+                    return;
+                }
+            }
+        }
+    }
+
+    private int parseLogger(byte[] bytes, int position, int end) {
+        if (position + 1 >= end || bytes[position] != ' ' || bytes[position + 1] != '[') {
+            return LoggerNames.UNKNOWN;
+        }
+        int start = position + 2;
+        for (int i = start; i < end && i < start + 200; i++) {
+            if (bytes[i] == ']') {
+                int stop = i > start && bytes[i - 1] == '/' ? i - 1 : i;
+                return loggerNames.intern(bytes, start, stop - start);
+            }
+        }
+        return LoggerNames.UNKNOWN;
+    }
+
+    private static boolean regionMatches(byte[] bytes, int position, byte[] name) {
+        for (int j = 0; j < name.length; j++) {
+            if (bytes[position + j] != name[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void append(int source, int instance, long time, int level, int logger, byte[] bytes, int offset, int length) {
+        length = Math.min(length, MAX_RECORD);
+        // Horas no decrecientes para poder buscar por tiempo
+        time = Math.max(time, lastTime);
+        lastTime = time;
+
+        if (nextRecord - oldestRecord == positions.length) {
+            oldestRecord++;
+        }
+        // Descarta las líneas más antiguas cuyo texto se va a sobrescribir
+        while (oldestRecord < nextRecord && positions[(int) (oldestRecord & recordMask)] < writePosition + length - dataCapacity) {
+            oldestRecord++;
+        }
+
+        int index = (int) (writePosition % dataCapacity);
+        int first = Math.min(length, dataCapacity - index);
+        data.put(index, bytes, offset, first);
+        data.put(0, bytes, offset + first, length - first);
+
+        int slot = (int) (nextRecord & recordMask);
+        positions[slot] = writePosition;
+        lengths[slot] = length;
+        times[slot] = time;
+        levels[slot] = (byte) level;
+        loggers[slot] = (short) logger;
+        sources[slot] = (byte) source;
+        instances[slot] = (short) instance;
+        nextRecord++;
+        writePosition += length;
+    }
+
+    // Las líneas se copian por tandas con el candado tomado y el texto se filtra fuera de él,
+    // para que un literal o un regex sobre megas de log no frene a los appenders
+    public List<LogEntry> query(LogQuery query) {
+        boolean textFilter = query.literal != null || query.pattern != null;
+        List<LogEntry> result = new ArrayList<>();
+        Chunk chunk = new Chunk();
+        long cursor = Long.MAX_VALUE;
+        while (cursor >= 0 && result.size() < query.limit) {
+            // Sin filtro de texto cada candidata es un resultado: no se copian más de las que faltan
+            int lines = textFilter ? QUERY_CHUNK_LINES : Math.min(QUERY_CHUNK_LINES, query.limit - result.size());
+            cursor = collect(query, cursor, lines, chunk);
+            for (int i = 0; i < chunk.count && result.size() < query.limit; i++) {
+                int offset = chunk.offsets[i];
+                int length = chunk.lengths[i];
+                if (query.literal != null && indexOf(chunk.text, offset, length, query.literal) < 0) {
+                    continue;
+                }
+                String message = new String(chunk.text, offset, length, StandardCharsets.UTF_8);
+                if (query.pattern != null && !query.pattern.matcher(message).find()) {
+                    continue;
+                }
+                result.add(new LogEntry(chunk.times[i], LogLevel.of(chunk.levels[i]), chunk.loggers[i],
+                                        chunk.sources[i], chunk.instances[i], message));
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    // Copia a la tanda, de la más reciente hacia atrás desde "cursor", las líneas que pasan los
+    // filtros de metadatos; devuelve el siguiente registro a mirar o -1 si no quedan
+    private synchronized long collect(LogQuery query, long cursor, int maxLines, Chunk chunk) {
+        chunk.clear();
+        // Entre tandas se pueden haber sobrescrito líneas antiguas: el límite se recalcula siempre
+        long from = query.since > 0 ? firstRecordAtOrAfter(query.since) : oldestRecord;
+        boolean[] loggerAllowed = chunk.loggerFilter(query.loggerPrefix);
+
+        // Las líneas del launcher no son de ninguna instancia y pasan siempre el filtro
+        int instance = query.filterInstance ? instanceIds.indexOf(query.instance) : -1;
+
+        int minLevel = query.minLevel.ordinal();
+        long record = Math.min(cursor, nextRecord - 1);
+        for (; record >= from && chunk.count < maxLines && chunk.size < QUERY_CHUNK_BYTES; record--) {
+            int slot = (int) (record & recordMask);
+            if (levels[slot] < minLevel
+                    || (query.source >= 0 && sources[slot] != query.source)
+                    || (query.filterInstance && sources[slot] == SOURCE_SERVER && instances[slot] != instance)
+                    || (loggerAllowed != null && !loggerAllowed[loggers[slot]])) {
+                continue;
+            }
+            chunk.add(times[slot], levels[slot], loggerNames.name(loggers[slot]), sources[slot],
+                      instanceIds.get(instances[slot]), lengths[slot]);
+            copyOut(slot, chunk.text, chunk.offsets[chunk.count - 1]);
+        }
+        return record >= from ? record : -1;
+    }
+
+    public synchronized long getOldestTime() {
+        return oldestRecord < nextRecord ? times[(int) (oldestRecord & recordMask)] : 0;
+    }
+
+    public synchronized long size() {
+        return nextRecord - oldestRecord;
+    }
+
+    private long firstRecordAtOrAfter(long time) {
+        long low = oldestRecord;
+        long high = nextRecord;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (times[(int) (middle & recordMask)] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void copyOut(int slot, byte[] target, int offset) {
+        int length = lengths[slot];
+        int index = (int) (positions[slot] % dataCapacity);
+        int first = Math.min(length, dataCapacity - index);
+        data.get(index, target, offset, first);
+        data.get(0, target, offset + first, length - first);
+    }
+
+    private static int indexOf(byte[] bytes, int offset, int length, byte[] pattern) {
+        outer:
+        for (int i = offset; i <= offset + length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (bytes[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    // Líneas copiadas del anillo para filtrarlas sin el candado
+    private final class Chunk {
+
+        final long[] times = new long[QUERY_CHUNK_LINES];
+        final byte[] levels = new byte[QUERY_CHUNK_LINES];
+        final String[] loggers = new String[QUERY_CHUNK_LINES];
+        final byte[] sources = new byte[QUERY_CHUNK_LINES];
+        final String[] instances = new String[QUERY_CHUNK_LINES];
+        final int[] offsets = new int[QUERY_CHUNK_LINES];
+        final int[] lengths = new int[QUERY_CHUNK_LINES];
+        final byte[] text = new byte[QUERY_CHUNK_BYTES + MAX_RECORD];
+        int count;
+        int size;
+        // Filtro por logger resuelto una vez por nombre; se amplía si aparecen loggers nuevos
+        boolean[] loggerAllowed;
+
+        void clear() {
+            count = 0;
+            size = 0;
+        }
+
+        boolean[] loggerFilter(String prefix) {
+            if (prefix == null) {
+                return null;
+            }
+            int known = loggerAllowed != null ? loggerAllowed.length : 0;
+            if (known < loggerNames.size()) {
+                loggerAllowed = loggerAllowed != null ? Arrays.copyOf(loggerAllowed, loggerNames.size())
+                                                      : new boolean[loggerNames.size()];
+                for (int id = known; id < loggerAllowed.length; id++) {
+                    loggerAllowed[id] = loggerNames.name(id).startsWith(prefix);
+                }
+            }
+            return loggerAllowed;
+        }
+
+        void add(long time, byte level, String logger, byte source, String instance, int length) {
+            times[count] = time;
+            levels[count] = level;
+            loggers[count] = logger;
+            sources[count] = source;
+            instances[count] = instance;
+            offsets[count] = size;
+            lengths[count] = length;
+            count++;
+            size += length;
+        }
+    }
+
+    // Las líneas de continuación (trazas de excepciones) heredan nivel y logger de la línea
+    // anterior de la misma instancia, no de la última que llegó de cualquiera
+    private final class ServerLines implements LogSubscriber {
+
+        final int instance;
+        int lastLevel = LogLevel.INFO.ordinal();
+        int lastLogger = LoggerNames.UNKNOWN;
+
+        ServerLines(int instance) {
+            this.instance = instance;
+        }
+
+        @Override
+        public void onBatch(LogBatch batch) {
+            appendServer(this, batch);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.egg.launcher.log;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.AppenderBase;
+
+// Copia los logs del propio launcher a LogTail (configurado en logback.xml)
+public class LogTailAppender extends AppenderBase<ILoggingEvent> {
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        LogTail tail = LogTail.getIfCreated();
+        if (tail == null) {
+            return;
+        }
+        String message = event.getFormattedMessage();
+        IThrowableProxy throwable = event.getThrowableProxy();
+        if (throwable != null) {
+            message = message + System.lineSeparator() + ThrowableProxyUtil.asString(throwable);
+        }
+        tail.appendLauncher(event.getTimeStamp(), toLevel(event.getLevel()), event.getLoggerName(), message);
+    }
+
+    private static LogLevel toLevel(Level level) {
+        int value = level.toInt();
+        if (value >= Level.ERROR_INT) {
+            return LogLevel.ERROR;
+        }
+        if (value >= Level.WARN_INT) {
+            return LogLevel.WARN;
+        }
+        if (value >= Level.INFO_INT) {
+            return LogLevel.INFO;
+        }
+        return value >= Level.DEBUG_INT ? LogLevel.DEBUG : LogLevel.TRACE;
+    }
+}
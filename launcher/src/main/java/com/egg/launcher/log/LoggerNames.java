@@ -0,0 +1,79 @@
+package com.egg.launcher.log;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+// Tabla de nombres de logger internados: cada nombre distinto recibe un id corto
+// y las líneas del servidor se buscan por sus bytes, sin crear un String por línea.
+class LoggerNames {
+
+    static final int UNKNOWN = 0;
+    private static final int MAX_NAMES = 4096;
+
+    private final String[] names = new String[MAX_NAMES];
+    private final byte[][] encoded = new byte[MAX_NAMES][];
+    private final int[] table = new int[MAX_NAMES * 2];
+    private final Map<String, Integer> byString = new HashMap<>();
+    private int count = 1;
+
+    LoggerNames() {
+        names[UNKNOWN] = "";
+        encoded[UNKNOWN] = new byte[0];
+    }
+
+    int intern(byte[] source, int offset, int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + source[i];
+        }
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (id == 0) {
+                if (count == MAX_NAMES) {
+                    return UNKNOWN;
+                }
+                id = count++;
+                encoded[id] = new byte[length];
+                System.arraycopy(source, offset, encoded[id], 0, length);
+                names[id] = new String(encoded[id], StandardCharsets.UTF_8);
+                table[slot] = id;
+                return id;
+            }
+            if (equals(encoded[id], source, offset, length)) {
+                return id;
+            }
+        }
+    }
+
+    int intern(String name) {
+        Integer id = byString.get(name);
+        if (id == null) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            id = intern(bytes, 0, bytes.length);
+            byString.put(name, id);
+        }
+        return id;
+    }
+
+    String name(int id) {
+        return names[id];
+    }
+
+    int size() {
+        return count;
+    }
+
+    private static boolean equals(byte[] stored, byte[] source, int offset, int length) {
+        if (stored.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (stored[i] != source[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
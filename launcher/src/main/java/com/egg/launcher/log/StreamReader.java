@@ -0,0 +1,88 @@
+package com.egg.launcher.log;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Lee un stream del proceso en bloques grandes, separa las líneas dentro del
+// mismo buffer (sin crear Strings) y las publica en el buffer circular.
+class StreamReader implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamReader.class);
+    // Una línea más larga que el buffer se parte en varias
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_LINES_PER_PUBLISH = 4096;
+
+    private final InputStream in;
+    private final int stream;
+    private final LogRingBuffer ring;
+    private final Runnable onPublish;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final int[] offsets = new int[MAX_LINES_PER_PUBLISH];
+    private final int[] lengths = new int[MAX_LINES_PER_PUBLISH];
+    private int count;
+
+    StreamReader(InputStream in, int stream, LogRingBuffer ring, Runnable onPublish) {
+        this.in = in;
+        this.stream = stream;
+        this.ring = ring;
+        this.onPublish = onPublish;
+    }
+
+    @Override
+    public void run() {
+        int carried = 0;
+        try (InputStream input = in) {
+            int read;
+            while ((read = input.read(buffer, carried, buffer.length - carried)) != -1) {
+                int end = carried + read;
+                long now = System.currentTimeMillis();
+                int lineStart = 0;
+                for (int i = carried; i < end; i++) {
+                    if (buffer[i] == '\n') {
+                        int length = i - lineStart;
+                        if (length > 0 && buffer[i - 1] == '\r') {
+                            length--;
+                        }
+                        addLine(lineStart, length, now);
+                        lineStart = i + 1;
+                    }
+                }
+                if (lineStart == 0 && end == buffer.length) {
+                    addLine(0, end, now);
+                    lineStart = end;
+                }
+                publish(now);
+                carried = end - lineStart;
+                System.arraycopy(buffer, lineStart, buffer, 0, carried);
+            }
+            if (carried > 0) {
+                long now = System.currentTimeMillis();
+                addLine(0, carried, now);
+                publish(now);
+            }
+        } catch (IOException e) {
+            logger.error("Error al leer la salida {} del servidor.", LogPipeline.STREAM_NAMES[stream], e);
+        }
+    }
+
+    private void addLine(int offset, int length, long now) {
+        offsets[count] = offset;
+        lengths[count] = length;
+        count++;
+        if (count == offsets.length) {
+            publish(now);
+        }
+    }
+
+    private void publish(long now) {
+        if (count == 0) {
+            return;
+        }
+        ring.append(stream, now, buffer, offsets, lengths, count);
+        count = 0;
+        onPublish.run();
+    }
+}
@@ -0,0 +1,402 @@
+package com.egg.launcher.perf;
+
+import com.egg.launcher.config.ConfigView;
+import com.egg.launcher.runtime.ScheduledTask;
+import com.egg.launcher.runtime.TaskScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Lee el log de GC unificado (-Xlog) que escribe el servidor, de forma incremental
+// desde la última posición leída. Con la decoración timemillis cada línea trae la
+// hora de pared: "[gc,start]" marca el inicio de una pausa y "[gc]" su final con la
+// duración y la ocupación del heap. Las ventanas de pausa se guardan para que el
+// watchdog no cuente como congelamiento el tiempo que el servidor pasó en GC.
+// ZGC no marca el inicio de sus pausas: las registra en "[gc,phases]" solo al terminar,
+// con su duración, así que se seleccionan también esas etiquetas. En G1 esas líneas son
+// fases dentro de una pausa ya abierta por "[gc,start]" y se ignoran.
+public class GcLogMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(GcLogMonitor.class);
+    private static final long POLL_MILLIS = 500;
+    private static final int WINDOW_CAPACITY = 4096;
+    private static final int HEAP_SAMPLES = 512;
+    private static final long TREND_WINDOW_MILLIS = 30 * 60_000L;
+    private static final double ALLOCATION_EWMA_ALPHA = 0.2;
+    private static final double FULL_GC_WARN_MILLIS = 1000;
+
+    private final boolean enabled;
+    private final Path logFile;
+    private Path currentFile;
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private final StringBuilder partialLine = new StringBuilder();
+    private final TaskScope scope;
+    private final String threadName;
+    private ScheduledTask pollTask;
+    private long position;
+
+    // Ventanas de pausa [inicio, fin] en hora de pared, ordenadas por fin
+    private final long[] pauseStarts = new long[WINDOW_CAPACITY];
+    private final long[] pauseEnds = new long[WINDOW_CAPACITY];
+    private long pauseCount;
+    private long openPauseStart;
+    private int openPauseId = -1;
+
+    // Heap tras cada GC, para la tendencia y la tasa de asignación
+    private final long[] heapTimes = new long[HEAP_SAMPLES];
+    private final long[] heapAfter = new long[HEAP_SAMPLES];
+    private long heapCount;
+    private long heapCapacity;
+    private double allocationRate = Double.NaN;
+
+    private final PauseHistogram pauses = new PauseHistogram();
+    private long fullGcCount;
+
+    GcLogMonitor(boolean enabled, Path logFile, TaskScope scope, String threadName) {
+        this.enabled = enabled;
+        this.logFile = logFile.toAbsolutePath();
+        this.currentFile = this.logFile;
+        this.scope = scope;
+        this.threadName = threadName;
+    }
+
+    // gc.logFile es relativo al directorio de la instancia; la lectura corre en el ámbito de la instancia
+    public static GcLogMonitor create(ConfigView config, Path baseDir, TaskScope scope) {
+        return new GcLogMonitor(config.getBoolean("gc.log", true),
+                                baseDir.resolve(config.getString("gc.logFile", "logs/gc/server-gc.log")), scope,
+                                config.threadName("egg-gc-log"));
+    }
+
+    // Opciones para la JVM del servidor; el archivo se sobrescribe en cada arranque
+    public List<String> jvmArguments() {
+        return jvmArguments(logFile);
+    }
+
+    public List<String> jvmArguments(Path file) {
+        List<String> arguments = new ArrayList<>();
+        if (enabled) {
+            String path = file.toAbsolutePath().toString();
+            if (path.indexOf(' ') >= 0) {
+                path = "\"" + path + "\"";
+            }
+            arguments.add("-Xlog:gc,gc+start,gc+phases:file=" + path + ":timemillis,uptimemillis,tags:filecount=0");
+        }
+        return arguments;
+    }
+
+    // Log propio de una JVM de reserva: se alternan dos para que la siguiente reserva no
+    // sobrescriba el log del servidor que está en marcha
+    public Path standbyLogFile(int slot) {
+        String name = logFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return logFile.resolveSibling(base + "-standby-" + (slot & 1) + ".log");
+    }
+
+    // Se llama antes de lanzar el servidor: empieza a leer desde el principio del nuevo log
+    public synchronized void start() {
+        if (!enabled) {
+            return;
+        }
+        stop();
+        try {
+            Files.createDirectories(logFile.getParent());
+            Files.deleteIfExists(logFile);
+        } catch (IOException e) {
+            logger.warn("No se pudo preparar el log de GC '{}'.", logFile, e);
+        }
+        follow(logFile);
+    }
+
+    // Pasa a leer, desde el principio, el log que ya escribe una JVM en marcha (la de reserva)
+    public synchronized void follow(Path file) {
+        if (!enabled) {
+            return;
+        }
+        stop();
+        currentFile = file.toAbsolutePath();
+        position = 0;
+        partialLine.setLength(0);
+        openPauseId = -1;
+        pollTask = scope.scheduleWithFixedDelay(threadName, this::poll, POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (pollTask != null) {
+            pollTask.cancel(false);
+            pollTask = null;
+            poll();
+        }
+    }
+
+    synchronized void poll() {
+        if (!Files.exists(currentFile)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(currentFile, StandardOpenOption.READ)) {
+            if (channel.size() < position) {
+                // El servidor se reinició y la JVM truncó el archivo
+                position = 0;
+                partialLine.setLength(0);
+            }
+            while (true) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                position += read;
+                String text = new String(buffer.array(), 0, read, StandardCharsets.UTF_8);
+                int start = 0;
+                for (int newline = text.indexOf('\n'); newline >= 0; newline = text.indexOf('\n', start)) {
+                    partialLine.append(text, start, newline);
+                    parseLine(partialLine.toString());
+                    partialLine.setLength(0);
+                    start = newline + 1;
+                }
+                partialLine.append(text, start, text.length());
+            }
+        } catch (IOException e) {
+            logger.debug("No se pudo leer el log de GC.", e);
+        }
+    }
+
+    // "[1697520000123ms][12345ms][gc,start    ] GC(12) Pause Young (Normal) (G1 Evacuation Pause)"
+    // "[1697520000135ms][12357ms][gc          ] GC(12) Pause Young (Normal) (G1 Evacuation Pause) 1024M->256M(4096M) 12.345ms"
+    // "[1697520000140ms][12362ms][gc,phases   ] GC(3) Pause Mark Start 0.012ms" (ZGC; en la generacional, "Y: Pause ...")
+    void parseLine(String line) {
+        int timeEnd = line.indexOf("ms]");
+        if (!line.startsWith("[") || timeEnd < 0) {
+            return;
+        }
+        long time;
+        try {
+            time = Long.parseLong(line.substring(1, timeEnd));
+        } catch (NumberFormatException e) {
+            return;
+        }
+        int tagsStart = line.lastIndexOf('[', line.indexOf("] GC("));
+        int tagsEnd = line.indexOf(']', tagsStart);
+        int message = line.indexOf("GC(", tagsEnd);
+        if (tagsStart < 0 || tagsEnd < 0 || message < 0) {
+            return;
+        }
+        int text = line.indexOf(") ", message) + 2;
+        if (line.startsWith("Y: ", text) || line.startsWith("O: ", text)) {
+            text += 3;
+        }
+        if (!line.startsWith("Pause ", text)) {
+            return;
+        }
+        String tags = line.substring(tagsStart + 1, tagsEnd).trim();
+        int id = parseId(line, message);
+
+        if (tags.equals("gc,start")) {
+            openPauseId = id;
+            openPauseStart = time;
+        } else if (tags.equals("gc,phases")) {
+            // Solo las pausas de ZGC, que no abren ninguna con "[gc,start]"
+            if (openPauseId != id) {
+                double millis = parseMillis(line);
+                if (millis >= 0) {
+                    recordPause(time - (long) Math.ceil(millis), time, millis, false);
+                }
+            }
+        } else if (tags.equals("gc")) {
+            String[] tokens = line.substring(message).split(" ");
+            double millis = parseMillis(line);
+            if (millis < 0) {
+                return;
+            }
+            long start = openPauseId == id ? openPauseStart : time - (long) Math.ceil(millis);
+            openPauseId = -1;
+            recordPause(start, time, millis, line.contains("Pause Full"));
+            for (String token : tokens) {
+                int arrow = token.indexOf("->");
+                int open = token.indexOf('(', arrow);
+                if (arrow > 0 && open > arrow && token.endsWith(")")) {
+                    recordHeap(time, parseSize(token.substring(0, arrow)), parseSize(token.substring(arrow + 2, open)),
+                               parseSize(token.substring(open + 1, token.length() - 1)));
+                    break;
+                }
+            }
+        }
+    }
+
+    private void recordPause(long start, long end, double millis, boolean full) {
+        int slot = (int) (pauseCount % WINDOW_CAPACITY);
+        pauseStarts[slot] = start;
+        pauseEnds[slot] = end;
+        pauseCount++;
+        pauses.record(millis);
+        if (full) {
+            fullGcCount++;
+            if (millis >= FULL_GC_WARN_MILLIS) {
+                logger.warn("GC completo de {} ms en el servidor.", Math.round(millis));
+            }
+        }
+    }
+
+    private void recordHeap(long time, long before, long after, long capacity) {
+        if (heapCount > 0) {
+            int previous = (int) ((heapCount - 1) % HEAP_SAMPLES);
+            long elapsed = time - heapTimes[previous];
+            if (elapsed > 0 && before >= heapAfter[previous]) {
+                // Lo asignado entre dos GC es lo que creció el heap desde el final del anterior
+                double rate = (before - heapAfter[previous]) * 1000.0 / elapsed;
+                allocationRate = Double.isNaN(allocationRate) ? rate : allocationRate + ALLOCATION_EWMA_ALPHA * (rate - allocationRate);
+            }
+        }
+        int slot = (int) (heapCount % HEAP_SAMPLES);
+        heapTimes[slot] = time;
+        heapAfter[slot] = after;
+        heapCount++;
+        heapCapacity = capacity;
+    }
+
+    // Milisegundos de pausa stop-the-world dentro de [from, to], incluida una pausa en curso
+    public synchronized long pausedMillisBetween(long from, long to) {
+        long paused = 0;
+        if (openPauseId >= 0 && openPauseStart < to) {
+            paused += to - Math.max(from, openPauseStart);
+        }
+        long oldest = Math.max(0, pauseCount - WINDOW_CAPACITY);
+        for (long i = pauseCount - 1; i >= oldest; i--) {
+            int slot = (int) (i % WINDOW_CAPACITY);
+            if (pauseEnds[slot] < from) {
+                break;
+            }
+            long overlap = Math.min(to, pauseEnds[slot]) - Math.max(from, pauseStarts[slot]);
+            if (overlap > 0) {
+                paused += overlap;
+            }
+        }
+        return Math.min(paused, Math.max(0, to - from));
+    }
+
+    public synchronized boolean isInPause() {
+        return openPauseId >= 0;
+    }
+
+    public PauseHistogram getPauses() {
+        return pauses;
+    }
+
+    public synchronized long getFullGcCount() {
+        return fullGcCount;
+    }
+
+    // Bytes por segundo, media móvil entre GC consecutivos; NaN sin datos
+    public synchronized double getAllocationRate() {
+        return allocationRate;
+    }
+
+    public synchronized long getLastHeapAfterGc() {
+        return heapCount > 0 ? heapAfter[(int) ((heapCount - 1) % HEAP_SAMPLES)] : 0;
+    }
+
+    // Pendiente (mínimos cuadrados) del heap tras GC en los últimos 30 minutos, en bytes por minuto.
+    // Una pendiente positiva sostenida apunta a una fuga de memoria
+    public synchronized double getHeapAfterGcTrend() {
+        long count = Math.min(heapCount, HEAP_SAMPLES);
+        if (count < 3) {
+            return Double.NaN;
+        }
+        long newest = heapTimes[(int) ((heapCount - 1) % HEAP_SAMPLES)];
+        double sumX = 0;
+        double sumY = 0;
+        double sumXY = 0;
+        double sumXX = 0;
+        int n = 0;
+        for (long i = heapCount - 1; i >= heapCount - count; i--) {
+            int slot = (int) (i % HEAP_SAMPLES);
+            if (newest - heapTimes[slot] > TREND_WINDOW_MILLIS) {
+                break;
+            }
+            double x = (heapTimes[slot] - newest) / 60_000.0;
+            double y = heapAfter[slot];
+            sumX += x;
+            sumY += y;
+            sumXY += x * y;
+            sumXX += x * x;
+            n++;
+        }
+        double denominator = n * sumXX - sumX * sumX;
+        return n < 3 || denominator == 0 ? Double.NaN : (n * sumXY - sumX * sumY) / denominator;
+    }
+
+    public String summary() {
+        double rate;
+        double trend;
+        long heap;
+        long capacity;
+        synchronized (this) {
+            rate = allocationRate;
+            trend = getHeapAfterGcTrend();
+            heap = getLastHeapAfterGc();
+            capacity = heapCapacity;
+        }
+        return String.format("GC: %d pausas (%d completas), %.0f ms en total, p99 %.0f ms, maxima %.0f ms; "
+                             + "asignacion %s MB/s; heap tras GC %d/%d MB, tendencia %s MB/min",
+                             pauses.getCount(), getFullGcCount(), pauses.getTotalMillis(), pauses.percentile(0.99),
+                             pauses.getMaxMillis(), Double.isNaN(rate) ? "?" : String.format("%.1f", rate / (1024 * 1024)),
+                             heap / (1024 * 1024), capacity / (1024 * 1024),
+                             Double.isNaN(trend) ? "?" : String.format("%+.1f", trend / (1024 * 1024)));
+    }
+
+    // Duración final de la línea ("12.345ms"), o -1 si falta o no es un número
+    private static double parseMillis(String line) {
+        if (!line.endsWith("ms")) {
+            return -1;
+        }
+        String value = line.substring(line.lastIndexOf(' ') + 1, line.length() - 2);
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int parseId(String line, int message) {
+        int close = line.indexOf(')', message);
+        try {
+            return Integer.parseInt(line.substring(message + 3, close));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    // "1024M", "512K", "2G", "100B"
+    private static long parseSize(String text) {
+        if (text.isEmpty()) {
+            return 0;
+        }
+        char unit = text.charAt(text.length() - 1);
+        long value;
+        try {
+            value = Long.parseLong(Character.isDigit(unit) ? text : text.substring(0, text.length() - 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+        switch (unit) {
+            case 'K':
+                return value * 1024;
+            case 'M':
+                return value * 1024 * 1024;
+            case 'G':
+                return value * 1024 * 1024 * 1024;
+            default:
+                return value;
+        }
+    }
+}
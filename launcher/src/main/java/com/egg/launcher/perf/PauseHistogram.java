@@ -0,0 +1,61 @@
+package com.egg.launcher.perf;
+
+// Histograma de pausas stop-the-world con cubos fijos, legibles en el reporte.
+public class PauseHistogram {
+
+    private static final double[] UPPER_BOUNDS_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000,
+                                                         Double.POSITIVE_INFINITY};
+    private static final String[] LABELS = {"<1 ms", "1-2 ms", "2-5 ms", "5-10 ms", "10-20 ms", "20-50 ms", "50-100 ms",
+                                            "100-200 ms", "200-500 ms", "0.5-1 s", "1-2 s", "2-5 s", ">5 s"};
+
+    private final long[] counts = new long[UPPER_BOUNDS_MILLIS.length];
+    private long total;
+    private double totalMillis;
+    private double maxMillis;
+
+    synchronized void record(double millis) {
+        int bucket = 0;
+        while (millis >= UPPER_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        counts[bucket]++;
+        total++;
+        totalMillis += millis;
+        maxMillis = Math.max(maxMillis, millis);
+    }
+
+    public synchronized long getCount() {
+        return total;
+    }
+
+    public synchronized double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public synchronized double getMaxMillis() {
+        return maxMillis;
+    }
+
+    // Límite superior del cubo que contiene el percentil p (0-1)
+    public synchronized double percentile(double p) {
+        long target = (long) Math.ceil(p * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target && counts[i] > 0) {
+                return Math.min(UPPER_BOUNDS_MILLIS[i], maxMillis);
+            }
+        }
+        return maxMillis;
+    }
+
+    public synchronized String render() {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                out.append(String.format("  %-10s %8d%n", LABELS[i], counts[i]));
+            }
+        }
+        return out.toString();
+    }
+}
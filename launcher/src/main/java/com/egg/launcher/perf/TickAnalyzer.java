@@ -0,0 +1,401 @@
+package com.egg.launcher.perf;
+
+import com.egg.launcher.ServerConsole;
+import com.egg.launcher.config.ConfigView;
+import com.egg.launcher.log.LogBatch;
+import com.egg.launcher.log.LogSubscriber;
+import com.egg.launcher.runtime.ScheduledTask;
+import com.egg.launcher.runtime.TaskScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Extrae el rendimiento por tick de la salida del servidor, sin necesidad del core
+// mod: los avisos "Can't keep up!" de vanilla, la salida de "/forge tps" (total y
+// por dimensión) y los avisos de chunks y entidades. Analiza los bytes de cada
+// lote directamente y guarda TPS/MSPT en series circulares de primitivos. Solo se
+// aceptan líneas con la cabecera del logger que las escribe de verdad, para que un
+// jugador no pueda falsearlas desde el chat.
+public class TickAnalyzer implements LogSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(TickAnalyzer.class);
+
+    public static final String OVERALL = "overall";
+    public static final double TARGET_TPS = 20.0;
+    public static final double TARGET_MSPT = 50.0;
+
+    private static final int SERIES_CAPACITY = 720;
+    // Vanilla comprueba el retraso como mucho cada 15 s y solo avisa a partir de 2 s
+    private static final long MIN_LAG_WINDOW_MILLIS = 15_000;
+    private static final long LAG_RECOVERY_MILLIS = 60_000;
+    private static final long POLL_STALE_MILLIS = 120_000;
+
+    private static final byte[] CANT_KEEP_UP = bytes("Can't keep up!");
+    private static final byte[] RUNNING = bytes("Running ");
+    private static final byte[] OR = bytes(" or ");
+    private static final byte[] MEAN_TICK_TIME = bytes("Mean tick time: ");
+    private static final byte[] MEAN_TPS = bytes("Mean TPS: ");
+    private static final byte[] TPS_PAREN = bytes(" TPS (");
+    private static final byte[] MS_PER_TICK = bytes(" ms/tick)");
+    private static final byte[] OVERALL_PREFIX = bytes("Overall");
+    private static final byte[] DIM_PREFIX = bytes("Dim ");
+    private static final byte[] MESSAGE_START = bytes("]: ");
+    private static final byte[] WARN = bytes("/WARN]");
+    private static final byte[] ERROR = bytes("/ERROR]");
+    private static final byte[] INFO = bytes("/INFO]");
+    // Escribe los avisos de retraso; la salida de los comandos de consola sale por él o,
+    // en versiones antiguas, por el de DedicatedServer
+    private static final byte[] SERVER_LOGGER = bytes("MinecraftServer");
+    private static final byte[] DEDICATED_LOGGER = bytes("DedicatedServer");
+    private static final byte[][] CHUNK_MARKERS = {bytes("chunk"), bytes("Chunk")};
+    private static final byte[][] ENTITY_MARKERS = {bytes("entity"), bytes("Entity")};
+
+    private final TickSeries overall = new TickSeries(SERIES_CAPACITY);
+    private final Map<String, TickSeries> dimensions = new ConcurrentHashMap<>();
+    private final List<TickListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong lagWarnings = new AtomicLong();
+    private final AtomicLong chunkWarnings = new AtomicLong();
+    private final AtomicLong entityWarnings = new AtomicLong();
+
+    // Nombres de dimensión ya vistos, para no crear un String por línea de "/forge tps"
+    private final List<byte[]> dimensionKeys = new ArrayList<>();
+    private final List<String> dimensionNames = new ArrayList<>();
+
+    private volatile long lastLagTime;
+    private volatile double lagTps = TARGET_TPS;
+    private volatile double lagMspt = Double.NaN;
+    private volatile long lastPollTime;
+
+    // Resultado auxiliar de parseNumber; solo lo usa el hilo del pipeline
+    private int parsedEnd;
+
+    private ScheduledTask pollTask;
+
+    public void addListener(TickListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TickListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void onBatch(LogBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            int message = batch.indexOf(i, MESSAGE_START);
+            if (message >= 0) {
+                int text = batch.offset(i) + message + MESSAGE_START.length;
+                int end = batch.offset(i) + batch.length(i);
+                if (startsWith(batch.data(), text, end, CANT_KEEP_UP) && fromLogger(batch, i, message, WARN, SERVER_LOGGER)) {
+                    parseLag(batch, i, message + MESSAGE_START.length, batch.time(i));
+                    continue;
+                }
+                // El chat también sale por MinecraftServer, pero empieza por "<jugador>" o "[Not Secure]"
+                if ((batch.indexOf(i, MEAN_TICK_TIME, message) >= 0 || batch.indexOf(i, TPS_PAREN, message) >= 0)
+                        && text < end && batch.data()[text] != '<' && batch.data()[text] != '['
+                        && (fromLogger(batch, i, message, INFO, SERVER_LOGGER)
+                            || fromLogger(batch, i, message, INFO, DEDICATED_LOGGER))) {
+                    parseTps(batch, i, batch.time(i));
+                    continue;
+                }
+            }
+            if (batch.indexOf(i, WARN) >= 0 || batch.indexOf(i, ERROR) >= 0) {
+                countWarning(batch, i);
+            }
+        }
+    }
+
+    // Cabecera "[hora] [hilo/NIVEL] [logger]" hasta message con ese nivel y ese logger
+    // ("minecraft/MinecraftServer" o "net.minecraft.server.MinecraftServer"); en vanilla antiguo no hay logger
+    private static boolean fromLogger(LogBatch batch, int line, int message, byte[] level, byte[] loggerName) {
+        int levelAt = batch.indexOf(line, level);
+        if (levelAt < 0 || levelAt > message) {
+            return false;
+        }
+        if (levelAt + level.length - 1 == message) {
+            return true;
+        }
+        int loggerAt = batch.indexOf(line, loggerName, levelAt);
+        return loggerAt >= 0 && loggerAt < message;
+    }
+
+    // "Can't keep up! Is the server overloaded? Running 2345ms or 46 ticks behind"
+    private void parseLag(LogBatch batch, int line, int from, long time) {
+        int running = batch.indexOf(line, RUNNING, from);
+        if (running < 0) {
+            return;
+        }
+        byte[] data = batch.data();
+        int end = batch.offset(line) + batch.length(line);
+        double millis = parseNumber(data, batch.offset(line) + running + RUNNING.length, end);
+        if (Double.isNaN(millis)) {
+            return;
+        }
+        long ticks = Math.round(millis / TARGET_MSPT);
+        int or = batch.indexOf(line, OR, parsedEnd - batch.offset(line));
+        if (or >= 0) {
+            double parsedTicks = parseNumber(data, batch.offset(line) + or + OR.length, end);
+            if (!Double.isNaN(parsedTicks)) {
+                ticks = (long) parsedTicks;
+            }
+        }
+
+        // El retraso acumulado se reparte en la ventana desde el aviso anterior
+        long window = lastLagTime > 0 ? Math.max(MIN_LAG_WINDOW_MILLIS, time - lastLagTime) : MIN_LAG_WINDOW_MILLIS;
+        double fraction = millis / window;
+        lagTps = TARGET_TPS / (1 + fraction);
+        lagMspt = TARGET_MSPT * (1 + fraction);
+        lastLagTime = time;
+        lagWarnings.incrementAndGet();
+        if (lastPollTime == 0 || time - lastPollTime > POLL_STALE_MILLIS) {
+            overall.add(time, lagMspt, lagTps);
+        }
+
+        for (TickListener listener : listeners) {
+            listener.onLag((long) millis, ticks);
+        }
+    }
+
+    // Forge 1.13-1.18: "Dim minecraft:overworld (minecraft:overworld): Mean tick time: 0.563 ms. Mean TPS: 20.000"
+    //                  "Overall: Mean tick time: 0.720 ms. Mean TPS: 20.000"
+    // Forge 1.19+:     "minecraft:overworld: 20.000 TPS (0.563 ms/tick)" / "Overall: 20.000 TPS (0.720 ms/tick)"
+    private void parseTps(LogBatch batch, int line, long time) {
+        byte[] data = batch.data();
+        int offset = batch.offset(line);
+        int end = offset + batch.length(line);
+        double mspt;
+        double tps;
+        int nameEnd;
+
+        int meanTick = batch.indexOf(line, MEAN_TICK_TIME);
+        if (meanTick >= 0) {
+            mspt = parseNumber(data, offset + meanTick + MEAN_TICK_TIME.length, end);
+            int meanTps = batch.indexOf(line, MEAN_TPS, meanTick);
+            tps = meanTps >= 0 ? parseNumber(data, offset + meanTps + MEAN_TPS.length, end) : Double.NaN;
+            nameEnd = offset + meanTick;
+        } else {
+            int tpsParen = batch.indexOf(line, TPS_PAREN);
+            if (batch.indexOf(line, MS_PER_TICK, tpsParen) < 0) {
+                return;
+            }
+            mspt = parseNumber(data, offset + tpsParen + TPS_PAREN.length, end);
+            int number = offset + tpsParen;
+            while (number > offset && (isNumberByte(data[number - 1]))) {
+                number--;
+            }
+            tps = parseNumber(data, number, end);
+            nameEnd = number;
+        }
+        if (Double.isNaN(mspt) || Double.isNaN(tps)) {
+            return;
+        }
+
+        int nameStart = offset + batch.indexOf(line, MESSAGE_START) + MESSAGE_START.length;
+        String dimension = dimensionName(data, nameStart, nameEnd);
+        if (dimension == null) {
+            return;
+        }
+        TickSeries series = dimension.equals(OVERALL) ? overall
+                : dimensions.computeIfAbsent(dimension, key -> new TickSeries(SERIES_CAPACITY));
+        series.add(time, mspt, tps);
+        if (series == overall) {
+            lastPollTime = time;
+        }
+        for (TickListener listener : listeners) {
+            listener.onSample(dimension, mspt, tps);
+        }
+    }
+
+    // Nombre de la dimensión entre el inicio del mensaje y las cifras; prefiere el nombre entre paréntesis
+    private String dimensionName(byte[] data, int start, int end) {
+        if (startsWith(data, start, end, OVERALL_PREFIX)) {
+            return OVERALL;
+        }
+        if (startsWith(data, start, end, DIM_PREFIX)) {
+            start += DIM_PREFIX.length;
+        }
+        int open = -1;
+        int close = -1;
+        for (int i = start; i < end; i++) {
+            if (data[i] == '(' && open < 0) {
+                open = i;
+            } else if (data[i] == ')' && open >= 0) {
+                close = i;
+                break;
+            }
+        }
+        if (open >= 0 && close > open + 1) {
+            start = open + 1;
+            end = close;
+        }
+        while (start < end && (data[start] == ' ' || data[start] == ':')) {
+            start++;
+        }
+        while (end > start && (data[end - 1] == ' ' || data[end - 1] == ':')) {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+        for (int i = 0; i < dimensionKeys.size(); i++) {
+            byte[] key = dimensionKeys.get(i);
+            if (key.length == end - start && startsWith(data, start, end, key)) {
+                return dimensionNames.get(i);
+            }
+        }
+        byte[] key = new byte[end - start];
+        System.arraycopy(data, start, key, 0, key.length);
+        String name = new String(key, StandardCharsets.UTF_8);
+        dimensionKeys.add(key);
+        dimensionNames.add(name);
+        return name;
+    }
+
+    // Solo se busca en el mensaje: el nombre del logger también suele contener "Chunk" o "Entity"
+    private void countWarning(LogBatch batch, int line) {
+        int message = Math.max(0, batch.indexOf(line, MESSAGE_START));
+        for (byte[] marker : CHUNK_MARKERS) {
+            if (batch.indexOf(line, marker, message) >= 0) {
+                chunkWarnings.incrementAndGet();
+                return;
+            }
+        }
+        for (byte[] marker : ENTITY_MARKERS) {
+            if (batch.indexOf(line, marker, message) >= 0) {
+                entityWarnings.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    // Lee un número decimal sin crear Strings; NaN si no hay cifras. Deja el final en parsedEnd
+    private double parseNumber(byte[] data, int position, int end) {
+        while (position < end && data[position] == ' ') {
+            position++;
+        }
+        long integer = 0;
+        long fraction = 0;
+        long scale = 1;
+        boolean digits = false;
+        boolean decimals = false;
+        for (; position < end; position++) {
+            byte b = data[position];
+            if (b >= '0' && b <= '9') {
+                digits = true;
+                if (decimals) {
+                    if (scale < 1_000_000_000L) {
+                        fraction = fraction * 10 + (b - '0');
+                        scale *= 10;
+                    }
+                } else {
+                    integer = integer * 10 + (b - '0');
+                }
+            } else if ((b == '.' || b == ',') && !decimals && position + 1 < end
+                    && data[position + 1] >= '0' && data[position + 1] <= '9') {
+                decimals = true;
+            } else {
+                break;
+            }
+        }
+        parsedEnd = position;
+        return digits ? integer + (double) fraction / scale : Double.NaN;
+    }
+
+    private static boolean isNumberByte(byte b) {
+        return (b >= '0' && b <= '9') || b == '.' || b == ',';
+    }
+
+    private static boolean startsWith(byte[] data, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[start + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // TPS actual: la última medición de "/forge tps" si es reciente, si no la estimación por
+    // "Can't keep up!"; sin avisos recientes se asume que el servidor va al día
+    public double getTps() {
+        long now = System.currentTimeMillis();
+        if (lastPollTime > 0 && now - lastPollTime <= POLL_STALE_MILLIS) {
+            return overall.lastTps();
+        }
+        return lastLagTime > 0 && now - lastLagTime <= LAG_RECOVERY_MILLIS ? lagTps : TARGET_TPS;
+    }
+
+    // MSPT actual, o NaN si no hay mediciones ni avisos recientes
+    public double getMspt() {
+        long now = System.currentTimeMillis();
+        if (lastPollTime > 0 && now - lastPollTime <= POLL_STALE_MILLIS) {
+            return overall.lastMspt();
+        }
+        return lastLagTime > 0 && now - lastLagTime <= LAG_RECOVERY_MILLIS ? lagMspt : Double.NaN;
+    }
+
+    public TickSeries getOverall() {
+        return overall;
+    }
+
+    public Map<String, TickSeries> getDimensions() {
+        return Collections.unmodifiableMap(dimensions);
+    }
+
+    public long getLagWarnings() {
+        return lagWarnings.get();
+    }
+
+    public long getChunkWarnings() {
+        return chunkWarnings.get();
+    }
+
+    public long getEntityWarnings() {
+        return entityWarnings.get();
+    }
+
+    public String summary() {
+        double mspt = getMspt();
+        return String.format("TPS: %.1f, MSPT: %s, avisos de lag: %d, de chunks: %d, de entidades: %d", getTps(),
+                             Double.isNaN(mspt) ? "?" : String.format("%.1f", mspt), getLagWarnings(),
+                             getChunkWarnings(), getEntityWarnings());
+    }
+
+    // Con perf.tpsPollSeconds > 0 se pide "forge tps" periódicamente para tener datos por dimensión
+    // scope: el del proceso del servidor; al cerrarse se deja de consultar
+    public synchronized void startPolling(TaskScope scope, ServerConsole console, ConfigView config) {
+        stopPolling();
+        long seconds = config.getLong("perf.tpsPollSeconds", 0);
+        if (seconds <= 0) {
+            return;
+        }
+        pollTask = scope.scheduleWithFixedDelay(config.threadName("egg-tps-poll"), () -> {
+            if (console.isAlive()) {
+                console.sendCommand("forge tps");
+            }
+        }, seconds, seconds, TimeUnit.SECONDS);
+        logger.info("Se consultara 'forge tps' cada {} s.", seconds);
+    }
+
+    public synchronized void stopPolling() {
+        if (pollTask != null) {
+            pollTask.cancel(false);
+            pollTask = null;
+        }
+    }
+}
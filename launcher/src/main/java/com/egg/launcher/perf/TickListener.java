@@ -0,0 +1,13 @@
+package com.egg.launcher.perf;
+
+// Avisos del TickAnalyzer; se llaman desde el hilo del pipeline de logs y deben ser rápidos
+public interface TickListener {
+
+    // "Can't keep up!": el servidor va "millisBehind" ms (o "ticksBehind" ticks) por detrás
+    default void onLag(long millisBehind, long ticksBehind) {
+    }
+
+    // Nueva muestra de rendimiento; "dimension" es TickAnalyzer.OVERALL para el total del servidor
+    default void onSample(String dimension, double mspt, double tps) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.egg.launcher.perf;
+
+// Serie temporal circular de TPS y MSPT en arreglos primitivos; al llenarse se
+// sobrescriben las muestras más antiguas.
+public class TickSeries {
+
+    private final long[] times;
+    private final double[] mspt;
+    private final double[] tps;
+    private int next;
+    private int count;
+
+    public TickSeries(int capacity) {
+        this.times = new long[capacity];
+        this.mspt = new double[capacity];
+        this.tps = new double[capacity];
+    }
+
+    synchronized void add(long time, double millisPerTick, double ticksPerSecond) {
+        times[next] = time;
+        mspt[next] = millisPerTick;
+        tps[next] = ticksPerSecond;
+        next = (next + 1) % times.length;
+        if (count < times.length) {
+            count++;
+        }
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized long lastTime() {
+        return count == 0 ? 0 : times[index(count - 1)];
+    }
+
+    public synchronized double lastMspt() {
+        return count == 0 ? Double.NaN : mspt[index(count - 1)];
+    }
+
+    public synchronized double lastTps() {
+        return count == 0 ? Double.NaN : tps[index(count - 1)];
+    }
+
+    // Media de las muestras desde "sinceMillis"; NaN si no hay ninguna
+    public synchronized double averageMspt(long sinceMillis) {
+        return average(mspt, sinceMillis);
+    }
+
+    public synchronized double averageTps(long sinceMillis) {
+        return average(tps, sinceMillis);
+    }
+
+    public synchronized double maxMspt(long sinceMillis) {
+        double max = Double.NaN;
+        for (int i = count - 1; i >= 0 && times[index(i)] >= sinceMillis; i--) {
+            double value = mspt[index(i)];
+            if (Double.isNaN(max) || value > max) {
+                max = value;
+            }
+        }
+        return max;
+    }
+
+    // Copia de las muestras en orden cronológico: filas {hora, mspt, tps}
+    public synchronized double[][] snapshot() {
+        double[][] rows = new double[count][];
+        for (int i = 0; i < count; i++) {
+            int index = index(i);
+            rows[i] = new double[]{times[index], mspt[index], tps[index]};
+        }
+        return rows;
+    }
+
+    private double average(double[] values, long sinceMillis) {
+        double sum = 0;
+        int samples = 0;
+        for (int i = count - 1; i >= 0 && times[index(i)] >= sinceMillis; i--) {
+            sum += values[index(i)];
+            samples++;
+        }
+        return samples == 0 ? Double.NaN : sum / samples;
+    }
+
+    // Índice físico de la i-ésima muestra más antigua
+    private int index(int i) {
+        return (next - count + i + times.length) % times.length;
+    }
+}
@@ -0,0 +1,60 @@
+package com.egg.launcher.plugin;
+
+import com.egg.launcher.config.LauncherConfig;
+import com.egg.launcher.runtime.LauncherRuntime;
+import com.egg.launcher.runtime.TaskScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Comprueba que el classloader de un plugin descargado llega a liberarse. Solo
+// guarda una referencia débil y fuerza unos cuantos GC; si el classloader sigue
+// vivo, algo del plugin (un hilo, un listener, una caché estática) lo retiene y
+// cada recarga dejaría sus clases ocupando metaspace.
+class ClassLoaderLeakDetector implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassLoaderLeakDetector.class);
+    private static final int PROBES = 5;
+    private static final long PROBE_INTERVAL_SECONDS = 2;
+
+    private final TaskScope scope = LauncherRuntime.openScope("plugin-leaks");
+    private final AtomicInteger leaked = new AtomicInteger();
+    private final int maxLeaked = LauncherConfig.getInt("plugins.maxLeakedLoaders", 3);
+
+    void track(String pluginName, ClassLoader classLoader) {
+        WeakReference<ClassLoader> reference = new WeakReference<>(classLoader);
+        scope.schedule("egg-plugin-leaks", () -> probe(pluginName, reference, 1), PROBE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void probe(String pluginName, WeakReference<ClassLoader> reference, int attempt) {
+        // Con -XX:+DisableExplicitGC esta llamada no hace nada y solo cuentan los GC normales
+        System.gc();
+        if (reference.get() == null) {
+            logger.debug("El classloader anterior de '{}' fue liberado (sondeo {}).", pluginName, attempt);
+            return;
+        }
+        if (attempt < PROBES) {
+            scope.schedule("egg-plugin-leaks", () -> probe(pluginName, reference, attempt + 1), PROBE_INTERVAL_SECONDS,
+                           TimeUnit.SECONDS);
+            return;
+        }
+        int total = leaked.incrementAndGet();
+        logger.warn("Posible fuga: el classloader anterior de '{}' sigue vivo tras {} GC. Revisa que el plugin detenga "
+                + "sus hilos y libere sus referencias en onDisable.", pluginName, PROBES);
+        if (total >= maxLeaked) {
+            logger.error("Hay {} classloaders de plugins sin liberar. Reinicia el launcher para recuperar la metaspace.", total);
+        }
+    }
+
+    int getLeakedCount() {
+        return leaked.get();
+    }
+
+    @Override
+    public void close() {
+        scope.close();
+    }
+}
@@ -3,4 +3,8 @@ package com.egg.launcher.plugin;
 public interface EggPlugin {
     void onEnable();
     void onDisable();
+
+    // Se llama antes de onEnable para que el plugin registre sus listeners con bus.register(this, listener)
+    default void registerListeners(EventBus bus) {
+    }
 }
@@ -0,0 +1,248 @@
+package com.egg.launcher.plugin;
+
+import com.egg.launcher.config.LauncherConfig;
+import com.egg.launcher.plugin.event.EggEvent;
+import com.egg.launcher.runtime.LauncherRuntime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bus de eventos tipado para los EGG Plugins. Cada método @EventHandler se
+// compila una sola vez a un MethodHandle y tiene su propia cola acotada; la
+// entrega es asíncrona en un pool compartido y, si un listener no da abasto, se
+// descartan sus eventos en lugar de frenar al productor (el canal del core mod).
+public class EventBus implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventBus.class);
+    private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, EggEvent.class);
+    private static final int DRAIN_BATCH = 256;
+    private static final long DROP_LOG_INTERVAL_MILLIS = 10_000;
+    private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+
+    private final ExecutorService executor;
+    private final int queueCapacity;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    // Suscriptores resueltos por clase concreta de evento; se invalida al registrar o quitar listeners
+    private final Map<Class<?>, Subscription[]> dispatch = new ConcurrentHashMap<>();
+    // Cambia con cada registro o baja, para no guardar en dispatch una resolución ya vieja
+    private volatile long generation;
+
+    public EventBus(int threads, int queueCapacity) {
+        this.executor = LauncherRuntime.root().newPool("egg-events", threads);
+        this.queueCapacity = queueCapacity;
+    }
+
+    public static EventBus create() {
+        int threads = LauncherConfig.getInt("plugins.eventThreads", 2);
+        int queueCapacity = LauncherConfig.getInt("plugins.eventQueueSize", 1024);
+        return new EventBus(Math.max(1, threads), Math.max(2, queueCapacity));
+    }
+
+    // Registra todos los métodos @EventHandler del listener a nombre del plugin
+    public void register(EggPlugin owner, Object listener) {
+        List<Subscription> found = new ArrayList<>();
+        for (Method method : listener.getClass().getMethods()) {
+            if (!method.isAnnotationPresent(EventHandler.class) || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            Class<?>[] parameters = method.getParameterTypes();
+            if (parameters.length != 1 || !EggEvent.class.isAssignableFrom(parameters[0])) {
+                logger.warn("Se ignora el handler '{}' de {}: debe recibir un unico EggEvent.",
+                            method.getName(), owner.getClass().getSimpleName());
+                continue;
+            }
+            try {
+                // Se accede con el lookup del launcher; el método es público en una clase del plugin
+                method.setAccessible(true);
+                MethodHandle handle = MethodHandles.lookup().unreflect(method).bindTo(listener).asType(HANDLER_TYPE);
+                String name = listener.getClass().getSimpleName() + "#" + method.getName();
+                found.add(new Subscription(owner, parameters[0], name, handle));
+            } catch (IllegalAccessException | RuntimeException e) {
+                logger.error("No se pudo registrar el handler '{}' de {}.", method.getName(),
+                             owner.getClass().getSimpleName(), e);
+            }
+        }
+        synchronized (this) {
+            subscriptions.addAll(found);
+            generation++;
+            dispatch.clear();
+        }
+        logger.debug("{} registro {} handlers de eventos.", owner.getClass().getSimpleName(), found.size());
+    }
+
+    // Quita todos los listeners de un plugin; los eventos ya encolados se descartan
+    public void unregister(EggPlugin owner) {
+        List<Subscription> removed = new ArrayList<>();
+        synchronized (this) {
+            for (Subscription subscription : subscriptions) {
+                if (subscription.owner == owner) {
+                    removed.add(subscription);
+                }
+            }
+            subscriptions.removeAll(removed);
+            generation++;
+            dispatch.clear();
+        }
+        for (Subscription subscription : removed) {
+            subscription.cancel();
+        }
+    }
+
+    // Permite al productor evitar construir el evento si nadie lo escucha
+    public boolean hasListeners(Class<? extends EggEvent> type) {
+        return subscriptionsFor(type).length > 0;
+    }
+
+    public void post(EggEvent event) {
+        for (Subscription subscription : subscriptionsFor(event.getClass())) {
+            subscription.offer(event);
+        }
+    }
+
+    public long getDroppedEvents() {
+        long dropped = 0;
+        for (Subscription subscription : subscriptions) {
+            dropped += subscription.dropped.get();
+        }
+        return dropped;
+    }
+
+    // resolve no corre dentro de computeIfAbsent ni con el monitor del bus: register y unregister
+    // vacían dispatch con el monitor tomado, y el orden inverso de bloqueos colgaba a los dos hilos
+    private Subscription[] subscriptionsFor(Class<?> type) {
+        Subscription[] resolved = dispatch.get(type);
+        if (resolved != null) {
+            return resolved;
+        }
+        long resolvedGeneration = generation;
+        resolved = resolve(type);
+        dispatch.putIfAbsent(type, resolved);
+        // Si entretanto cambió la lista, la resolución guardada puede ser vieja
+        if (generation != resolvedGeneration) {
+            dispatch.remove(type, resolved);
+        }
+        return resolved;
+    }
+
+    private Subscription[] resolve(Class<?> type) {
+        List<Subscription> matching = new ArrayList<>();
+        for (Subscription subscription : subscriptions) {
+            if (subscription.eventType.isAssignableFrom(type)) {
+                matching.add(subscription);
+            }
+        }
+        return matching.isEmpty() ? NO_SUBSCRIPTIONS : matching.toArray(NO_SUBSCRIPTIONS);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        long dropped = getDroppedEvents();
+        if (dropped > 0) {
+            logger.warn("El bus de eventos descarto {} eventos en total por listeners saturados.", dropped);
+        }
+    }
+
+    private class Subscription {
+        final EggPlugin owner;
+        final Class<?> eventType;
+        final String name;
+        final MethodHandle handle;
+        final BoundedEventQueue queue = new BoundedEventQueue(queueCapacity);
+        // Garantiza que solo una tarea del pool consume esta cola a la vez
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicLong dropped = new AtomicLong();
+        final AtomicLong lastDropLog = new AtomicLong();
+        // Tras unregister no se encola nada y lo pendiente se descarta sin llamar al handler
+        volatile boolean cancelled;
+
+        Subscription(EggPlugin owner, Class<?> eventType, String name, MethodHandle handle) {
+            this.owner = owner;
+            this.eventType = eventType;
+            this.name = name;
+            this.handle = handle;
+        }
+
+        void offer(EggEvent event) {
+            if (cancelled) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                onDrop();
+                return;
+            }
+            schedule();
+        }
+
+        // La cola tiene un único consumidor, así que se vacía desde drain y no desde aquí
+        void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RuntimeException e) {
+                    // El bus ya se cerró
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        void drain() {
+            for (int i = 0; i < DRAIN_BATCH; i++) {
+                EggEvent event = (EggEvent) queue.poll();
+                if (event == null) {
+                    break;
+                }
+                if (cancelled) {
+                    continue;
+                }
+                try {
+                    handle.invokeExact(event);
+                } catch (Throwable t) {
+                    logger.error("Error en el handler {} al procesar {}.", name, event.getClass().getSimpleName(), t);
+                }
+            }
+            scheduled.set(false);
+            // Un productor pudo encolar mientras se vaciaba la cola sin poder programar otra tarea
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        void onDrop() {
+            long total = dropped.incrementAndGet();
+            long now = System.currentTimeMillis();
+            long last = lastDropLog.get();
+            if (now - last >= DROP_LOG_INTERVAL_MILLIS && lastDropLog.compareAndSet(last, now)) {
+                logger.warn("El listener {} no da abasto (cola de {} eventos llena); {} eventos descartados hasta ahora.",
+                            name, queue.capacity(), total);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.egg.launcher.plugin;
+
+// Un plugin cargado junto con su classloader y los tiempos de arranque
+class LoadedPlugin {
+
+    final PluginDescriptor descriptor;
+    final PluginClassLoader classLoader;
+    final EggPlugin instance;
+    final long loadNanos;
+    long enableNanos;
+    boolean enabled;
+
+    LoadedPlugin(PluginDescriptor descriptor, PluginClassLoader classLoader, EggPlugin instance, long loadNanos) {
+        this.descriptor = descriptor;
+        this.classLoader = classLoader;
+        this.instance = instance;
+        this.loadNanos = loadNanos;
+    }
+}
@@ -0,0 +1,37 @@
+package com.egg.launcher.plugin;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+// Classloader de un plugin: busca primero en su jar y después en los jars de los
+// plugins de los que depende, para que pueda usar sus clases.
+class PluginClassLoader extends URLClassLoader {
+
+    static {
+        ClassLoader.registerAsParallelCapable();
+    }
+
+    private final List<PluginClassLoader> dependencies;
+
+    PluginClassLoader(URL jar, ClassLoader parent, List<PluginClassLoader> dependencies) {
+        super(new URL[]{jar}, parent);
+        this.dependencies = dependencies;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        try {
+            return super.findClass(name);
+        } catch (ClassNotFoundException e) {
+            for (PluginClassLoader dependency : dependencies) {
+                try {
+                    return dependency.loadClass(name);
+                } catch (ClassNotFoundException ignored) {
+                    // Se prueba con la siguiente dependencia
+                }
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.egg.launcher.plugin;
+
+// Dependencias inválidas entre plugins: ciclos, dependencias ausentes o nombres duplicados
+class PluginDependencyException extends Exception {
+
+    PluginDependencyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,95 @@
+package com.egg.launcher.plugin;
+
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+
+// Datos de egg-plugin.yml de un jar: nombre, versión, clase principal y dependencias
+public class PluginDescriptor {
+
+    static final String DESCRIPTOR_FILE = "egg-plugin.yml";
+
+    private final File jarFile;
+    private final String name;
+    private final String version;
+    private final String mainClass;
+    private final List<String> depend;
+    private final List<String> softDepend;
+
+    PluginDescriptor(File jarFile, String name, String version, String mainClass, List<String> depend,
+                     List<String> softDepend) {
+        this.jarFile = jarFile;
+        this.name = name;
+        this.version = version;
+        this.mainClass = mainClass;
+        this.depend = depend;
+        this.softDepend = softDepend;
+    }
+
+    static PluginDescriptor read(File jarFile) throws IOException {
+        try (JarFile jar = new JarFile(jarFile)) {
+            ZipEntry entry = jar.getEntry(DESCRIPTOR_FILE);
+            if (entry == null) {
+                throw new IOException("El archivo '" + jarFile.getName() + "' no contiene '" + DESCRIPTOR_FILE + "'.");
+            }
+            Map<String, Object> config;
+            try (InputStream ymlStream = jar.getInputStream(entry)) {
+                config = new Yaml().load(ymlStream);
+            }
+            if (config == null || config.get("main") == null || config.get("name") == null) {
+                throw new IOException("'" + DESCRIPTOR_FILE + "' de '" + jarFile.getName() + "' no define 'name' y 'main'.");
+            }
+            return new PluginDescriptor(jarFile, config.get("name").toString(), String.valueOf(config.get("version")),
+                                        config.get("main").toString(), toList(config.get("depend")),
+                                        toList(config.get("softdepend")));
+        }
+    }
+
+    // Acepta tanto una lista YAML como un único nombre
+    private static List<String> toList(Object value) {
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        List<String> names = new ArrayList<>();
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                names.add(item.toString());
+            }
+        } else {
+            names.add(value.toString());
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    public File getJarFile() {
+        return jarFile;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getMainClass() {
+        return mainClass;
+    }
+
+    public List<String> getDepend() {
+        return depend;
+    }
+
+    public List<String> getSoftDepend() {
+        return softDepend;
+    }
+}
@@ -0,0 +1,110 @@
+package com.egg.launcher.plugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Grafo de dependencias entre plugins. Las "oleadas" agrupan los plugins cuyas
+// dependencias ya están en oleadas anteriores, así que los de una misma oleada
+// pueden cargarse y activarse en paralelo.
+class PluginGraph {
+
+    private PluginGraph() {
+    }
+
+    static List<List<PluginDescriptor>> waves(Collection<PluginDescriptor> descriptors) throws PluginDependencyException {
+        Map<String, PluginDescriptor> byName = new LinkedHashMap<>();
+        for (PluginDescriptor descriptor : descriptors) {
+            PluginDescriptor previous = byName.put(descriptor.getName(), descriptor);
+            if (previous != null) {
+                throw new PluginDependencyException("El plugin '" + descriptor.getName() + "' aparece en '"
+                        + previous.getJarFile().getName() + "' y en '" + descriptor.getJarFile().getName() + "'.");
+            }
+        }
+
+        // Aristas dependencia -> dependiente; softdepend solo cuenta si el plugin está presente
+        Map<String, List<String>> dependents = new HashMap<>();
+        Map<String, Integer> pending = new HashMap<>();
+        for (PluginDescriptor descriptor : byName.values()) {
+            int count = 0;
+            for (String dependency : descriptor.getDepend()) {
+                if (!byName.containsKey(dependency)) {
+                    throw new PluginDependencyException("El plugin '" + descriptor.getName()
+                            + "' depende de '" + dependency + "', que no esta instalado.");
+                }
+                dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(descriptor.getName());
+                count++;
+            }
+            for (String dependency : descriptor.getSoftDepend()) {
+                if (byName.containsKey(dependency) && !descriptor.getDepend().contains(dependency)) {
+                    dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(descriptor.getName());
+                    count++;
+                }
+            }
+            pending.put(descriptor.getName(), count);
+        }
+
+        List<List<PluginDescriptor>> waves = new ArrayList<>();
+        List<PluginDescriptor> current = new ArrayList<>();
+        for (PluginDescriptor descriptor : byName.values()) {
+            if (pending.get(descriptor.getName()) == 0) {
+                current.add(descriptor);
+            }
+        }
+        int placed = 0;
+        while (!current.isEmpty()) {
+            waves.add(current);
+            placed += current.size();
+            List<PluginDescriptor> next = new ArrayList<>();
+            for (PluginDescriptor descriptor : current) {
+                for (String dependent : dependents.getOrDefault(descriptor.getName(), List.of())) {
+                    if (pending.merge(dependent, -1, Integer::sum) == 0) {
+                        next.add(byName.get(dependent));
+                    }
+                }
+            }
+            current = next;
+        }
+
+        if (placed < byName.size()) {
+            throw new PluginDependencyException("Dependencia circular entre plugins: " + findCycle(byName, pending) + ".");
+        }
+        return waves;
+    }
+
+    // Recorre dependencias entre los plugins que quedaron sin colocar hasta repetir uno
+    private static String findCycle(Map<String, PluginDescriptor> byName, Map<String, Integer> pending) {
+        String start = null;
+        for (Map.Entry<String, Integer> entry : pending.entrySet()) {
+            if (entry.getValue() > 0) {
+                start = entry.getKey();
+                break;
+            }
+        }
+        List<String> path = new ArrayList<>();
+        String current = start;
+        while (current != null && !path.contains(current)) {
+            path.add(current);
+            String next = null;
+            PluginDescriptor descriptor = byName.get(current);
+            List<String> candidates = new ArrayList<>(descriptor.getDepend());
+            candidates.addAll(descriptor.getSoftDepend());
+            for (String dependency : candidates) {
+                if (pending.getOrDefault(dependency, 0) > 0) {
+                    next = dependency;
+                    break;
+                }
+            }
+            current = next;
+        }
+        if (current == null) {
+            return String.join(" -> ", path);
+        }
+        List<String> cycle = new ArrayList<>(path.subList(path.indexOf(current), path.size()));
+        cycle.add(current);
+        return String.join(" -> ", cycle);
+    }
+}
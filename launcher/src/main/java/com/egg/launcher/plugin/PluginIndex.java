@@ -0,0 +1,145 @@
+package com.egg.launcher.plugin;
+
+import com.egg.launcher.index.IndexFiles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Índice binario de descriptores de plugins: mientras un jar conserve su ruta,
+// tamaño, fecha de modificación e inodo, se reutiliza su egg-plugin.yml ya
+// interpretado sin abrir el jar ni crear un parser YAML.
+class PluginIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PluginIndex.class);
+    private static final int MAGIC = 0x45474750; // "EGGP"
+    private static final int VERSION = 1;
+
+    private final Path indexFile;
+    private final Map<String, Entry> entries;
+
+    private PluginIndex(Path indexFile, Map<String, Entry> entries) {
+        this.indexFile = indexFile;
+        this.entries = entries;
+    }
+
+    static PluginIndex load(Path indexFile) {
+        Map<String, Entry> entries = new ConcurrentHashMap<>();
+        if (Files.exists(indexFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    logger.warn("El indice de plugins '{}' tiene un formato desconocido. Se reconstruira.", indexFile);
+                    return new PluginIndex(indexFile, entries);
+                }
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String path = in.readUTF();
+                    long size = in.readLong();
+                    long modifiedNanos = in.readLong();
+                    String fileKey = in.readUTF();
+                    String name = in.readUTF();
+                    String version = in.readUTF();
+                    String mainClass = in.readUTF();
+                    List<String> depend = readList(in);
+                    List<String> softDepend = readList(in);
+                    PluginDescriptor descriptor = new PluginDescriptor(new File(path), name, version, mainClass,
+                                                                       depend, softDepend);
+                    entries.put(path, new Entry(size, modifiedNanos, fileKey, descriptor));
+                }
+            } catch (IOException e) {
+                logger.warn("No se pudo leer el indice de plugins '{}'. Se reconstruira.", indexFile, e);
+                entries.clear();
+            }
+        }
+        return new PluginIndex(indexFile, entries);
+    }
+
+    // Devuelve el descriptor guardado si el jar no cambió, o null si hay que leerlo
+    PluginDescriptor lookup(File jarFile, BasicFileAttributes attrs) {
+        Entry entry = entries.get(key(jarFile));
+        if (entry != null && IndexFiles.unchanged(entry.size, entry.modifiedNanos, entry.fileKey, attrs)) {
+            return entry.descriptor;
+        }
+        return null;
+    }
+
+    void put(File jarFile, BasicFileAttributes attrs, PluginDescriptor descriptor) {
+        entries.put(key(jarFile), new Entry(attrs.size(), IndexFiles.modifiedNanos(attrs),
+                                            IndexFiles.fileKey(attrs), descriptor));
+    }
+
+    // Elimina los jars que ya no están y guarda el índice de forma atómica
+    void save(Set<String> seenJars) {
+        entries.keySet().retainAll(seenJars);
+        try {
+            IndexFiles.writeAtomically(indexFile, MAGIC, VERSION, out -> {
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> item : entries.entrySet()) {
+                    Entry entry = item.getValue();
+                    PluginDescriptor descriptor = entry.descriptor;
+                    out.writeUTF(item.getKey());
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.modifiedNanos);
+                    out.writeUTF(entry.fileKey);
+                    out.writeUTF(descriptor.getName());
+                    out.writeUTF(descriptor.getVersion());
+                    out.writeUTF(descriptor.getMainClass());
+                    writeList(out, descriptor.getDepend());
+                    writeList(out, descriptor.getSoftDepend());
+                }
+            });
+        } catch (IOException e) {
+            logger.error("No se pudo guardar el indice de plugins '{}'.", indexFile, e);
+        }
+    }
+
+    static String key(File jarFile) {
+        return jarFile.toPath().toAbsolutePath().normalize().toString();
+    }
+
+    private static List<String> readList(DataInputStream in) throws IOException {
+        int count = in.readShort();
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(in.readUTF());
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    private static void writeList(DataOutputStream out, List<String> values) throws IOException {
+        out.writeShort(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static class Entry {
+        final long size;
+        final long modifiedNanos;
+        final String fileKey;
+        final PluginDescriptor descriptor;
+
+        Entry(long size, long modifiedNanos, String fileKey, PluginDescriptor descriptor) {
+            this.size = size;
+            this.modifiedNanos = modifiedNanos;
+            this.fileKey = fileKey;
+            this.descriptor = descriptor;
+        }
+    }
+}
@@ -1,91 +1,543 @@
 package com.egg.launcher.plugin;
 
+import com.egg.launcher.config.LauncherConfig;
+import com.egg.launcher.runtime.LauncherRuntime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.yaml.snakeyaml.Yaml;
 
 import java.io.File;
-import java.io.InputStream;
-import java.net.URL;
-import java.net.URLClassLoader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.jar.JarFile;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class PluginManager {
 
     private static final Logger logger = LoggerFactory.getLogger(PluginManager.class);
-    private final List<EggPlugin> loadedPlugins = new ArrayList<>();
+    // En orden de activación; se desactivan en orden inverso
+    private final List<LoadedPlugin> loadedPlugins = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, LoadedPlugin> pluginsByName = new HashMap<>();
+    private final File pluginDir;
+    private final Path indexFile;
+    private final EventBus eventBus = EventBus.create();
+    private final List<List<PluginDescriptor>> waves = new ArrayList<>();
+    private final ClassLoaderLeakDetector leakDetector = new ClassLoaderLeakDetector();
+    // Dependientes descargados porque su dependencia desapareció; vuelven cuando reaparece.
+    // Solo se usa desde onJarChanged()
+    private final Map<String, PluginDescriptor> waitingForDependency = new LinkedHashMap<>();
+    private PluginWatcher watcher;
+    private long totalNanos;
+    private long discoveryNanos;
+    private int discoveryHits;
+    private int discoveryMisses;
 
-    public void loadPlugins() {
-        logger.info("Cargando EGG Plugins desde el directorio '/egg_plugins'...");
-        File pluginDir = new File("egg_plugins");
+    public PluginManager() {
+        this(new File("egg_plugins"));
+    }
+
+    public PluginManager(File pluginDir) {
+        this(pluginDir, Paths.get("cache", "plugin-index.bin"));
+    }
+
+    public PluginManager(File pluginDir, Path indexFile) {
+        this.pluginDir = pluginDir;
+        this.indexFile = indexFile;
+    }
+
+    // Devuelve false si las dependencias entre plugins son inválidas; en ese caso no se carga ninguno
+    public boolean loadPlugins() {
+        logger.info("Cargando EGG Plugins desde el directorio '{}'...", pluginDir.getPath());
 
         if (!pluginDir.exists() || !pluginDir.isDirectory()) {
-            logger.warn("El directorio '/egg_plugins' no existe.");
-            return;
+            logger.warn("El directorio '{}' no existe.", pluginDir.getPath());
+            return true;
         }
 
         File[] pluginJars = pluginDir.listFiles((dir, name) -> name.endsWith(".jar"));
-        if (pluginJars == null) return;
+        if (pluginJars == null || pluginJars.length == 0) return true;
+        Arrays.sort(pluginJars);
 
-        for (File jarFile : pluginJars) {
-            loadPlugin(jarFile);
+        long start = System.nanoTime();
+        ExecutorService pool = newPool(pluginJars.length);
+        try {
+            // 1. Descubrir los plugins: desde el índice si el jar no cambió, si no leyendo su egg-plugin.yml
+            List<PluginDescriptor> descriptors = discover(pluginJars, pool);
+
+            // 2. Ordenar por dependencias; un ciclo o una dependencia ausente detiene la carga
+            try {
+                waves.addAll(PluginGraph.waves(descriptors));
+            } catch (PluginDependencyException e) {
+                logger.error("No se pueden cargar los EGG Plugins: {}", e.getMessage());
+                return false;
+            }
+
+            // 3. Cargar y activar oleada por oleada; dentro de cada una, en paralelo
+            for (int i = 0; i < waves.size(); i++) {
+                List<PluginDescriptor> wave = waves.get(i);
+                logger.debug("Oleada {} de plugins: {}", i + 1, names(wave));
+                List<LoadedPlugin> loaded = runAll(pool, wave, this::loadPlugin);
+                runAll(pool, loaded, this::enablePlugin);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Carga de plugins interrumpida.");
+        } finally {
+            pool.shutdownNow();
+            totalNanos = System.nanoTime() - start;
         }
 
-        logger.info("Se cargaron {} EGG Plugins.", loadedPlugins.size());
-        enablePlugins();
+        logger.info("Se cargaron {} EGG Plugins en {} ms ({} oleadas).", loadedPlugins.size(),
+                    TimeUnit.NANOSECONDS.toMillis(totalNanos), waves.size());
+        return true;
     }
 
-    private void loadPlugin(File jarFile) {
-        try (JarFile jar = new JarFile(jarFile)) {
-            // 1. Leer egg-plugin.yml
-            InputStream ymlStream = jar.getInputStream(jar.getEntry("egg-plugin.yml"));
-            if (ymlStream == null) {
-                logger.error("El archivo '{}' no contiene 'egg-plugin.yml'.", jarFile.getName());
-                return;
+    private List<PluginDescriptor> discover(File[] pluginJars, ExecutorService pool) throws InterruptedException {
+        long start = System.nanoTime();
+        discoveryHits = 0;
+        discoveryMisses = 0;
+        PluginIndex index = PluginIndex.load(indexFile);
+        Set<String> seenJars = new HashSet<>();
+        List<Future<PluginDescriptor>> reads = new ArrayList<>();
+        for (File jarFile : pluginJars) {
+            seenJars.add(PluginIndex.key(jarFile));
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(jarFile.toPath(), BasicFileAttributes.class);
+            } catch (IOException e) {
+                logger.error("No se pudieron leer los atributos del plugin '{}'.", jarFile.getName(), e);
+                reads.add(null);
+                continue;
+            }
+            PluginDescriptor cached = index.lookup(jarFile, attrs);
+            if (cached != null) {
+                discoveryHits++;
+                reads.add(CompletableFuture.completedFuture(cached));
+                continue;
+            }
+            discoveryMisses++;
+            reads.add(pool.submit(() -> {
+                PluginDescriptor descriptor = PluginDescriptor.read(jarFile);
+                index.put(jarFile, attrs, descriptor);
+                return descriptor;
+            }));
+        }
+
+        List<PluginDescriptor> descriptors = new ArrayList<>();
+        for (int i = 0; i < reads.size(); i++) {
+            if (reads.get(i) == null) {
+                continue;
+            }
+            try {
+                descriptors.add(reads.get(i).get());
+            } catch (ExecutionException e) {
+                logger.error("Error al leer el plugin '{}'.", pluginJars[i].getName(), e.getCause());
             }
+        }
+        if (discoveryMisses > 0) {
+            index.save(seenJars);
+        }
+        discoveryNanos = System.nanoTime() - start;
+        logger.info("Descubrimiento de plugins {}: {} ms ({} desde el indice, {} leidos del jar).", discoveryKind(),
+                    TimeUnit.NANOSECONDS.toMillis(discoveryNanos), discoveryHits, discoveryMisses);
+        return descriptors;
+    }
 
-            Yaml yaml = new Yaml();
-            Map<String, Object> config = yaml.load(ymlStream);
-            String mainClass = (String) config.get("main");
-            String name = (String) config.get("name");
+    // "en caliente" si todo salió del índice, "en frio" si hubo que abrir todos los jars
+    private String discoveryKind() {
+        if (discoveryMisses == 0) {
+            return "en caliente";
+        }
+        return discoveryHits == 0 ? "en frio" : "mixto";
+    }
+
+    public long getDiscoveryNanos() {
+        return discoveryNanos;
+    }
 
-            logger.info("Cargando plugin: {} (main: {})", name, mainClass);
+    public int getDiscoveryCacheHits() {
+        return discoveryHits;
+    }
 
-            // 2. Cargar la clase principal
-            URLClassLoader classLoader = new URLClassLoader(new URL[]{jarFile.toURI().toURL()}, getClass().getClassLoader());
-            Class<?> pluginClass = Class.forName(mainClass, true, classLoader);
+    public int getDiscoveryCacheMisses() {
+        return discoveryMisses;
+    }
 
-            // 3. Instanciar y guardar el plugin
+    private LoadedPlugin loadPlugin(PluginDescriptor descriptor) throws Exception {
+        long start = System.nanoTime();
+        List<PluginClassLoader> dependencies = new ArrayList<>();
+        List<String> required = new ArrayList<>(descriptor.getDepend());
+        required.addAll(descriptor.getSoftDepend());
+        for (String dependency : required) {
+            LoadedPlugin loaded;
+            synchronized (pluginsByName) {
+                loaded = pluginsByName.get(dependency);
+            }
+            if (loaded != null) {
+                dependencies.add(loaded.classLoader);
+            } else if (descriptor.getDepend().contains(dependency)) {
+                logger.error("No se carga el plugin '{}': su dependencia '{}' no se pudo activar.", descriptor.getName(), dependency);
+                return null;
+            }
+        }
+
+        logger.info("Cargando plugin: {} (main: {})", descriptor.getName(), descriptor.getMainClass());
+        PluginClassLoader classLoader = new PluginClassLoader(descriptor.getJarFile().toURI().toURL(),
+                                                              getClass().getClassLoader(), dependencies);
+        try {
+            Class<?> pluginClass = Class.forName(descriptor.getMainClass(), true, classLoader);
             EggPlugin plugin = (EggPlugin) pluginClass.getDeclaredConstructor().newInstance();
-            loadedPlugins.add(plugin);
+            return new LoadedPlugin(descriptor, classLoader, plugin, System.nanoTime() - start);
+        } catch (Exception | LinkageError e) {
+            classLoader.close();
+            throw e;
+        }
+    }
 
+    private LoadedPlugin enablePlugin(LoadedPlugin plugin) {
+        long start = System.nanoTime();
+        try {
+            plugin.instance.registerListeners(eventBus);
+            plugin.instance.onEnable();
+            plugin.enabled = true;
         } catch (Exception e) {
-            logger.error("Error al cargar el plugin '{}'.", jarFile.getName(), e);
+            logger.error("Error al activar el plugin '{}'.", plugin.descriptor.getName(), e);
+            eventBus.unregister(plugin.instance);
+        }
+        plugin.enableNanos = System.nanoTime() - start;
+        loadedPlugins.add(plugin);
+        if (plugin.enabled) {
+            synchronized (pluginsByName) {
+                pluginsByName.put(plugin.descriptor.getName(), plugin);
+            }
+        }
+        return plugin;
+    }
+
+    // Recarga en caliente: vigila egg_plugins y aplica los cambios sin tocar el proceso del servidor
+    public void startWatching() {
+        if (!LauncherConfig.getBoolean("plugins.hotReload", true) || !pluginDir.isDirectory()) {
+            return;
+        }
+        try {
+            watcher = new PluginWatcher(pluginDir.toPath(), this::onJarChanged);
+            watcher.start();
+        } catch (IOException e) {
+            logger.error("No se pudo vigilar el directorio '{}'. La recarga en caliente queda desactivada.", pluginDir.getPath(), e);
+        }
+    }
+
+    synchronized void onJarChanged(File jarFile) {
+        LoadedPlugin current = findByJar(jarFile);
+        waitingForDependency.values().removeIf(waiting -> waiting.getJarFile().getName().equals(jarFile.getName()));
+        if (!jarFile.exists()) {
+            if (current != null) {
+                logger.info("El jar '{}' se elimino. Descargando '{}'...", jarFile.getName(), current.descriptor.getName());
+                // Los dependientes vuelven si sus dependencias obligatorias siguen cargadas; los
+                // que solo lo tenían como softdepend, siempre
+                List<LoadedPlugin> affected = unloadWithDependents(current);
+                for (LoadedPlugin dependent : affected.subList(1, affected.size())) {
+                    loadAndEnable(dependent.descriptor);
+                }
+            }
+            return;
+        }
+
+        PluginDescriptor descriptor;
+        try {
+            descriptor = PluginDescriptor.read(jarFile);
+        } catch (IOException | RuntimeException e) {
+            logger.error("No se pudo leer el plugin '{}'. Se mantiene la version en ejecucion.", jarFile.getName(), e);
+            return;
+        }
+
+        // Un jar nuevo con el nombre de un plugin cargado es una versión nueva de ese plugin
+        // (foo-1.0.jar -> foo-1.1.jar): se recarga en lugar de activar un segundo 'foo'
+        if (current == null) {
+            current = findByName(descriptor.getName());
+            if (current != null) {
+                logger.info("'{}' es una nueva version de '{}' (antes en '{}').", jarFile.getName(), descriptor.getName(),
+                            current.descriptor.getJarFile().getName());
+            }
+        }
+
+        long start = System.nanoTime();
+        List<PluginDescriptor> toLoad = new ArrayList<>();
+        toLoad.add(descriptor);
+        if (current != null) {
+            logger.info("Recargando el plugin '{}' desde '{}'...", current.descriptor.getName(), jarFile.getName());
+            // Los dependientes usan clases del classloader viejo, así que también se recargan
+            for (LoadedPlugin dependent : unloadWithDependents(current)) {
+                if (dependent != current) {
+                    toLoad.add(dependent.descriptor);
+                }
+            }
+        } else {
+            logger.info("Nuevo plugin detectado: '{}'.", jarFile.getName());
+        }
+
+        for (PluginDescriptor pluginDescriptor : toLoad) {
+            loadAndEnable(pluginDescriptor);
+        }
+        retryWaiting();
+        logger.info("Recarga de '{}' completada en {} ms.", descriptor.getName(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // Si falta una dependencia obligatoria, el plugin queda en espera hasta que aparezca
+    private boolean loadAndEnable(PluginDescriptor descriptor) {
+        try {
+            LoadedPlugin loaded = loadPlugin(descriptor);
+            if (loaded == null) {
+                waitingForDependency.put(descriptor.getName(), descriptor);
+                logger.info("'{}' queda descargado hasta que vuelvan sus dependencias {}.", descriptor.getName(),
+                            descriptor.getDepend());
+                return false;
+            }
+            return enablePlugin(loaded).enabled;
+        } catch (Exception | LinkageError e) {
+            logger.error("Error al cargar el plugin '{}'.", descriptor.getName(), e);
+            return false;
         }
     }
 
-    private void enablePlugins() {
-        logger.info("Activando {} EGG Plugins...", loadedPlugins.size());
-        for (EggPlugin plugin : loadedPlugins) {
+    // Carga los plugins en espera cuyas dependencias ya están; uno puede desbloquear a otro
+    private void retryWaiting() {
+        boolean progress = true;
+        while (progress && !waitingForDependency.isEmpty()) {
+            progress = false;
+            for (PluginDescriptor waiting : new ArrayList<>(waitingForDependency.values())) {
+                if (!dependenciesLoaded(waiting)) {
+                    continue;
+                }
+                waitingForDependency.remove(waiting.getName());
+                if (waiting.getJarFile().exists()) {
+                    logger.info("Sus dependencias han vuelto: se carga de nuevo '{}'.", waiting.getName());
+                    progress |= loadAndEnable(waiting);
+                }
+            }
+        }
+    }
+
+    private boolean dependenciesLoaded(PluginDescriptor descriptor) {
+        synchronized (pluginsByName) {
+            return pluginsByName.keySet().containsAll(descriptor.getDepend());
+        }
+    }
+
+    // Descarga el plugin y, antes, todos los que dependen de él; devuelve los descargados en orden de activación
+    private List<LoadedPlugin> unloadWithDependents(LoadedPlugin root) {
+        List<LoadedPlugin> affected = new ArrayList<>();
+        affected.add(root);
+        synchronized (loadedPlugins) {
+            for (LoadedPlugin plugin : loadedPlugins) {
+                if (plugin != root && dependsOnAny(plugin, affected)) {
+                    affected.add(plugin);
+                }
+            }
+        }
+        if (affected.size() > 1) {
+            logger.info("Tambien se descargan sus dependientes: {}", names(descriptorsOf(affected.subList(1, affected.size()))));
+        }
+        for (int i = affected.size() - 1; i >= 0; i--) {
+            unload(affected.get(i));
+        }
+        return affected;
+    }
+
+    private void unload(LoadedPlugin plugin) {
+        String name = plugin.descriptor.getName();
+        loadedPlugins.remove(plugin);
+        synchronized (pluginsByName) {
+            pluginsByName.remove(name, plugin);
+        }
+        eventBus.unregister(plugin.instance);
+        if (plugin.enabled) {
             try {
-                plugin.onEnable();
+                plugin.instance.onDisable();
             } catch (Exception e) {
-                logger.error("Error al activar el plugin '{}'.", plugin.getClass().getSimpleName(), e);
+                logger.error("Error al desactivar el plugin '{}'.", name, e);
+            }
+        }
+        try {
+            plugin.classLoader.close();
+        } catch (IOException e) {
+            logger.warn("No se pudo cerrar el classloader de '{}'.", name, e);
+        }
+        leakDetector.track(name, plugin.classLoader);
+    }
+
+    private static boolean dependsOnAny(LoadedPlugin plugin, List<LoadedPlugin> candidates) {
+        for (LoadedPlugin candidate : candidates) {
+            String name = candidate.descriptor.getName();
+            if (plugin.descriptor.getDepend().contains(name) || plugin.descriptor.getSoftDepend().contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private LoadedPlugin findByName(String name) {
+        synchronized (loadedPlugins) {
+            for (LoadedPlugin plugin : loadedPlugins) {
+                if (plugin.descriptor.getName().equals(name)) {
+                    return plugin;
+                }
+            }
+        }
+        return null;
+    }
+
+    private LoadedPlugin findByJar(File jarFile) {
+        synchronized (loadedPlugins) {
+            for (LoadedPlugin plugin : loadedPlugins) {
+                if (plugin.descriptor.getJarFile().getName().equals(jarFile.getName())) {
+                    return plugin;
+                }
             }
         }
+        return null;
     }
 
-    public void disablePlugins() {
-        logger.info("Desactivando {} EGG Plugins...", loadedPlugins.size());
-        for (EggPlugin plugin : loadedPlugins) {
+    public synchronized void disablePlugins() {
+        if (watcher != null) {
+            watcher.close();
+        }
+        List<LoadedPlugin> plugins;
+        synchronized (loadedPlugins) {
+            plugins = new ArrayList<>(loadedPlugins);
+        }
+        Collections.reverse(plugins);
+        logger.info("Desactivando {} EGG Plugins...", plugins.size());
+        for (LoadedPlugin plugin : plugins) {
+            if (!plugin.enabled) {
+                continue;
+            }
             try {
-                plugin.onDisable();
+                eventBus.unregister(plugin.instance);
+                plugin.instance.onDisable();
             } catch (Exception e) {
-                logger.error("Error al desactivar el plugin '{}'.", plugin.getClass().getSimpleName(), e);
+                logger.error("Error al desactivar el plugin '{}'.", plugin.descriptor.getName(), e);
             }
         }
+        eventBus.close();
+        leakDetector.close();
+    }
+
+    // Añade al reporte de arranque los tiempos de carga y activación de cada plugin
+    public void appendToReport(Path reportFile) {
+        if (reportFile == null || waves.isEmpty()) {
+            return;
+        }
+        Map<String, LoadedPlugin> byName = new HashMap<>();
+        synchronized (loadedPlugins) {
+            for (LoadedPlugin plugin : loadedPlugins) {
+                byName.put(plugin.descriptor.getName(), plugin);
+            }
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append("--- Carga de EGG Plugins ---\n");
+        report.append("Descubrimiento ").append(discoveryKind()).append(": ")
+              .append(TimeUnit.NANOSECONDS.toMillis(discoveryNanos)).append(" ms (").append(discoveryHits)
+              .append(" desde el indice, ").append(discoveryMisses).append(" leidos del jar)\n");
+        for (int i = 0; i < waves.size(); i++) {
+            report.append("Oleada ").append(i + 1).append(": ").append(names(waves.get(i))).append("\n");
+            for (PluginDescriptor descriptor : waves.get(i)) {
+                LoadedPlugin plugin = byName.get(descriptor.getName());
+                report.append("  ").append(descriptor.getName()).append(" ").append(descriptor.getVersion()).append(": ");
+                if (plugin == null) {
+                    report.append("no cargado\n");
+                    continue;
+                }
+                report.append("carga ").append(TimeUnit.NANOSECONDS.toMillis(plugin.loadNanos)).append(" ms, activacion ")
+                      .append(TimeUnit.NANOSECONDS.toMillis(plugin.enableNanos)).append(" ms")
+                      .append(plugin.enabled ? "" : " (fallo)").append("\n");
+            }
+        }
+        report.append("Total: ").append(TimeUnit.NANOSECONDS.toMillis(totalNanos)).append(" ms\n");
+
+        try {
+            Files.write(reportFile, report.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.error("No se pudieron añadir los tiempos de los plugins al reporte '{}'.", reportFile, e);
+        }
+    }
+
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    private interface PluginTask<T, R> {
+        R run(T input) throws Exception;
+    }
+
+    // Ejecuta la tarea para todos los elementos en paralelo y devuelve los resultados no nulos
+    private static <T, R> List<R> runAll(ExecutorService pool, List<T> inputs, PluginTask<T, R> task)
+            throws InterruptedException {
+        List<Future<R>> futures = new ArrayList<>();
+        for (T input : inputs) {
+            futures.add(pool.submit((Callable<R>) () -> task.run(input)));
+        }
+        List<R> results = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                R result = futures.get(i).get();
+                if (result != null) {
+                    results.add(result);
+                }
+            } catch (ExecutionException e) {
+                logger.error("Error al cargar el plugin '{}'.", describe(inputs.get(i)), e.getCause());
+            }
+        }
+        return results;
+    }
+
+    private static ExecutorService newPool(int plugins) {
+        int threads = Math.max(1, Math.min(plugins, Runtime.getRuntime().availableProcessors()));
+        return LauncherRuntime.root().newPool("egg-plugins", threads);
+    }
+
+    private static String describe(Object input) {
+        if (input instanceof PluginDescriptor) {
+            return ((PluginDescriptor) input).getName();
+        }
+        if (input instanceof LoadedPlugin) {
+            return ((LoadedPlugin) input).descriptor.getName();
+        }
+        return String.valueOf(input);
+    }
+
+    private static List<PluginDescriptor> descriptorsOf(List<LoadedPlugin> plugins) {
+        List<PluginDescriptor> descriptors = new ArrayList<>();
+        for (LoadedPlugin plugin : plugins) {
+            descriptors.add(plugin.descriptor);
+        }
+        return descriptors;
+    }
+
+    private static String names(List<PluginDescriptor> descriptors) {
+        List<String> names = new ArrayList<>();
+        for (PluginDescriptor descriptor : descriptors) {
+            names.add(descriptor.getName());
+        }
+        return String.join(", ", names);
     }
 }
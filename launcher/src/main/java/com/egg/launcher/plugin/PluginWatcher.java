@@ -0,0 +1,90 @@
+package com.egg.launcher.plugin;
+
+import com.egg.launcher.runtime.LauncherRuntime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Vigila el directorio de plugins y avisa de los jars creados, modificados o
+// borrados. Espera a que el directorio quede quieto un momento para no recargar
+// un jar a medio copiar.
+class PluginWatcher implements Runnable, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PluginWatcher.class);
+    private static final long QUIET_MILLIS = 1000;
+
+    private final Path directory;
+    private final Consumer<File> onChange;
+    private final WatchService watchService;
+
+    PluginWatcher(Path directory, Consumer<File> onChange) throws IOException {
+        this.directory = directory;
+        this.onChange = onChange;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                           StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    void start() {
+        LauncherRuntime.root().fork("egg-plugin-watcher", this);
+        logger.info("Recarga en caliente de plugins activada en '{}'.", directory);
+    }
+
+    @Override
+    public void run() {
+        Set<String> changed = new LinkedHashSet<>();
+        try {
+            while (true) {
+                WatchKey key = changed.isEmpty() ? watchService.take() : watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    for (String name : changed) {
+                        notifyChange(directory.resolve(name).toFile());
+                    }
+                    changed.clear();
+                    continue;
+                }
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    Object context = event.context();
+                    if (context instanceof Path && context.toString().endsWith(".jar")) {
+                        changed.add(context.toString());
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Se cerró el watcher al apagar el launcher
+        }
+    }
+
+    private void notifyChange(File jarFile) {
+        try {
+            onChange.accept(jarFile);
+        } catch (RuntimeException e) {
+            logger.error("Error al recargar el plugin '{}'.", jarFile.getName(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.debug("Error al cerrar el watcher de plugins.", e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.egg.launcher.plugin.event;
+
+public class ChunkStatsEvent extends EggEvent {
+
+    private final int dimension;
+    private final int loadedChunks;
+    private final int entities;
+
+    public ChunkStatsEvent(long timestamp, int dimension, int loadedChunks, int entities) {
+        super(timestamp);
+        this.dimension = dimension;
+        this.loadedChunks = loadedChunks;
+        this.entities = entities;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public int getLoadedChunks() {
+        return loadedChunks;
+    }
+
+    public int getEntities() {
+        return entities;
+    }
+}
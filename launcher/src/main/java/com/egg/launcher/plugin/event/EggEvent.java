@@ -0,0 +1,16 @@
+package com.egg.launcher.plugin.event;
+
+// Base de todos los eventos que se entregan a los plugins a través del EventBus
+public abstract class EggEvent {
+
+    private final long timestamp;
+
+    protected EggEvent(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    // Momento en que el core mod generó el evento (ms desde epoch)
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,17 @@
+package com.egg.launcher.plugin.event;
+
+import java.util.UUID;
+
+public class PlayerJoinEvent extends EggEvent {
+
+    private final UUID playerId;
+
+    public PlayerJoinEvent(long timestamp, UUID playerId) {
+        super(timestamp);
+        this.playerId = playerId;
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+}
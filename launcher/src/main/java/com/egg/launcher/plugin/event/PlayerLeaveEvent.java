@@ -0,0 +1,17 @@
+package com.egg.launcher.plugin.event;
+
+import java.util.UUID;
+
+public class PlayerLeaveEvent extends EggEvent {
+
+    private final UUID playerId;
+
+    public PlayerLeaveEvent(long timestamp, UUID playerId) {
+        super(timestamp);
+        this.playerId = playerId;
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+}
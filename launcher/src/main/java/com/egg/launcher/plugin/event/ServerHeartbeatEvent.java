@@ -0,0 +1,8 @@
+package com.egg.launcher.plugin.event;
+
+public class ServerHeartbeatEvent extends EggEvent {
+
+    public ServerHeartbeatEvent(long timestamp) {
+        super(timestamp);
+    }
+}
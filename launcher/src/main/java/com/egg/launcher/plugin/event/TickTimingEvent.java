@@ -0,0 +1,21 @@
+package com.egg.launcher.plugin.event;
+
+public class TickTimingEvent extends EggEvent {
+
+    private final int dimension;
+    private final long tickNanos;
+
+    public TickTimingEvent(long timestamp, int dimension, long tickNanos) {
+        super(timestamp);
+        this.dimension = dimension;
+        this.tickNanos = tickNanos;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+}
@@ -0,0 +1,55 @@
+package com.egg.launcher.restart;
+
+import com.egg.launcher.ServerConsole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+// Detiene el proceso del servidor de menos a más brusco: "stop" por la consola (guarda
+// el mundo), SIGTERM (la JVM ejecuta sus shutdown hooks, Forge también guarda) y por
+// último SIGKILL. Cada paso tiene su tiempo máximo; el resultado indica cuál bastó.
+public final class GracefulStop {
+
+    private static final Logger logger = LoggerFactory.getLogger(GracefulStop.class);
+
+    public enum Outcome { ALREADY_EXITED, CONSOLE, TERM, KILL, STILL_ALIVE }
+
+    private GracefulStop() {
+    }
+
+    public static Outcome stop(Process process, ServerConsole console, long consoleMillis, long termMillis, long killMillis)
+            throws InterruptedException {
+        if (!process.isAlive()) {
+            return Outcome.ALREADY_EXITED;
+        }
+        long pid = process.pid();
+
+        if (console != null && consoleMillis > 0 && console.sendCommand("stop")) {
+            if (process.waitFor(consoleMillis, TimeUnit.MILLISECONDS)) {
+                logger.info("El servidor (PID {}) se detuvo con 'stop'.", pid);
+                return Outcome.CONSOLE;
+            }
+            logger.warn("El servidor (PID {}) no se detuvo con 'stop' en {} ms.", pid, consoleMillis);
+        }
+
+        // En Windows no hay terminación ordenada: destroy() ya es forzado
+        if (process.supportsNormalTermination()) {
+            logger.warn("Enviando SIGTERM al servidor (PID {})...", pid);
+            process.destroy();
+            if (process.waitFor(termMillis, TimeUnit.MILLISECONDS)) {
+                logger.info("El servidor (PID {}) se detuvo con SIGTERM.", pid);
+                return Outcome.TERM;
+            }
+            logger.warn("El servidor (PID {}) sigue vivo {} ms despues de SIGTERM.", pid, termMillis);
+        }
+
+        logger.error("Forzando la terminacion del servidor (PID {})...", pid);
+        process.destroyForcibly();
+        if (process.waitFor(killMillis, TimeUnit.MILLISECONDS)) {
+            return Outcome.KILL;
+        }
+        logger.error("¡El servidor (PID {}) sigue vivo tras forzar su terminacion!", pid);
+        return Outcome.STILL_ALIVE;
+    }
+}
@@ -0,0 +1,315 @@
+package com.egg.launcher.restart;
+
+import com.egg.launcher.config.ConfigView;
+import com.egg.launcher.jvm.HostResources;
+import com.egg.launcher.jvm.LaunchProfile;
+import com.egg.launcher.runtime.TaskScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Ciclo de vida del proceso del servidor. Un hilo lanza el servidor y espera a que
+// termine; un reinicio lo detiene por fases (GracefulStop) en otro hilo y, cuando el
+// proceso ha terminado, espera a que el puerto y el session.lock queden libres antes
+// de lanzar el siguiente, para no competir con el anterior por el mundo. Con
+// restart.standby se mantiene además una JVM de reserva ya arrancada que sustituye al
+// lanzamiento en frío. El tiempo sin servicio de cada reinicio va a RestartStats.
+public class RestartOrchestrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestartOrchestrator.class);
+    private static final long MB = 1024L * 1024;
+    private static final long STANDBY_RESERVE = 1536 * MB;
+
+    private final ServerHost host;
+    private final Path serverDir;
+    private final ConfigView config;
+    private final boolean standbyEnabled;
+    private final long stopMillis;
+    private final long frozenStopMillis;
+    private final long termMillis;
+    private final long killMillis;
+    private final long releaseMillis;
+    private final RestartStats stats;
+    private final TaskScope scope;
+
+    private final Object lock = new Object();
+    private Process current;
+    private RestartRecord stopping;
+    private RestartRecord awaitingHeartbeat;
+    private Thread stopThread;
+    private StandbyServer standby;
+    private boolean standbyStarting;
+    private boolean shuttingDown;
+
+    // baseDir: directorio de la instancia, con server/ dentro; scope: el de la instancia
+    RestartOrchestrator(ServerHost host, Path baseDir, ConfigView config, boolean standbyEnabled, TaskScope scope) {
+        this.host = host;
+        this.serverDir = baseDir.resolve("server");
+        this.config = config;
+        this.standbyEnabled = standbyEnabled;
+        this.stopMillis = config.getLong("restart.stopTimeoutSeconds", 60) * 1000;
+        this.frozenStopMillis = config.getLong("restart.frozenStopTimeoutSeconds", 10) * 1000;
+        this.termMillis = config.getLong("restart.termTimeoutSeconds", 30) * 1000;
+        this.killMillis = config.getLong("restart.killTimeoutSeconds", 10) * 1000;
+        this.releaseMillis = config.getLong("restart.releaseTimeoutSeconds", 30) * 1000;
+        this.stats = new RestartStats(baseDir.resolve("reports").resolve("restarts.tsv"));
+        this.scope = scope;
+    }
+
+    public static RestartOrchestrator create(ServerHost host, Path baseDir, HostResources resources, LaunchProfile profile,
+                                             ConfigView config, TaskScope scope) {
+        boolean standby = config.getBoolean("restart.standby", false);
+        if (standby) {
+            int required = StandbyServer.requiredJavaVersion();
+            long needed = 2 * profile.getHeapBytes() + STANDBY_RESERVE;
+            if (profile.getJava().getMajorVersion() < required) {
+                logger.warn("JVM de reserva desactivada: requiere Java {} en el servidor y hay Java {}.", required,
+                            profile.getJava().getMajorVersion());
+                standby = false;
+            } else if (resources.getEffectiveMemory() < needed) {
+                logger.warn("JVM de reserva desactivada: con dos heaps de {} MB harian falta {} MB y hay {} MB efectivos.",
+                            profile.getHeapBytes() / MB, needed / MB, resources.getEffectiveMemory() / MB);
+                standby = false;
+            } else {
+                logger.info("JVM de reserva activada: los reinicios usaran una JVM ya arrancada.");
+            }
+        }
+        return new RestartOrchestrator(host, baseDir, config, standby, scope);
+    }
+
+    // Lanza el servidor por primera vez; el hilo sigue vivo mientras haya un servidor en marcha
+    public void start() {
+        scope.forkForeground(config.threadName("egg-server"), this::run);
+    }
+
+    // unavailableSince > 0: el servidor ya no responde desde entonces (congelado), así que
+    // "stop" por consola solo tiene una espera corta antes de pasar a las señales
+    public boolean restart(String reason, long unavailableSince) {
+        synchronized (lock) {
+            if (stopping != null) {
+                logger.warn("Ya hay un reinicio en curso ('{}'). Se ignora '{}'.", stopping.reason, reason);
+                return false;
+            }
+            if (current == null || shuttingDown) {
+                logger.warn("No hay ningun servidor en marcha que reiniciar.");
+                return false;
+            }
+            logger.info("Iniciando el reinicio del servidor ({})...", reason);
+            RestartRecord record = new RestartRecord(reason, System.currentTimeMillis(), unavailableSince);
+            Process process = current;
+            long consoleMillis = unavailableSince > 0 ? frozenStopMillis : stopMillis;
+            stopping = record;
+            stopThread = scope.fork(config.threadName("egg-restart"), () -> stop(process, record, consoleMillis));
+            return true;
+        }
+    }
+
+    // Primer latido del servidor en marcha: cierra la medición del reinicio y prepara la reserva
+    public void onFirstHeartbeat() {
+        RestartRecord record;
+        synchronized (lock) {
+            record = awaitingHeartbeat;
+            awaitingHeartbeat = null;
+        }
+        if (record != null) {
+            record.firstHeartbeatAt = System.currentTimeMillis();
+            stats.record(record);
+        }
+        // Después del arranque, para no competir con él por CPU y disco
+        if (standbyEnabled) {
+            spawnStandby();
+        }
+    }
+
+    // Al cerrar el launcher: la reserva no debe sobrevivirle
+    public void shutdown() {
+        StandbyServer discarded;
+        synchronized (lock) {
+            shuttingDown = true;
+            discarded = standby;
+            standby = null;
+        }
+        if (discarded != null) {
+            discarded.discard();
+        }
+    }
+
+    public RestartStats getStats() {
+        return stats;
+    }
+
+    private void run() {
+        Process process;
+        try {
+            process = host.launch(false);
+        } catch (IOException e) {
+            logger.error("Ocurrio un error al iniciar el proceso del servidor Forge.", e);
+            return;
+        }
+        boolean fromStandby = false;
+
+        while (true) {
+            synchronized (lock) {
+                current = process;
+            }
+            host.attach(process, fromStandby);
+            Integer exitCode = waitFor(process);
+            if (exitCode == null) {
+                return;
+            }
+            host.detach(process, exitCode);
+
+            RestartRecord record;
+            synchronized (lock) {
+                current = null;
+                record = stopping;
+            }
+            if (record == null) {
+                logger.info("El servidor se detuvo sin que se pidiera un reinicio. No se vuelve a lanzar.");
+                shutdown();
+                return;
+            }
+            record.exitedAt = System.currentTimeMillis();
+            joinStopThread();
+
+            try {
+                ServerResources resources = ServerResources.read(serverDir);
+                record.released = resources.awaitRelease(releaseMillis);
+                record.releasedAt = System.currentTimeMillis();
+                if (!record.released) {
+                    logger.warn("Se lanza igualmente el servidor; puede fallar al abrir el puerto {} o el mundo.",
+                                resources.getPort());
+                }
+                host.beforeRelaunch(record.reason);
+
+                StandbyServer candidate = takeStandby();
+                if (candidate != null && candidate.isReady()) {
+                    process = candidate.activate();
+                    fromStandby = true;
+                } else {
+                    if (candidate != null) {
+                        logger.warn("La JVM de reserva no esta lista. Se lanza el servidor en frio.");
+                        candidate.discard();
+                    }
+                    process = host.launch(false);
+                    fromStandby = false;
+                }
+            } catch (IOException e) {
+                logger.error("No se pudo volver a lanzar el servidor Forge.", e);
+                synchronized (lock) {
+                    stopping = null;
+                }
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            record.launchedAt = System.currentTimeMillis();
+            record.fromStandby = fromStandby;
+            synchronized (lock) {
+                stopping = null;
+                if (awaitingHeartbeat != null) {
+                    logger.warn("El reinicio '{}' no llego a recibir el primer latido.", awaitingHeartbeat.reason);
+                }
+                awaitingHeartbeat = record;
+            }
+        }
+    }
+
+    private void stop(Process process, RestartRecord record, long consoleMillis) {
+        try {
+            host.beforeStop();
+            record.outcome = GracefulStop.stop(process, host.getConsole(), consoleMillis, termMillis, killMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.error("Error al detener el servidor para reiniciarlo. Se fuerza su terminacion.", e);
+            process.destroyForcibly();
+        }
+    }
+
+    private void joinStopThread() {
+        Thread thread;
+        synchronized (lock) {
+            thread = stopThread;
+            stopThread = null;
+        }
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // null si el launcher se está cerrando: el hilo se interrumpe al cerrar el ámbito y
+    // el servidor sigue en marcha por su cuenta
+    private Integer waitFor(Process process) {
+        while (true) {
+            try {
+                return process.waitFor();
+            } catch (InterruptedException e) {
+                synchronized (lock) {
+                    if (shuttingDown) {
+                        return null;
+                    }
+                }
+                // Fuera del cierre, el hilo del servidor no se interrumpe; se sigue esperando
+            }
+        }
+    }
+
+    private StandbyServer takeStandby() {
+        synchronized (lock) {
+            StandbyServer taken = standby;
+            standby = null;
+            return taken;
+        }
+    }
+
+    private void spawnStandby() {
+        synchronized (lock) {
+            if (standby != null || standbyStarting || shuttingDown) {
+                return;
+            }
+            standbyStarting = true;
+        }
+        scope.fork(config.threadName("egg-standby"), () -> {
+            StandbyServer candidate = null;
+            try {
+                candidate = new StandbyServer(host.launch(true));
+                logger.info("Lanzada la JVM de reserva (PID {}).", candidate.getPid());
+            } catch (IOException e) {
+                logger.warn("No se pudo lanzar la JVM de reserva.", e);
+            }
+            boolean discard;
+            synchronized (lock) {
+                standbyStarting = false;
+                discard = candidate != null && shuttingDown;
+                if (candidate != null && !discard) {
+                    standby = candidate;
+                }
+            }
+            if (discard) {
+                candidate.discard();
+            } else if (candidate != null) {
+                candidate.awaitReady();
+            }
+        });
+    }
+
+    // Directorio con StandbyMain.class para el classpath de la JVM de reserva
+    public static Path standbyClasspath() throws IOException {
+        return StandbyServer.prepareClasspath(Paths.get("cache", "standby").toAbsolutePath());
+    }
+
+    public static String standbyMainClass() {
+        return StandbyMain.class.getName();
+    }
+}
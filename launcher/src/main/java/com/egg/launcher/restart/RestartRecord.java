@@ -0,0 +1,53 @@
+package com.egg.launcher.restart;
+
+// Marcas de tiempo (ms) de un reinicio, desde que el servidor dejó de responder (o se
+// pidió el reinicio) hasta el primer latido del servidor nuevo. 0 = aún no ha ocurrido.
+final class RestartRecord {
+
+    final String reason;
+    final long requestedAt;
+    final long unavailableSince;
+    volatile GracefulStop.Outcome outcome;
+    long exitedAt;
+    long releasedAt;
+    boolean released;
+    long launchedAt;
+    boolean fromStandby;
+    long firstHeartbeatAt;
+
+    RestartRecord(String reason, long requestedAt, long unavailableSince) {
+        this.reason = reason;
+        this.requestedAt = requestedAt;
+        this.unavailableSince = unavailableSince;
+    }
+
+    // Desde el último latido si el servidor estaba congelado; si no, desde la petición
+    long downtimeStart() {
+        return unavailableSince > 0 && unavailableSince < requestedAt ? unavailableSince : requestedAt;
+    }
+
+    long downtimeMillis() {
+        return firstHeartbeatAt - downtimeStart();
+    }
+
+    long detectionMillis() {
+        return requestedAt - downtimeStart();
+    }
+
+    long stopMillis() {
+        return exitedAt - requestedAt;
+    }
+
+    long releaseMillis() {
+        return releasedAt - exitedAt;
+    }
+
+    // Backup y preparativos entre la liberación y el lanzamiento
+    long prepareMillis() {
+        return launchedAt - releasedAt;
+    }
+
+    long startupMillis() {
+        return firstHeartbeatAt - launchedAt;
+    }
+}
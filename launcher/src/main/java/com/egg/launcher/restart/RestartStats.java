@@ -0,0 +1,93 @@
+package com.egg.launcher.restart;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Tiempo sin servicio de cada reinicio, desglosado por fases, con acumulados de la
+// sesión. Cada reinicio se añade también a reports/restarts.tsv para seguirlo entre
+// sesiones (y comparar reinicios con y sin JVM de reserva).
+public class RestartStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestartStats.class);
+    private static final String HEADER = "fecha\tmotivo\tparada\treserva\tsin_servicio_ms\tdeteccion_ms\tdetencion_ms"
+                                         + "\tliberacion_ms\tpreparacion_ms\tarranque_ms\n";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Path file;
+    private int count;
+    private int standbyCount;
+    private long totalDowntime;
+    private long maxDowntime;
+    private long lastDowntime = -1;
+
+    RestartStats(Path file) {
+        this.file = file;
+    }
+
+    synchronized void record(RestartRecord record) {
+        long downtime = record.downtimeMillis();
+        count++;
+        if (record.fromStandby) {
+            standbyCount++;
+        }
+        totalDowntime += downtime;
+        maxDowntime = Math.max(maxDowntime, downtime);
+        lastDowntime = downtime;
+
+        logger.info("Reinicio '{}' completado: {} ms sin servicio (deteccion {} ms, detencion {} ms con {}, liberacion {} ms, "
+                    + "preparacion {} ms, arranque {} ms{}).", record.reason, downtime, record.detectionMillis(),
+                    record.stopMillis(), record.outcome, record.releaseMillis(), record.prepareMillis(),
+                    record.startupMillis(), record.fromStandby ? " desde la JVM de reserva" : "");
+        logger.info("{}", summary());
+        append(record, downtime);
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    // -1 si todavía no ha habido ningún reinicio
+    public synchronized long getLastDowntimeMillis() {
+        return lastDowntime;
+    }
+
+    public synchronized long getAverageDowntimeMillis() {
+        return count > 0 ? totalDowntime / count : 0;
+    }
+
+    public synchronized long getMaxDowntimeMillis() {
+        return maxDowntime;
+    }
+
+    public synchronized String summary() {
+        if (count == 0) {
+            return "Reinicios: ninguno";
+        }
+        return String.format("Reinicios: %d (%d desde la JVM de reserva), sin servicio: ultimo %d ms, media %d ms, maximo %d ms",
+                             count, standbyCount, lastDowntime, totalDowntime / count, maxDowntime);
+    }
+
+    private void append(RestartRecord record, long downtime) {
+        String line = LocalDateTime.now().format(DATE_FORMAT) + "\t" + record.reason + "\t" + record.outcome + "\t"
+                      + (record.fromStandby ? "si" : "no") + "\t" + downtime + "\t" + record.detectionMillis() + "\t"
+                      + record.stopMillis() + "\t" + record.releaseMillis() + "\t" + record.prepareMillis() + "\t"
+                      + record.startupMillis() + "\n";
+        try {
+            Files.createDirectories(file.getParent());
+            if (!Files.exists(file)) {
+                Files.write(file, HEADER.getBytes(StandardCharsets.UTF_8));
+            }
+            Files.write(file, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            logger.warn("No se pudo registrar el reinicio en '{}'.", file, e);
+        }
+    }
+}
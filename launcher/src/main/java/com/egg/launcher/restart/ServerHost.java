@@ -0,0 +1,26 @@
+package com.egg.launcher.restart;
+
+import com.egg.launcher.ServerConsole;
+
+import java.io.IOException;
+
+// Lo que el orquestador de reinicios necesita del launcher para gestionar cada proceso del servidor
+public interface ServerHost {
+
+    // Lanza el servidor; con standby, una JVM de reserva que espera la orden de StandbyMain
+    Process launch(boolean standby) throws IOException;
+
+    // Conecta consola, watchdog, backups programados y logs a un proceso ya en marcha
+    void attach(Process process, boolean fromStandby);
+
+    // Tras terminar el proceso
+    void detach(Process process, int exitCode);
+
+    // Antes de detener el servidor para reiniciarlo
+    void beforeStop();
+
+    // Con el servidor detenido y el puerto y el mundo liberados, antes de lanzar el siguiente
+    void beforeRelaunch(String reason);
+
+    ServerConsole getConsole();
+}
@@ -0,0 +1,115 @@
+package com.egg.launcher.restart;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+// Lo que un servidor recién lanzado necesita que el anterior haya soltado: el puerto de
+// juego y el session.lock del mundo, según server.properties. Aunque el proceso haya
+// terminado, el sistema puede tardar en liberar el socket y un proceso huérfano puede
+// conservar el bloqueo; lanzar antes hace que el nuevo servidor falle al arrancar.
+final class ServerResources {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServerResources.class);
+    private static final long POLL_MILLIS = 250;
+
+    private final String ip;
+    private final int port;
+    private final Path sessionLock;
+
+    ServerResources(String ip, int port, Path sessionLock) {
+        this.ip = ip;
+        this.port = port;
+        this.sessionLock = sessionLock;
+    }
+
+    // Se vuelve a leer en cada reinicio: server.properties puede haber cambiado
+    static ServerResources read(Path serverDir) {
+        Properties properties = new Properties();
+        Path file = serverDir.resolve("server.properties");
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            } catch (IOException e) {
+                logger.warn("No se pudo leer '{}'. Se usan el puerto y el mundo por defecto.", file, e);
+            }
+        }
+        int port;
+        try {
+            port = Integer.parseInt(properties.getProperty("server-port", "25565").trim());
+        } catch (NumberFormatException e) {
+            port = 25565;
+        }
+        String ip = properties.getProperty("server-ip", "").trim();
+        String level = properties.getProperty("level-name", "world").trim();
+        return new ServerResources(ip.isEmpty() ? null : ip, port,
+                                   serverDir.resolve(level.isEmpty() ? "world" : level).resolve("session.lock"));
+    }
+
+    boolean isPortFree() {
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.setReuseAddress(true);
+            socket.bind(ip == null ? new InetSocketAddress(port) : new InetSocketAddress(ip, port));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Minecraft bloquea session.lock con un FileLock mientras el mundo está abierto
+    boolean isWorldLockFree() {
+        if (!Files.exists(sessionLock)) {
+            return true;
+        }
+        try (FileChannel channel = FileChannel.open(sessionLock, StandardOpenOption.WRITE);
+             FileLock lock = channel.tryLock()) {
+            return lock != null;
+        } catch (OverlappingFileLockException | IOException e) {
+            return false;
+        }
+    }
+
+    // true si ambos quedan libres antes del tiempo máximo
+    boolean awaitRelease(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        boolean portFree;
+        boolean lockFree;
+        while (true) {
+            portFree = isPortFree();
+            lockFree = isWorldLockFree();
+            if (portFree && lockFree) {
+                return true;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                break;
+            }
+            Thread.sleep(POLL_MILLIS);
+        }
+        if (!portFree) {
+            logger.error("El puerto {} sigue ocupado tras {} ms.", port, timeoutMillis);
+        }
+        if (!lockFree) {
+            logger.error("'{}' sigue bloqueado tras {} ms.", sessionLock, timeoutMillis);
+        }
+        return false;
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    Path getSessionLock() {
+        return sessionLock;
+    }
+}
@@ -0,0 +1,63 @@
+package com.egg.launcher.restart;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+
+// Punto de entrada de la JVM de reserva. Se ejecuta dentro del proceso del servidor, con
+// el jar de Forge en el classpath, así que no puede usar nada del launcher: el launcher
+// copia solo esta clase a cache/standby. Carga la clase principal del jar sin
+// inicializarla, avisa por stdout de que está lista y espera la orden por stdin; después
+// llama al main del servidor con el resto de argumentos. Si el launcher desaparece
+// (stdin cerrado), termina sin haber tocado el mundo.
+public final class StandbyMain {
+
+    public static final String READY = "[egg-standby] ready";
+    public static final String GO = "egg-standby-go";
+
+    private StandbyMain() {
+    }
+
+    public static void main(String[] args) throws Throwable {
+        String mainClassName;
+        try (JarFile jar = new JarFile(args[0])) {
+            mainClassName = jar.getManifest().getMainAttributes().getValue(Attributes.Name.MAIN_CLASS);
+        }
+        Class<?> mainClass = Class.forName(mainClassName, false, StandbyMain.class.getClassLoader());
+        Method main = mainClass.getMethod("main", String[].class);
+
+        System.out.println(READY);
+        System.out.flush();
+        if (!awaitGo()) {
+            System.exit(0);
+        }
+
+        try {
+            main.invoke(null, (Object) Arrays.copyOfRange(args, 1, args.length));
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Lee byte a byte para no consumir nada que vaya después de la orden: es para la consola del servidor
+    private static boolean awaitGo() throws IOException {
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            int next = System.in.read();
+            if (next < 0) {
+                return false;
+            }
+            if (next == '\n') {
+                if (line.toString().trim().equals(GO)) {
+                    return true;
+                }
+                line.setLength(0);
+            } else {
+                line.append((char) next);
+            }
+        }
+    }
+}
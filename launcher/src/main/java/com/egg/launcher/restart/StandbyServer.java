@@ -0,0 +1,120 @@
+package com.egg.launcher.restart;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// JVM del servidor lanzada de antemano con StandbyMain: ya ha arrancado, reservado y
+// tocado el heap, mapeado el archivo CDS y cargado la clase principal del jar, pero no
+// ha cargado mods ni abierto el mundo ni el puerto. Activarla es escribir la orden en
+// su stdin; a partir de ahí es un servidor normal.
+final class StandbyServer {
+
+    private static final Logger logger = LoggerFactory.getLogger(StandbyServer.class);
+    private static final String CLASS_RESOURCE = "/" + StandbyMain.class.getName().replace('.', '/') + ".class";
+    private static final long DISCARD_WAIT_SECONDS = 5;
+
+    private final Process process;
+    private final long spawnedAt = System.currentTimeMillis();
+    private volatile boolean ready;
+
+    StandbyServer(Process process) {
+        this.process = process;
+    }
+
+    // Copia StandbyMain.class a un directorio propio: el jar del launcher lleva sus
+    // dependencias dentro y no debe acabar en el classpath del servidor
+    static Path prepareClasspath(Path directory) throws IOException {
+        Path target = directory.resolve(CLASS_RESOURCE.substring(1));
+        Files.createDirectories(target.getParent());
+        try (InputStream in = StandbyServer.class.getResourceAsStream(CLASS_RESOURCE)) {
+            if (in == null) {
+                throw new IOException("No se encuentra " + CLASS_RESOURCE + " en el launcher.");
+            }
+            byte[] bytes = in.readAllBytes();
+            if (!Files.isRegularFile(target) || Files.size(target) != bytes.length) {
+                Files.write(target, bytes);
+            }
+        }
+        return directory;
+    }
+
+    // Versión mínima de Java capaz de cargar StandbyMain, según su archivo .class
+    static int requiredJavaVersion() {
+        try (InputStream in = StandbyServer.class.getResourceAsStream(CLASS_RESOURCE)) {
+            byte[] header = in == null ? new byte[0] : in.readNBytes(8);
+            return header.length == 8 ? ((header[6] & 0xff) << 8 | (header[7] & 0xff)) - 44 : Integer.MAX_VALUE;
+        } catch (IOException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    // Lee la salida hasta la marca de StandbyMain; lo que venga después queda en el
+    // stream para el pipeline de logs cuando se active
+    void awaitReady() {
+        InputStream in = process.getInputStream();
+        StringBuilder line = new StringBuilder();
+        try {
+            int next;
+            while ((next = in.read()) >= 0) {
+                if (next != '\n') {
+                    line.append((char) next);
+                    continue;
+                }
+                String text = line.toString().trim();
+                line.setLength(0);
+                if (text.equals(StandbyMain.READY)) {
+                    ready = true;
+                    logger.info("JVM de reserva lista (PID {}) en {} ms.", process.pid(), System.currentTimeMillis() - spawnedAt);
+                    return;
+                }
+                if (!text.isEmpty()) {
+                    logger.info("[reserva] {}", text);
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Error al leer la salida de la JVM de reserva.", e);
+        }
+        logger.warn("La JVM de reserva (PID {}) termino antes de estar lista.", process.pid());
+    }
+
+    boolean isReady() {
+        return ready && process.isAlive();
+    }
+
+    Process activate() throws IOException {
+        OutputStream stdin = process.getOutputStream();
+        stdin.write((StandbyMain.GO + "\n").getBytes(StandardCharsets.UTF_8));
+        stdin.flush();
+        logger.info("JVM de reserva (PID {}) activada tras {} s en espera.", process.pid(),
+                    (System.currentTimeMillis() - spawnedAt) / 1000);
+        return process;
+    }
+
+    // Cerrar stdin basta para que StandbyMain termine; si no, se fuerza
+    void discard() {
+        try {
+            process.getOutputStream().close();
+            if (!process.waitFor(DISCARD_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (IOException e) {
+            process.destroyForcibly();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+        logger.info("JVM de reserva (PID {}) descartada.", process.pid());
+    }
+
+    long getPid() {
+        return process.pid();
+    }
+}
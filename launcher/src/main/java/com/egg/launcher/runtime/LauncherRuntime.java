@@ -0,0 +1,222 @@
+package com.egg.launcher.runtime;
+
+import com.egg.launcher.config.LauncherConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Todos los hilos del launcher salen de aquí, con nombre y dentro de un ámbito
+// (TaskScope) que se cierra cuando termina lo que los necesitaba: el launcher, una
+// instancia o cada proceso del servidor. Las tareas de E/S bloqueante van en hilos
+// virtuales si la JVM del launcher los tiene (Java 21); si no, en hilos daemon de
+// plataforma. Los pools de CPU (hashing, compresión, plugins) son siempre de
+// plataforma. Un solo hilo "egg-timer" dispara las tareas periódicas y cada ejecución
+// corre aparte, para que una tarea lenta no retrase a las demás.
+public final class LauncherRuntime {
+
+    private static final Logger logger = LoggerFactory.getLogger(LauncherRuntime.class);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 2000;
+
+    private static final AtomicInteger liveThreads = new AtomicInteger();
+    private static final AtomicInteger liveVirtualThreads = new AtomicInteger();
+    private static final AtomicLong createdThreads = new AtomicLong();
+    private static final AtomicInteger runningTasks = new AtomicInteger();
+    private static final AtomicInteger scheduledTasks = new AtomicInteger();
+    private static final AtomicLong completedTasks = new AtomicLong();
+
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_UNSTARTED;
+    private static final boolean VIRTUAL;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method unstarted = null;
+        boolean virtual = false;
+        if (LauncherConfig.getBoolean("runtime.virtualThreads", true)) {
+            try {
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+                Class<?> builder = Class.forName("java.lang.Thread$Builder");
+                name = builder.getMethod("name", String.class);
+                unstarted = builder.getMethod("unstarted", Runnable.class);
+                // En Java 19 y 20 son preview: sin --enable-preview la llamada falla
+                unstarted.invoke(name.invoke(ofVirtual.invoke(null), "egg-probe"), (Runnable) () -> { });
+                virtual = true;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                ofVirtual = null;
+            }
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = name;
+        BUILDER_UNSTARTED = unstarted;
+        VIRTUAL = virtual;
+    }
+
+    private static final ScheduledThreadPoolExecutor timer = newTimer();
+    // Ejecuciones de tareas periódicas cuando no hay hilos virtuales
+    private static final ThreadPoolExecutor platformTasks = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), platformFactory("egg-task", true, Thread.NORM_PRIORITY));
+    private static final TaskScope ROOT = new TaskScope("launcher", null);
+
+    private LauncherRuntime() {
+    }
+
+    // Ámbito del launcher entero; se cierra en shutdown()
+    public static TaskScope root() {
+        return ROOT;
+    }
+
+    public static TaskScope openScope(String name) {
+        return ROOT.openChild(name);
+    }
+
+    public static boolean hasVirtualThreads() {
+        return VIRTUAL;
+    }
+
+    public static int getLiveThreads() {
+        return liveThreads.get();
+    }
+
+    public static int getLiveVirtualThreads() {
+        return liveVirtualThreads.get();
+    }
+
+    public static long getCreatedThreads() {
+        return createdThreads.get();
+    }
+
+    public static int getRunningTasks() {
+        return runningTasks.get();
+    }
+
+    public static int getScheduledTasks() {
+        return scheduledTasks.get();
+    }
+
+    public static long getCompletedTasks() {
+        return completedTasks.get();
+    }
+
+    public static String summary() {
+        int live = liveThreads.get();
+        int virtual = liveVirtualThreads.get();
+        return String.format("Hilos del launcher: %d vivos (%d virtuales, %d de plataforma), %d creados; tareas: %d en curso, "
+                             + "%d programadas, %d completadas; hilos de plataforma de la JVM: %d",
+                             live, virtual, live - virtual, createdThreads.get(), runningTasks.get(), scheduledTasks.get(),
+                             completedTasks.get(), ManagementFactory.getThreadMXBean().getThreadCount());
+    }
+
+    // Al apagar el launcher: cierra todos los ámbitos y el temporizador. La espera es corta:
+    // los lectores de un servidor que sigue en marcha no terminan hasta que él termine
+    public static void shutdown() {
+        ROOT.close(SHUTDOWN_TIMEOUT_MILLIS);
+        timer.shutdownNow();
+        platformTasks.shutdownNow();
+        logger.info("{}", summary());
+    }
+
+    // Hilo sin arrancar, con el nombre dado; cuenta mientras está vivo
+    static Thread newThread(String name, Runnable task, boolean virtual) {
+        boolean useVirtual = virtual && VIRTUAL;
+        Runnable counted = () -> {
+            liveThreads.incrementAndGet();
+            if (useVirtual) {
+                liveVirtualThreads.incrementAndGet();
+            }
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                logger.error("Error no controlado en el hilo '{}'.", name, e);
+            } finally {
+                if (useVirtual) {
+                    liveVirtualThreads.decrementAndGet();
+                }
+                liveThreads.decrementAndGet();
+            }
+        };
+        createdThreads.incrementAndGet();
+        if (useVirtual) {
+            try {
+                return (Thread) BUILDER_UNSTARTED.invoke(BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name), counted);
+            } catch (ReflectiveOperationException e) {
+                logger.debug("No se pudo crear el hilo virtual '{}'. Se usa uno de plataforma.", name, e);
+            }
+        }
+        Thread thread = new Thread(counted, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    // Hilos de plataforma daemon para los pools: "nombre-1", "nombre-2"...
+    static ThreadFactory platformFactory(String name, boolean numbered, int priority) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = newThread(numbered ? name + "-" + counter.incrementAndGet() : name, runnable, false);
+            thread.setPriority(priority);
+            return thread;
+        };
+    }
+
+    static ScheduledFuture<?> schedule(Runnable trigger, long delayNanos) {
+        return timer.schedule(trigger, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    static ScheduledFuture<?> scheduleAtFixedRate(Runnable trigger, long delayNanos, long periodNanos) {
+        return timer.scheduleAtFixedRate(trigger, delayNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Una ejecución de una tarea periódica: hilo virtual propio o uno del pool de plataforma
+    static void execute(String name, Runnable task) {
+        if (VIRTUAL) {
+            newThread(name, task, true).start();
+        } else {
+            platformTasks.execute(() -> {
+                Thread current = Thread.currentThread();
+                String poolName = current.getName();
+                current.setName(name);
+                try {
+                    task.run();
+                } finally {
+                    current.setName(poolName);
+                }
+            });
+        }
+    }
+
+    static void taskStarted() {
+        runningTasks.incrementAndGet();
+    }
+
+    static void taskFinished() {
+        runningTasks.decrementAndGet();
+        completedTasks.incrementAndGet();
+    }
+
+    static void scheduledAdded() {
+        scheduledTasks.incrementAndGet();
+    }
+
+    static void scheduledRemoved() {
+        scheduledTasks.decrementAndGet();
+    }
+
+    private static ScheduledThreadPoolExecutor newTimer() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, platformFactory("egg-timer", false,
+                                                                                                   Thread.NORM_PRIORITY));
+        executor.setRemoveOnCancelPolicy(true);
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return executor;
+    }
+}
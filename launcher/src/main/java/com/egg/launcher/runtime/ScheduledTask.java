@@ -0,0 +1,153 @@
+package com.egg.launcher.runtime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Tarea programada en un TaskScope. El temporizador solo la dispara; cada ejecución
+// corre en su propio hilo y nunca hay dos a la vez. Una excepción se registra y no
+// cancela las ejecuciones siguientes.
+public final class ScheduledTask {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledTask.class);
+
+    static final int ONCE = 0;
+    static final int FIXED_RATE = 1;
+    static final int FIXED_DELAY = 2;
+
+    private final TaskScope scope;
+    private final String name;
+    private final Runnable task;
+    private final int kind;
+    private final long initialDelayNanos;
+    private final long periodNanos;
+
+    // Protegidos por el monitor de la tarea
+    private ScheduledFuture<?> trigger;
+    private boolean running;
+    private Thread runner;
+    private boolean cancelled;
+
+    ScheduledTask(TaskScope scope, String name, Runnable task, int kind, long initialDelayNanos, long periodNanos) {
+        this.scope = scope;
+        this.name = name;
+        this.task = task;
+        this.kind = kind;
+        this.initialDelayNanos = initialDelayNanos;
+        this.periodNanos = periodNanos;
+    }
+
+    synchronized void arm() {
+        if (cancelled) {
+            return;
+        }
+        trigger = kind == FIXED_RATE ? LauncherRuntime.scheduleAtFixedRate(this::fire, initialDelayNanos, periodNanos)
+                                     : LauncherRuntime.schedule(this::fire, initialDelayNanos);
+    }
+
+    // Cancela las ejecuciones pendientes; con interrupt, interrumpe también la que esté en curso
+    public void cancel(boolean interrupt) {
+        Thread current;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            if (trigger != null) {
+                trigger.cancel(false);
+            }
+            current = runner;
+        }
+        scope.unregister(this);
+        if (interrupt && current != null && current != Thread.currentThread()) {
+            current.interrupt();
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Espera a que termine la ejecución en curso; false si no terminó a tiempo
+    synchronized boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (running && runner != Thread.currentThread()) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    // En el hilo del temporizador: no ejecuta nada, solo lanza la ejecución
+    private void fire() {
+        synchronized (this) {
+            // La ejecución anterior sigue en marcha: esta se salta
+            if (cancelled || running) {
+                return;
+            }
+            running = true;
+        }
+        try {
+            LauncherRuntime.execute(name, this::runOnce);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                running = false;
+                notifyAll();
+            }
+        }
+    }
+
+    private void runOnce() {
+        synchronized (this) {
+            runner = Thread.currentThread();
+            if (cancelled) {
+                finish();
+                return;
+            }
+        }
+        LauncherRuntime.taskStarted();
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.error("Error en la tarea programada '{}'.", name, e);
+        } finally {
+            LauncherRuntime.taskFinished();
+            // La interrupción de cancel() no debe pasar al siguiente uso del hilo
+            Thread.interrupted();
+            synchronized (this) {
+                finish();
+            }
+        }
+    }
+
+    // Con el monitor tomado
+    private void finish() {
+        running = false;
+        runner = null;
+        notifyAll();
+        if (cancelled) {
+            return;
+        }
+        if (kind == ONCE) {
+            cancelled = true;
+            scope.unregister(this);
+        } else if (kind == FIXED_DELAY) {
+            try {
+                trigger = LauncherRuntime.schedule(this::fire, periodNanos);
+            } catch (RejectedExecutionException e) {
+                cancelled = true;
+                scope.unregister(this);
+            }
+        }
+    }
+}
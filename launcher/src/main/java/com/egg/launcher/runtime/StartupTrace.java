@@ -0,0 +1,184 @@
+package com.egg.launcher.runtime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Fases del arranque con tiempos monotónicos (System.nanoTime) contados desde el inicio
+// de la JVM, en el hilo en que corrió cada una. Se escriben en formato de eventos de
+// traza de Chrome (chrome://tracing, Perfetto) para ver qué fases se solapan y cuál
+// retrasa el lanzamiento de Forge.
+public final class StartupTrace {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupTrace.class);
+
+    private final long originNanos;
+    private final List<Event> events = new ArrayList<>();
+
+    private StartupTrace(long originNanos) {
+        this.originNanos = originNanos;
+    }
+
+    // La primera fase ("jvm") va desde el inicio de la JVM hasta esta llamada
+    public static StartupTrace begin() {
+        long now = System.nanoTime();
+        long uptimeNanos = TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime());
+        StartupTrace trace = new StartupTrace(now - uptimeNanos);
+        trace.record("jvm", "main", trace.originNanos, now);
+        return trace;
+    }
+
+    public Phase phase(String name) {
+        return new Phase(name);
+    }
+
+    public <T> T time(String name, Supplier<T> task) {
+        try (Phase ignored = phase(name)) {
+            return task.get();
+        }
+    }
+
+    // La fase corre en un hilo propio del ámbito; si falla, el futuro termina con la excepción
+    public <T> CompletableFuture<T> async(TaskScope scope, String name, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        // De plataforma: OSHI y la carga de plugins hacen llamadas nativas y trabajo de CPU
+        scope.forkPlatform("egg-boot-" + name, () -> {
+            try {
+                future.complete(time(name, task));
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    // Evento instantáneo, p. ej. el lanzamiento de Forge
+    public void mark(String name) {
+        long now = System.nanoTime();
+        record(name, Thread.currentThread().getName(), now, -1);
+    }
+
+    // Milisegundos desde el inicio de la JVM
+    public long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - originNanos);
+    }
+
+    // "oshi 850 ms, escaneo 1200 ms, ..." en el orden en que empezaron
+    public String summary() {
+        List<Event> phases;
+        synchronized (events) {
+            phases = new ArrayList<>(events);
+        }
+        phases.sort(Comparator.comparingLong(event -> event.startNanos));
+        StringBuilder summary = new StringBuilder();
+        for (Event event : phases) {
+            if (event.endNanos < 0) {
+                continue;
+            }
+            if (summary.length() > 0) {
+                summary.append(", ");
+            }
+            summary.append(event.name).append(' ')
+                   .append(TimeUnit.NANOSECONDS.toMillis(event.endNanos - event.startNanos)).append(" ms");
+        }
+        return summary.toString();
+    }
+
+    public void write(Path file) {
+        long pid = ProcessHandle.current().pid();
+        Map<String, Integer> threadIds = new LinkedHashMap<>();
+        List<String> lines = new ArrayList<>();
+        synchronized (events) {
+            for (Event event : events) {
+                int tid = threadIds.computeIfAbsent(event.thread, thread -> threadIds.size() + 1);
+                StringBuilder line = new StringBuilder();
+                line.append("{\"name\":\"").append(escape(event.name)).append("\",\"cat\":\"arranque\",\"pid\":").append(pid)
+                    .append(",\"tid\":").append(tid).append(",\"ts\":").append(micros(event.startNanos));
+                if (event.endNanos < 0) {
+                    line.append(",\"ph\":\"i\",\"s\":\"g\"}");
+                } else {
+                    line.append(",\"ph\":\"X\",\"dur\":").append(micros(event.endNanos) - micros(event.startNanos)).append('}');
+                }
+                lines.add(line.toString());
+            }
+        }
+        // Nombres de los hilos para el visor
+        for (Map.Entry<String, Integer> thread : threadIds.entrySet()) {
+            lines.add("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":" + pid + ",\"tid\":" + thread.getValue()
+                      + ",\"args\":{\"name\":\"" + escape(thread.getKey()) + "\"}}");
+        }
+
+        String json = "{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n" + String.join(",\n", lines) + "\n]}\n";
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+            logger.info("Traza del arranque guardada en '{}'.", file);
+        } catch (IOException e) {
+            logger.warn("No se pudo guardar la traza del arranque en '{}'.", file, e);
+        }
+    }
+
+    private void record(String name, String thread, long startNanos, long endNanos) {
+        synchronized (events) {
+            events.add(new Event(name, thread, startNanos, endNanos));
+        }
+    }
+
+    private long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos - originNanos);
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    // Una fase en curso: termina con close(), normalmente en un try-with-resources
+    public final class Phase implements AutoCloseable {
+
+        private final String name;
+        private final String thread = Thread.currentThread().getName();
+        private final long startNanos = System.nanoTime();
+        private boolean closed;
+
+        private Phase(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                record(name, thread, startNanos, System.nanoTime());
+            }
+        }
+    }
+
+    private static final class Event {
+
+        final String name;
+        final String thread;
+        final long startNanos;
+        // -1 en los eventos instantáneos
+        final long endNanos;
+
+        Event(String name, String thread, long startNanos, long endNanos) {
+            this.name = name;
+            this.thread = thread;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+        }
+    }
+}
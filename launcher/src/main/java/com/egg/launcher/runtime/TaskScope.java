@@ -0,0 +1,257 @@
+package com.egg.launcher.runtime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Ámbito de vida de un grupo de hilos y tareas: el launcher, una instancia o un
+// proceso del servidor. Al cerrarlo se cierran sus ámbitos hijos, se cancelan sus
+// tareas periódicas, se interrumpen sus hilos, se paran sus pools y se espera un
+// tiempo acotado a que todo termine; lo que sigue vivo se avisa en el log. Un ámbito
+// cerrado no acepta hilos ni tareas nuevos (RejectedExecutionException).
+public class TaskScope implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskScope.class);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final String name;
+    private final TaskScope parent;
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private final Set<ScheduledTask> scheduled = ConcurrentHashMap.newKeySet();
+    private final Set<ExecutorService> pools = ConcurrentHashMap.newKeySet();
+    private final Set<TaskScope> children = ConcurrentHashMap.newKeySet();
+    private boolean closed;
+
+    TaskScope(String name, TaskScope parent) {
+        this.name = name;
+        this.parent = parent;
+    }
+
+    public TaskScope openChild(String childName) {
+        TaskScope child = new TaskScope(childName, this);
+        synchronized (this) {
+            checkOpen();
+            children.add(child);
+        }
+        return child;
+    }
+
+    // Tarea que pasa casi todo el tiempo bloqueada en E/S: hilo virtual si los hay
+    public Thread fork(String threadName, Runnable task) {
+        return start(threadName, task, true, true);
+    }
+
+    // Hilo de plataforma dedicado: bucles de selector, consumidores que aparcan o
+    // código que se bloquea dentro de synchronized
+    public Thread forkPlatform(String threadName, Runnable task) {
+        return start(threadName, task, false, true);
+    }
+
+    // Hilo de plataforma que no es daemon: mantiene viva la JVM mientras corre (el hilo
+    // que espera al proceso del servidor)
+    public Thread forkForeground(String threadName, Runnable task) {
+        return start(threadName, task, false, false);
+    }
+
+    public ScheduledTask schedule(String taskName, Runnable task, long delay, TimeUnit unit) {
+        return register(new ScheduledTask(this, taskName, task, ScheduledTask.ONCE, unit.toNanos(delay), 0));
+    }
+
+    // Si una ejecución no ha terminado cuando toca la siguiente, esa se salta
+    public ScheduledTask scheduleAtFixedRate(String taskName, Runnable task, long initialDelay, long period, TimeUnit unit) {
+        return register(new ScheduledTask(this, taskName, task, ScheduledTask.FIXED_RATE, unit.toNanos(initialDelay),
+                                          unit.toNanos(period)));
+    }
+
+    public ScheduledTask scheduleWithFixedDelay(String taskName, Runnable task, long initialDelay, long delay, TimeUnit unit) {
+        return register(new ScheduledTask(this, taskName, task, ScheduledTask.FIXED_DELAY, unit.toNanos(initialDelay),
+                                          unit.toNanos(delay)));
+    }
+
+    // Pool de hilos de plataforma para trabajo de CPU ("nombre-1", "nombre-2"...). Quien
+    // lo crea lo cierra al terminar; si no, se cierra con el ámbito
+    public ExecutorService newPool(String poolName, int threads) {
+        return newPool(poolName, threads, 0);
+    }
+
+    // queueCapacity > 0: las tareas que no caben se rechazan (RejectedExecutionException)
+    public ExecutorService newPool(String poolName, int threads, int queueCapacity) {
+        return newPool(poolName, threads, queueCapacity, Thread.NORM_PRIORITY);
+    }
+
+    // priority: Thread.MIN_PRIORITY para trabajo de fondo que no debe competir con el servidor
+    public ExecutorService newPool(String poolName, int threads, int queueCapacity, int priority) {
+        BlockingQueue<Runnable> queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new LinkedBlockingQueue<>();
+        ScopedPool pool = new ScopedPool(threads, queue, poolName, priority);
+        synchronized (this) {
+            checkOpen();
+            pools.add(pool);
+        }
+        return pool;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getThreadCount() {
+        int count = threads.size();
+        for (TaskScope child : children) {
+            count += child.getThreadCount();
+        }
+        return count;
+    }
+
+    public int getScheduledCount() {
+        int count = scheduled.size();
+        for (TaskScope child : children) {
+            count += child.getScheduledCount();
+        }
+        return count;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        close(CLOSE_TIMEOUT_MILLIS);
+    }
+
+    // timeoutMillis es para el ámbito entero, hijos incluidos
+    public void close(long timeoutMillis) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (TaskScope child : new ArrayList<>(children)) {
+            child.close(remainingMillis(deadline));
+        }
+        List<ScheduledTask> tasks = new ArrayList<>(scheduled);
+        for (ScheduledTask task : tasks) {
+            task.cancel(true);
+        }
+        for (ExecutorService pool : pools) {
+            pool.shutdownNow();
+        }
+        Thread self = Thread.currentThread();
+        for (Thread thread : threads) {
+            if (thread != self) {
+                thread.interrupt();
+            }
+        }
+
+        List<String> alive = new ArrayList<>();
+        try {
+            for (ScheduledTask task : tasks) {
+                if (!task.awaitIdle(remainingMillis(deadline))) {
+                    alive.add(task.getName());
+                }
+            }
+            for (ExecutorService pool : new ArrayList<>(pools)) {
+                if (!pool.awaitTermination(remainingMillis(deadline), TimeUnit.MILLISECONDS)) {
+                    alive.add(((ScopedPool) pool).name);
+                }
+            }
+            for (Thread thread : new ArrayList<>(threads)) {
+                if (thread != self) {
+                    thread.join(remainingMillis(deadline) + 1);
+                    if (thread.isAlive()) {
+                        alive.add(thread.getName());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!alive.isEmpty()) {
+            logger.warn("El ambito '{}' se cerro con hilos o tareas que no terminaron en {} ms: {}", name, timeoutMillis, alive);
+        }
+        if (parent != null) {
+            parent.children.remove(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private Thread start(String threadName, Runnable task, boolean virtual, boolean daemon) {
+        Thread[] holder = new Thread[1];
+        Thread thread = LauncherRuntime.newThread(threadName, () -> {
+            try {
+                task.run();
+            } finally {
+                threads.remove(holder[0]);
+            }
+        }, virtual);
+        holder[0] = thread;
+        if (!daemon) {
+            thread.setDaemon(false);
+        }
+        synchronized (this) {
+            checkOpen();
+            threads.add(thread);
+        }
+        thread.start();
+        return thread;
+    }
+
+    private ScheduledTask register(ScheduledTask task) {
+        synchronized (this) {
+            checkOpen();
+            scheduled.add(task);
+        }
+        LauncherRuntime.scheduledAdded();
+        task.arm();
+        return task;
+    }
+
+    void unregister(ScheduledTask task) {
+        if (scheduled.remove(task)) {
+            LauncherRuntime.scheduledRemoved();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new RejectedExecutionException("El ambito '" + name + "' ya esta cerrado.");
+        }
+    }
+
+    private static long remainingMillis(long deadline) {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    // Se quita del ámbito al terminar, para que los pools de cada operación no se acumulen
+    private final class ScopedPool extends ThreadPoolExecutor {
+
+        private final String name;
+
+        ScopedPool(int threads, BlockingQueue<Runnable> queue, String name, int priority) {
+            super(threads, threads, 0L, TimeUnit.MILLISECONDS, queue, LauncherRuntime.platformFactory(name, threads > 1, priority));
+            this.name = name;
+        }
+
+        @Override
+        protected void terminated() {
+            pools.remove(this);
+        }
+    }
+}
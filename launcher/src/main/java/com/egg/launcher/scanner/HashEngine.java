@@ -0,0 +1,181 @@
+package com.egg.launcher.scanner;
+
+import com.egg.launcher.config.LauncherConfig;
+import com.egg.launcher.runtime.LauncherRuntime;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+
+// Motor de hashing paralelo: lee por FileChannel con buffers directos grandes
+// (o MappedByteBuffer para jars grandes) en un pool acotado de hilos.
+public class HashEngine implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final long MAPPED_THRESHOLD = 64L * 1024 * 1024;
+    private static final long MAPPED_WINDOW = 256L * 1024 * 1024;
+
+    public enum Algorithm {
+        // Hash criptográfico que se publica en los reportes
+        SHA_256,
+        // Huella rápida no criptográfica, solo para detectar cambios
+        CRC32C
+    }
+
+    public interface FileDigest {
+        void update(ByteBuffer data);
+
+        String finish();
+    }
+
+    private final ExecutorService pool;
+    private final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    public HashEngine(int threads) {
+        // De plataforma: cada hilo reutiliza su buffer directo (ThreadLocal)
+        this.pool = LauncherRuntime.root().newPool("egg-hash", threads);
+    }
+
+    // Por defecto un hilo por núcleo; en discos mecánicos conviene bajar scanner.hashThreads a 1 o 2
+    public static HashEngine create() {
+        int threads = LauncherConfig.getInt("scanner.hashThreads", Runtime.getRuntime().availableProcessors());
+        return new HashEngine(Math.max(1, threads));
+    }
+
+    public <T> Future<T> submit(Callable<T> task) {
+        return pool.submit(task);
+    }
+
+    public Future<String> submit(Path file, Algorithm algorithm) {
+        return pool.submit(() -> hash(file, algorithm)[0]);
+    }
+
+    // Devuelve los hashes en el mismo orden que los archivos recibidos; "Error" si alguno falla
+    public List<String> hashAll(List<Path> files, Algorithm algorithm) {
+        List<Future<String>> futures = new ArrayList<>(files.size());
+        for (Path file : files) {
+            futures.add(submit(file, algorithm));
+        }
+        List<String> hashes = new ArrayList<>(files.size());
+        for (Future<String> future : futures) {
+            hashes.add(await(future));
+        }
+        return hashes;
+    }
+
+    public static String await(Future<String> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Error";
+        } catch (ExecutionException e) {
+            return "Error";
+        }
+    }
+
+    // Calcula varios algoritmos en una sola pasada de lectura; el resultado sigue el orden recibido
+    public String[] hash(Path file, Algorithm... algorithms) throws IOException {
+        FileDigest[] digests = new FileDigest[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++) {
+            digests[i] = newDigest(algorithms[i]);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size >= MAPPED_THRESHOLD) {
+                for (long position = 0; position < size; position += MAPPED_WINDOW) {
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                                                          Math.min(MAPPED_WINDOW, size - position));
+                    update(digests, mapped);
+                }
+            } else {
+                ByteBuffer buffer = buffers.get();
+                buffer.clear();
+                while (channel.read(buffer) != -1) {
+                    buffer.flip();
+                    update(digests, buffer);
+                    buffer.clear();
+                }
+            }
+        }
+        String[] hashes = new String[digests.length];
+        for (int i = 0; i < digests.length; i++) {
+            hashes[i] = digests[i].finish();
+        }
+        return hashes;
+    }
+
+    private static void update(FileDigest[] digests, ByteBuffer data) {
+        if (digests.length == 1) {
+            digests[0].update(data);
+            return;
+        }
+        for (FileDigest digest : digests) {
+            digest.update(data.duplicate());
+        }
+    }
+
+    public static FileDigest newDigest(Algorithm algorithm) {
+        switch (algorithm) {
+            case CRC32C:
+                return new Crc32cDigest();
+            case SHA_256:
+            default:
+                return new MessageDigestAdapter("SHA-256");
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private static class MessageDigestAdapter implements FileDigest {
+        private final MessageDigest digest;
+
+        MessageDigestAdapter(String algorithm) {
+            try {
+                this.digest = MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Algoritmo de hash no disponible: " + algorithm, e);
+            }
+        }
+
+        @Override
+        public void update(ByteBuffer data) {
+            digest.update(data);
+        }
+
+        @Override
+        public String finish() {
+            return HexFormat.of().formatHex(digest.digest());
+        }
+    }
+
+    private static class Crc32cDigest implements FileDigest {
+        private final CRC32C crc = new CRC32C();
+
+        @Override
+        public void update(ByteBuffer data) {
+            crc.update(data);
+        }
+
+        @Override
+        public String finish() {
+            return String.format("%08x", crc.getValue());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.egg.launcher.scanner;
+
+import com.egg.launcher.index.IndexFiles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Índice persistente de escaneos: permite reutilizar el hash y el estado de un
+// archivo mientras su ruta, tamaño, fecha de modificación e inodo no cambien. Si solo
+// cambian la fecha o el inodo (copias, restauraciones), la huella CRC32C guardada
+// confirma el contenido sin recalcular el SHA-256.
+class ScanIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanIndex.class);
+    private static final int MAGIC = 0x45474753; // "EGGS"
+    private static final int VERSION = 2;
+
+    private final Path indexFile;
+    private final Map<String, Entry> entries;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    private ScanIndex(Path indexFile, Map<String, Entry> entries) {
+        this.indexFile = indexFile;
+        this.entries = entries;
+    }
+
+    static ScanIndex load(Path indexFile) {
+        Map<String, Entry> entries = new ConcurrentHashMap<>();
+        if (Files.exists(indexFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    logger.warn("El indice de escaneo '{}' tiene un formato desconocido. Se reconstruira.", indexFile);
+                    return new ScanIndex(indexFile, entries);
+                }
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    Entry entry = new Entry(in.readUTF(), in.readLong(), in.readLong(), in.readUTF(),
+                                            in.readUTF(), in.readUTF(), ScanStatus.valueOf(in.readUTF()), in.readUTF());
+                    entries.put(entry.path, entry);
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                logger.warn("No se pudo leer el indice de escaneo '{}'. Se reconstruira.", indexFile, e);
+                entries.clear();
+            }
+        }
+        return new ScanIndex(indexFile, entries);
+    }
+
+    // Devuelve la entrada guardada si los metadatos coinciden, o null si hay que volver a hashear
+    Entry lookup(Path file, BasicFileAttributes attrs) {
+        Entry entry = entries.get(key(file));
+        if (entry != null && IndexFiles.unchanged(entry.size, entry.modifiedNanos, entry.fileKey, attrs)) {
+            return entry;
+        }
+        return null;
+    }
+
+    // La última entrada de esa ruta aunque sus metadatos ya no coincidan
+    Entry previous(Path file) {
+        return entries.get(key(file));
+    }
+
+    void put(Path file, BasicFileAttributes attrs, FileScanResult result, String fingerprint) {
+        String key = key(file);
+        entries.put(key, new Entry(key, attrs.size(), IndexFiles.modifiedNanos(attrs),
+                                   IndexFiles.fileKey(attrs), result.getHash(), fingerprint, result.getStatus(), result.getNotes()));
+    }
+
+    void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    int getHits() {
+        return hits.get();
+    }
+
+    int getMisses() {
+        return misses.get();
+    }
+
+    // Elimina las entradas de archivos que ya no existen y guarda el índice de forma atómica
+    void save(Set<String> seenPaths) {
+        entries.keySet().retainAll(seenPaths);
+        try {
+            IndexFiles.writeAtomically(indexFile, MAGIC, VERSION, out -> {
+                out.writeInt(entries.size());
+                for (Entry entry : entries.values()) {
+                    out.writeUTF(entry.path);
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.modifiedNanos);
+                    out.writeUTF(entry.fileKey);
+                    out.writeUTF(entry.hash);
+                    out.writeUTF(entry.fingerprint);
+                    out.writeUTF(entry.status.name());
+                    out.writeUTF(entry.notes != null ? entry.notes : "");
+                }
+            });
+        } catch (IOException e) {
+            logger.error("No se pudo guardar el indice de escaneo '{}'.", indexFile, e);
+        }
+    }
+
+    static String key(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    static class Entry {
+        final String path;
+        final long size;
+        final long modifiedNanos;
+        final String fileKey;
+        final String hash;
+        final String fingerprint;
+        final ScanStatus status;
+        final String notes;
+
+        Entry(String path, long size, long modifiedNanos, String fileKey, String hash, String fingerprint,
+              ScanStatus status, String notes) {
+            this.path = path;
+            this.size = size;
+            this.modifiedNanos = modifiedNanos;
+            this.fileKey = fileKey;
+            this.hash = hash;
+            this.fingerprint = fingerprint;
+            this.status = status;
+            this.notes = notes;
+        }
+    }
+}
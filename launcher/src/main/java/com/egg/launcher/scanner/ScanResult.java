@@ -1,14 +1,23 @@
 package com.egg.launcher.scanner;
 
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class ScanResult {
     private final List<FileScanResult> results;
     private final boolean hasCriticalErrors;
+    private final int cacheHits;
+    private final int cacheMisses;
+    private Path reportFile;
+    private Map<Path, String> serverJarHashes = Collections.emptyMap();
 
-    public ScanResult(List<FileScanResult> results, boolean hasCriticalErrors) {
+    public ScanResult(List<FileScanResult> results, boolean hasCriticalErrors, int cacheHits, int cacheMisses) {
         this.results = results;
         this.hasCriticalErrors = hasCriticalErrors;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
     }
 
     public List<FileScanResult> getResults() {
@@ -18,4 +27,34 @@ public class ScanResult {
     public boolean hasCriticalErrors() {
         return hasCriticalErrors;
     }
+
+    public int getCacheHits() {
+        return cacheHits;
+    }
+
+    public int getCacheMisses() {
+        return cacheMisses;
+    }
+
+    // Reporte de texto de este arranque, o null si no se pudo escribir
+    public Path getReportFile() {
+        return reportFile;
+    }
+
+    void setReportFile(Path reportFile) {
+        this.reportFile = reportFile;
+    }
+
+    // SHA-256 del forge-server.jar de una instancia, o null si no se pudo leer
+    public String getServerJarHash(Path serverJar) {
+        return serverJarHashes.get(serverJar.toAbsolutePath().normalize());
+    }
+
+    public Map<Path, String> getServerJarHashes() {
+        return Collections.unmodifiableMap(serverJarHashes);
+    }
+
+    void setServerJarHashes(Map<Path, String> serverJarHashes) {
+        this.serverJarHashes = serverJarHashes;
+    }
 }
@@ -1,33 +1,71 @@
 package com.egg.launcher.scanner;
 
+import com.egg.launcher.config.LauncherConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
 public class Scanner {
 
     private static final Logger logger = LoggerFactory.getLogger(Scanner.class);
+    private static final Path INDEX_FILE = Paths.get("cache", "scan-index.bin");
 
-    public static ScanResult runScans() {
+    // Mods y plugins son comunes a todas las instancias y se escanean una vez; de cada
+    // instancia solo se añade su forge-server.jar
+    public static ScanResult runScans(List<Path> serverJars) {
         logger.info("Iniciando escaneo de mods y plugins...");
         List<FileScanResult> results = new ArrayList<>();
+        Map<Path, String> serverJarHashes = new LinkedHashMap<>();
         boolean hasCriticalErrors = false;
 
-        // Escanear mods
-        results.addAll(scanDirectory(new File("mods")));
-        // Escanear plugins
-        results.addAll(scanDirectory(new File("plugins")));
+        // En modo paranoico se verifica el contenido de todos los archivos aunque el índice diga que no cambiaron
+        boolean paranoid = LauncherConfig.getBoolean("scanner.paranoid", false);
+        ScanIndex index = ScanIndex.load(INDEX_FILE);
+        Set<String> seenPaths = new HashSet<>();
+
+        try (HashEngine engine = HashEngine.create()) {
+            List<Future<FileScanResult>> pending = new ArrayList<>();
+            // Escanear mods
+            pending.addAll(scanDirectory(new File("mods"), index, seenPaths, paranoid, engine));
+            // Escanear plugins
+            pending.addAll(scanDirectory(new File("plugins"), index, seenPaths, paranoid, engine));
+            // Los jars del servidor no entran en el reporte, pero su hash invalida el archivo CDS
+            Map<Path, Future<FileScanResult>> serverJarResults = new LinkedHashMap<>();
+            for (Path serverJar : serverJars) {
+                Path normalized = serverJar.toAbsolutePath().normalize();
+                if (Files.isRegularFile(serverJar) && !serverJarResults.containsKey(normalized)) {
+                    seenPaths.add(ScanIndex.key(serverJar));
+                    serverJarResults.put(normalized, scanFile(serverJar, index, paranoid, engine));
+                }
+            }
+
+            for (Future<FileScanResult> future : pending) {
+                results.add(awaitResult(future));
+            }
+            for (Map.Entry<Path, Future<FileScanResult>> entry : serverJarResults.entrySet()) {
+                serverJarHashes.put(entry.getKey(), awaitResult(entry.getValue()).getHash());
+            }
+        }
+
+        index.save(seenPaths);
+        logger.info("Cache de hashes: {} aciertos, {} fallos{}.", index.getHits(), index.getMisses(),
+                    paranoid ? " (modo paranoico)" : "");
 
         for (FileScanResult result : results) {
             if (result.getStatus() == ScanStatus.CRITICAL) {
@@ -35,14 +73,17 @@ public class Scanner {
             }
         }
 
-        generateReport(results);
+        ScanResult scanResult = new ScanResult(results, hasCriticalErrors, index.getHits(), index.getMisses());
+        scanResult.setServerJarHashes(serverJarHashes);
+        generateReport(scanResult);
 
         logger.info("Escaneo completado.");
-        return new ScanResult(results, hasCriticalErrors);
+        return scanResult;
     }
 
-    private static List<FileScanResult> scanDirectory(File directory) {
-        List<FileScanResult> results = new ArrayList<>();
+    private static List<Future<FileScanResult>> scanDirectory(File directory, ScanIndex index, Set<String> seenPaths,
+                                                              boolean paranoid, HashEngine engine) {
+        List<Future<FileScanResult>> results = new ArrayList<>();
         if (!directory.exists() || !directory.isDirectory()) {
             logger.warn("El directorio '{}' no existe.", directory.getName());
             return results;
@@ -52,11 +93,8 @@ public class Scanner {
             paths.filter(Files::isRegularFile)
                  .filter(path -> path.toString().endsWith(".jar"))
                  .forEach(path -> {
-                     File file = path.toFile();
-                     String hash = calculateHash(file);
-                     // Placeholder para la lógica de compatibilidad
-                     ScanStatus status = checkCompatibility(file);
-                     results.add(new FileScanResult(file.getName(), hash, status, ""));
+                     seenPaths.add(ScanIndex.key(path));
+                     results.add(scanFile(path, index, paranoid, engine));
                  });
         } catch (IOException e) {
             logger.error("Error al escanear el directorio '{}'.", directory.getName(), e);
@@ -65,25 +103,74 @@ public class Scanner {
         return results;
     }
 
-    private static String calculateHash(File file) {
+    private static Future<FileScanResult> scanFile(Path path, ScanIndex index, boolean paranoid, HashEngine engine) {
+        File file = path.toFile();
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            logger.error("No se pudieron leer los atributos del archivo '{}'.", file.getName(), e);
+            return CompletableFuture.completedFuture(new FileScanResult(file.getName(), "Error", checkCompatibility(file), ""));
+        }
+
+        ScanIndex.Entry cached = index.lookup(path, attrs);
+        if (cached != null && !paranoid) {
+            index.recordHit();
+            return CompletableFuture.completedFuture(new FileScanResult(file.getName(), cached.hash, cached.status, cached.notes));
+        }
+        index.recordMiss();
+
+        // Los archivos que no están en el índice se hashean en paralelo en el pool del motor
+        ScanIndex.Entry previous = cached != null ? cached : index.previous(path);
+        return engine.submit(() -> hashFile(path, attrs, cached, previous, paranoid, index, engine));
+    }
+
+    // cached: la entrada con los mismos metadatos (solo en modo paranoico); previous: la última de esa ruta
+    private static FileScanResult hashFile(Path path, BasicFileAttributes attrs, ScanIndex.Entry cached,
+                                           ScanIndex.Entry previous, boolean paranoid, ScanIndex index,
+                                           HashEngine engine) {
+        File file = path.toFile();
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            try (FileInputStream fis = new FileInputStream(file)) {
-                byte[] byteArray = new byte[1024];
-                int bytesCount;
-                while ((bytesCount = fis.read(byteArray)) != -1) {
-                    digest.update(byteArray, 0, bytesCount);
+            // Cambió la fecha o el inodo pero no el tamaño: si la huella rápida coincide, el
+            // contenido es el mismo y se reutiliza el SHA-256 sin calcularlo
+            if (previous != null && !paranoid && previous.size == attrs.size()) {
+                String fingerprint = engine.hash(path, HashEngine.Algorithm.CRC32C)[0];
+                if (fingerprint.equals(previous.fingerprint)) {
+                    FileScanResult result = new FileScanResult(file.getName(), previous.hash, previous.status, previous.notes);
+                    index.put(path, attrs, result, fingerprint);
+                    return result;
                 }
             }
-            byte[] bytes = digest.digest();
-            StringBuilder sb = new StringBuilder();
-            for (byte aByte : bytes) {
-                sb.append(Integer.toString((aByte & 0xff) + 0x100, 16).substring(1));
+
+            String[] hashes = engine.hash(path, HashEngine.Algorithm.SHA_256, HashEngine.Algorithm.CRC32C);
+            // En modo paranoico se recalcula el SHA-256 aunque el índice lo tenga: la huella
+            // CRC32C no basta para descartar un cambio hecho a propósito
+            if (cached != null) {
+                if (hashes[0].equals(cached.hash)) {
+                    return new FileScanResult(file.getName(), cached.hash, cached.status, cached.notes);
+                }
+                logger.warn("El archivo '{}' cambio de contenido sin alterar su tamaño ni su fecha de modificacion.", file.getName());
             }
-            return sb.toString();
-        } catch (NoSuchAlgorithmException | IOException e) {
+
+            // Placeholder para la lógica de compatibilidad
+            ScanStatus status = checkCompatibility(file);
+            FileScanResult result = new FileScanResult(file.getName(), hashes[0], status, "");
+            index.put(path, attrs, result, hashes[1]);
+            return result;
+        } catch (IOException e) {
             logger.error("No se pudo calcular el hash para el archivo '{}'.", file.getName(), e);
-            return "Error";
+            return new FileScanResult(file.getName(), "Error", checkCompatibility(file), "");
+        }
+    }
+
+    private static FileScanResult awaitResult(Future<FileScanResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Escaneo interrumpido.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error inesperado durante el escaneo.", e.getCause());
         }
     }
 
@@ -92,7 +179,8 @@ public class Scanner {
         return ScanStatus.OK;
     }
 
-    private static void generateReport(List<FileScanResult> results) {
+    private static void generateReport(ScanResult scanResult) {
+        List<FileScanResult> results = scanResult.getResults();
         File reportsDir = new File("reports");
         if (!reportsDir.exists()) {
             reportsDir.mkdirs();
@@ -103,8 +191,9 @@ public class Scanner {
         // Generar reporte en formato de texto
         File txtReportFile = new File(reportsDir, "startup_" + timestamp + ".txt");
         try {
-            Files.write(txtReportFile.toPath(), formatTxtReport(results).getBytes());
+            Files.write(txtReportFile.toPath(), formatTxtReport(scanResult).getBytes());
             logger.info("Reporte de escaneo (TXT) guardado en '{}'.", txtReportFile.getPath());
+            scanResult.setReportFile(txtReportFile.toPath());
         } catch (IOException e) {
             logger.error("Error al guardar el reporte de escaneo (TXT).", e);
         }
@@ -119,12 +208,18 @@ public class Scanner {
         }
     }
 
-    private static String formatTxtReport(List<FileScanResult> results) {
+    public static String formatTxtReport(ScanResult scanResult) {
         StringBuilder report = new StringBuilder();
         report.append("--- Reporte de Escaneo de Inicio ---\n");
-        report.append("Timestamp: ").append(new java.util.Date()).append("\n\n");
+        report.append("Timestamp: ").append(new java.util.Date()).append("\n");
+        report.append("Cache de hashes: ").append(scanResult.getCacheHits()).append(" aciertos, ")
+              .append(scanResult.getCacheMisses()).append(" fallos\n");
+        for (Map.Entry<Path, String> serverJar : scanResult.getServerJarHashes().entrySet()) {
+            report.append("Servidor (").append(serverJar.getKey()).append("): ").append(serverJar.getValue()).append("\n");
+        }
+        report.append("\n");
 
-        for (FileScanResult result : results) {
+        for (FileScanResult result : scanResult.getResults()) {
             report.append("Archivo: ").append(result.getFileName()).append("\n");
             report.append("  Hash (SHA-256): ").append(result.getHash()).append("\n");
             report.append("  Estado: ").append(result.getStatus()).append("\n");
@@ -137,7 +232,7 @@ public class Scanner {
         return report.toString();
     }
 
-    private static String formatJsonReport(List<FileScanResult> results) {
+    public static String formatJsonReport(List<FileScanResult> results) {
         StringBuilder json = new StringBuilder("[\n");
         for (int i = 0; i < results.size(); i++) {
             FileScanResult result = results.get(i);
@@ -0,0 +1,200 @@
+package com.egg.launcher.watchdog;
+
+import com.egg.launcher.config.ConfigView;
+import com.egg.launcher.log.LogEntry;
+import com.egg.launcher.log.LogQuery;
+import com.egg.launcher.log.LogTail;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Pruebas de un congelamiento antes de reiniciar: varios volcados de hilos separados
+// unos segundos, el volcado de la grabación JFR que el launcher arranca con el
+// servidor y los logs recientes, en backups/forensics/<fecha>_<motivo>, más un
+// resumen con los hilos más calientes y los bloqueados.
+public class FreezeForensics {
+
+    private static final Logger logger = LoggerFactory.getLogger(FreezeForensics.class);
+    private static final String FORENSICS_DIR = "backups/forensics";
+    private static final String RECORDING_NAME = "egg";
+    private static final int RECENT_LOG_MINUTES = 5;
+    private static final long JCMD_TIMEOUT_SECONDS = 30;
+
+    private final Path baseDir;
+    // La vista de la instancia: sus claves forensics.* y solo las líneas de su servidor
+    private final ConfigView config;
+
+    public FreezeForensics(Path baseDir, ConfigView config) {
+        this.baseDir = baseDir;
+        this.config = config;
+    }
+
+    public static boolean isEnabled(ConfigView config) {
+        return config.getBoolean("forensics.enabled", true);
+    }
+
+    // Opciones para la JVM del servidor: grabación JFR continua de la que se vuelca lo último
+    public static List<String> jvmArguments(ConfigView config) {
+        if (!isEnabled(config) || !config.getBoolean("forensics.jfr", true)) {
+            return new ArrayList<>();
+        }
+        long maxAgeMinutes = config.getLong("forensics.jfrMaxAgeMinutes", 10);
+        return new ArrayList<>(Arrays.asList(
+                "-XX:StartFlightRecording=name=" + RECORDING_NAME + ",settings=default,disk=true,maxage=" + maxAgeMinutes + "m"));
+    }
+
+    // Devuelve el directorio con las pruebas, o null si no se pudo crear
+    public Path capture(long pid, String reason) {
+        if (!isEnabled(config)) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date(start));
+        Path root = baseDir.resolve(FORENSICS_DIR);
+        Path directory = root.resolve(timestamp + "_" + reason).toAbsolutePath();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            logger.error("No se pudo crear el directorio de pruebas '{}'.", directory, e);
+            return null;
+        }
+        logger.warn("Capturando pruebas del congelamiento del proceso {} en '{}'...", pid, directory);
+
+        int dumps = Math.max(1, config.getInt("forensics.threadDumps", 3));
+        long intervalMillis = config.getLong("forensics.dumpIntervalMillis", 2000);
+        ThreadDumpSummary summary = new ThreadDumpSummary();
+        for (int i = 1; i <= dumps; i++) {
+            Path dumpFile = directory.resolve("thread-dump-" + i + ".txt");
+            long time = System.currentTimeMillis();
+            if (jcmd(pid, dumpFile, "Thread.print", "-l")) {
+                summary.addDump(time, read(dumpFile));
+            }
+            if (i < dumps && !sleep(intervalMillis)) {
+                break;
+            }
+        }
+
+        // El volcado JFR incluye los últimos minutos de muestreo de CPU, bloqueos y GC
+        Path recording = directory.resolve("recording.jfr");
+        boolean jfrDumped = config.getBoolean("forensics.jfr", true)
+                && jcmd(pid, directory.resolve("jfr-dump.txt"), "JFR.dump", "name=" + RECORDING_NAME, "filename=" + recording);
+
+        writeRecentLog(directory.resolve("recent-log.txt"));
+
+        String text = summary.render();
+        write(directory.resolve("summary.txt"), text);
+        logger.warn("Pruebas del congelamiento ({} ms, JFR {}):", System.currentTimeMillis() - start,
+                    jfrDumped && Files.exists(recording) ? "guardado" : "no disponible");
+        for (String line : text.split("\n")) {
+            logger.warn("  {}", line);
+        }
+
+        prune(root);
+        return directory;
+    }
+
+    private boolean jcmd(long pid, Path output, String... command) {
+        List<String> arguments = new ArrayList<>();
+        arguments.add(jcmdExecutable());
+        arguments.add(String.valueOf(pid));
+        arguments.addAll(Arrays.asList(command));
+        try {
+            Process process = new ProcessBuilder(arguments)
+                    .redirectErrorStream(true)
+                    .redirectOutput(output.toFile())
+                    .start();
+            // Un proceso bloqueado en un safepoint puede no atender al attach
+            if (!process.waitFor(JCMD_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                logger.warn("jcmd {} no respondio en {} s.", command[0], JCMD_TIMEOUT_SECONDS);
+                return false;
+            }
+            if (process.exitValue() != 0) {
+                logger.warn("jcmd {} termino con el codigo {}. Ver '{}'.", command[0], process.exitValue(), output.getFileName());
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("No se pudo ejecutar jcmd para '{}'.", command[0], e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // El jcmd del JDK del launcher si lo tiene; si no, el del PATH
+    private static String jcmdExecutable() {
+        Path bundled = Paths.get(System.getProperty("java.home"), "bin", "jcmd");
+        if (Files.isExecutable(bundled)) {
+            return bundled.toString();
+        }
+        Path bundledWindows = Paths.get(System.getProperty("java.home"), "bin", "jcmd.exe");
+        return Files.isExecutable(bundledWindows) ? bundledWindows.toString() : "jcmd";
+    }
+
+    private void writeRecentLog(Path target) {
+        List<LogEntry> entries = LogTail.get().query(LogQuery.lastMinutes(RECENT_LOG_MINUTES).instance(config.getInstanceId()).limit(10_000));
+        StringBuilder text = new StringBuilder();
+        for (LogEntry entry : entries) {
+            text.append(entry).append('\n');
+        }
+        write(target, text.toString());
+    }
+
+    // Conserva solo las últimas forensics.keep capturas
+    private void prune(Path root) {
+        int keep = config.getInt("forensics.keep", 10);
+        try (Stream<Path> directories = Files.list(root)) {
+            List<Path> captures = new ArrayList<>();
+            directories.filter(Files::isDirectory).forEach(captures::add);
+            captures.sort(Comparator.comparing(path -> path.getFileName().toString()));
+            for (int i = 0; i < captures.size() - keep; i++) {
+                try (Stream<Path> files = Files.walk(captures.get(i))) {
+                    files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("No se pudieron limpiar las pruebas antiguas en '{}'.", root, e);
+        }
+    }
+
+    private static String read(Path file) {
+        try {
+            return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    private static void write(Path file, String text) {
+        try {
+            Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.warn("No se pudo escribir '{}'.", file, e);
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.egg.launcher.watchdog;
+
+import com.egg.launcher.config.ConfigView;
+
+// Umbrales de las tres etapas de congelamiento (aviso, diagnóstico, reinicio) a partir
+// de la distribución observada de latidos. Mientras no hay muestras suficientes se
+// usan los valores fijos; después, múltiplos del p99/p99.9 con un mínimo y un máximo.
+final class FreezeThresholds {
+
+    final long warnMillis;
+    final long diagnosticsMillis;
+    final long restartMillis;
+    final String explanation;
+
+    private FreezeThresholds(long warnMillis, long diagnosticsMillis, long restartMillis, String explanation) {
+        this.warnMillis = warnMillis;
+        this.diagnosticsMillis = diagnosticsMillis;
+        this.restartMillis = restartMillis;
+        this.explanation = explanation;
+    }
+
+    static FreezeThresholds from(HeartbeatStats stats, ConfigView config) {
+        long minSamples = config.getLong("watchdog.freeze.minSamples", 120);
+        long minWarn = config.getLong("watchdog.freeze.minWarnSeconds", 5) * 1000;
+        long minDiagnostics = config.getLong("watchdog.freeze.minDiagnosticsSeconds", 15) * 1000;
+        long minRestart = config.getLong("watchdog.freeze.minRestartSeconds", 30) * 1000;
+        long maxRestart = config.getLong("watchdog.freeze.maxRestartSeconds", 300) * 1000;
+
+        long samples = stats.getSamples();
+        if (samples < minSamples) {
+            return new FreezeThresholds(15_000, 30_000, Math.max(60_000, minRestart),
+                                        String.format("umbrales fijos: solo %d de %d intervalos observados", samples, minSamples));
+        }
+
+        long p99 = stats.percentile(0.99);
+        long p999 = stats.percentile(0.999);
+        long warn = Math.max(minWarn, 4 * p99);
+        long diagnostics = Math.max(Math.max(minDiagnostics, 2 * p999), warn);
+        long restart = Math.min(maxRestart, Math.max(Math.max(minRestart, 4 * p999), diagnostics));
+        // El tope del reinicio se aplica después: las etapas anteriores no pueden quedar por encima
+        diagnostics = Math.min(diagnostics, restart);
+        warn = Math.min(warn, diagnostics);
+        String explanation = String.format("aviso = max(%d s, 4 x p99 %d ms), diagnostico = max(%d s, 2 x p99.9 %d ms), "
+                                           + "reinicio = max(%d s, 4 x p99.9) hasta %d s; %d intervalos, media %.0f ms, maximo %d ms",
+                                           minWarn / 1000, p99, minDiagnostics / 1000, p999, minRestart / 1000, maxRestart / 1000,
+                                           samples, stats.getEwma(), stats.getMaxMillis());
+        return new FreezeThresholds(warn, diagnostics, restart, explanation);
+    }
+}
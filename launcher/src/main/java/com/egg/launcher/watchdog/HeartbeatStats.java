@@ -0,0 +1,85 @@
+package com.egg.launcher.watchdog;
+
+// Distribución de los intervalos entre latidos del servidor: un histograma de cubos
+// logarítmicos (8 por potencia de 2, error < 12.5%) más una media móvil exponencial.
+// Cada DECAY_SAMPLES intervalos los recuentos se reducen a la mitad, así que los
+// percentiles siguen a la carga reciente del servidor sin guardar las muestras.
+class HeartbeatStats {
+
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKETS = 8;
+    private static final int MAX_EXPONENT = 24;
+    private static final int BUCKETS = LINEAR_BUCKETS + (MAX_EXPONENT - 4 + 1) * SUB_BUCKETS;
+    private static final int DECAY_SAMPLES = 2048;
+    private static final double EWMA_ALPHA = 0.05;
+
+    private final double[] counts = new double[BUCKETS];
+    private double total;
+    private long samples;
+    private double ewma = Double.NaN;
+    private long maxMillis;
+
+    synchronized void record(long intervalMillis) {
+        long value = Math.max(0, intervalMillis);
+        counts[bucket(value)]++;
+        total++;
+        samples++;
+        maxMillis = Math.max(maxMillis, value);
+        ewma = Double.isNaN(ewma) ? value : ewma + EWMA_ALPHA * (value - ewma);
+        if (samples % DECAY_SAMPLES == 0) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] *= 0.5;
+            }
+            total *= 0.5;
+        }
+    }
+
+    // Límite superior del cubo que contiene el percentil p (0-1), o 0 sin muestras
+    synchronized long percentile(double p) {
+        if (total == 0) {
+            return 0;
+        }
+        double target = p * total;
+        double seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target && counts[i] > 0) {
+                return upperBound(i);
+            }
+        }
+        return maxMillis;
+    }
+
+    synchronized long getSamples() {
+        return samples;
+    }
+
+    synchronized double getEwma() {
+        return ewma;
+    }
+
+    synchronized long getMaxMillis() {
+        return maxMillis;
+    }
+
+    private static int bucket(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Math.min(MAX_EXPONENT, 63 - Long.numberOfLeadingZeros(value));
+        if (exponent == MAX_EXPONENT && value >= (2L << MAX_EXPONENT)) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (value >> (exponent - 3)) & (SUB_BUCKETS - 1);
+        return LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+        int sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - 3)) - 1;
+    }
+}
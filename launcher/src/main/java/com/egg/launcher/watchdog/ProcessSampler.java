@@ -0,0 +1,64 @@
+package com.egg.launcher.watchdog;
+
+import oshi.SystemInfo;
+import oshi.hardware.CentralProcessor;
+import oshi.software.os.OSProcess;
+
+// Mide el proceso del servidor sin dormir: cada llamada a sample() compara los
+// contadores acumulados (tiempo de CPU, bytes leídos y escritos, ticks de la CPU
+// del sistema) con los de la llamada anterior. La primera llamada solo los toma.
+public class ProcessSampler {
+
+    private final CentralProcessor processor;
+    private final OSProcess process;
+    private final int logicalProcessors;
+    private final ResourceHistory history;
+
+    private long[] lastSystemTicks;
+    private long lastNanos;
+    private long lastCpuMillis;
+    private long lastBytesRead;
+    private long lastBytesWritten;
+
+    public ProcessSampler(SystemInfo systemInfo, long pid, int historySize) {
+        this.processor = systemInfo.getHardware().getProcessor();
+        this.process = systemInfo.getOperatingSystem().getProcess((int) pid);
+        this.logicalProcessors = Math.max(1, processor.getLogicalProcessorCount());
+        this.history = new ResourceHistory(historySize);
+    }
+
+    // false si todavía no hay dos muestras que comparar o el proceso ya no existe
+    public boolean sample() {
+        if (process == null || !process.updateAttributes()) {
+            return false;
+        }
+        long now = System.nanoTime();
+        long cpuMillis = process.getKernelTime() + process.getUserTime();
+        long bytesRead = process.getBytesRead();
+        long bytesWritten = process.getBytesWritten();
+        long[] systemTicks = processor.getSystemCpuLoadTicks();
+
+        boolean primed = lastNanos != 0;
+        if (primed) {
+            long elapsedMillis = Math.max(1, (now - lastNanos) / 1_000_000);
+            double cpu = 100.0 * (cpuMillis - lastCpuMillis) / (elapsedMillis * (double) logicalProcessors);
+            double systemCpu = processor.getSystemCpuLoadBetweenTicks(lastSystemTicks) * 100;
+            long readRate = Math.max(0, bytesRead - lastBytesRead) * 1000 / elapsedMillis;
+            long writeRate = Math.max(0, bytesWritten - lastBytesWritten) * 1000 / elapsedMillis;
+            history.add(System.currentTimeMillis(), Math.min(100, Math.max(0, cpu)), systemCpu,
+                        process.getResidentSetSize(), process.getThreadCount(), (int) process.getOpenFiles(),
+                        readRate, writeRate);
+        }
+
+        lastNanos = now;
+        lastCpuMillis = cpuMillis;
+        lastBytesRead = bytesRead;
+        lastBytesWritten = bytesWritten;
+        lastSystemTicks = systemTicks;
+        return primed;
+    }
+
+    public ResourceHistory getHistory() {
+        return history;
+    }
+}
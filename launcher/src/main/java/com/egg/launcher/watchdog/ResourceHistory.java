@@ -0,0 +1,99 @@
+package com.egg.launcher.watchdog;
+
+// Historial de muestras del proceso del servidor en arreglos primitivos circulares.
+// Los accesores reciben la antigüedad de la muestra: 0 es la más reciente.
+public class ResourceHistory {
+
+    private final long[] times;
+    private final float[] cpu;
+    private final float[] systemCpu;
+    private final long[] residentBytes;
+    private final int[] threads;
+    private final int[] openFiles;
+    private final long[] readBytesPerSecond;
+    private final long[] writeBytesPerSecond;
+    private int next;
+    private int size;
+
+    public ResourceHistory(int capacity) {
+        this.times = new long[capacity];
+        this.cpu = new float[capacity];
+        this.systemCpu = new float[capacity];
+        this.residentBytes = new long[capacity];
+        this.threads = new int[capacity];
+        this.openFiles = new int[capacity];
+        this.readBytesPerSecond = new long[capacity];
+        this.writeBytesPerSecond = new long[capacity];
+    }
+
+    synchronized void add(long time, double cpuPercent, double systemCpuPercent, long resident, int threadCount,
+                          int openFileCount, long readRate, long writeRate) {
+        times[next] = time;
+        cpu[next] = (float) cpuPercent;
+        systemCpu[next] = (float) systemCpuPercent;
+        residentBytes[next] = resident;
+        threads[next] = threadCount;
+        openFiles[next] = openFileCount;
+        readBytesPerSecond[next] = readRate;
+        writeBytesPerSecond[next] = writeRate;
+        next = (next + 1) % times.length;
+        size = Math.min(size + 1, times.length);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized long time(int age) {
+        return times[slot(age)];
+    }
+
+    // Porcentaje de toda la máquina (100 = todos los núcleos ocupados por el servidor)
+    public synchronized double cpu(int age) {
+        return cpu[slot(age)];
+    }
+
+    public synchronized double systemCpu(int age) {
+        return systemCpu[slot(age)];
+    }
+
+    public synchronized long residentBytes(int age) {
+        return residentBytes[slot(age)];
+    }
+
+    public synchronized int threads(int age) {
+        return threads[slot(age)];
+    }
+
+    // -1 si el sistema operativo no lo informa
+    public synchronized int openFiles(int age) {
+        return openFiles[slot(age)];
+    }
+
+    public synchronized long readBytesPerSecond(int age) {
+        return readBytesPerSecond[slot(age)];
+    }
+
+    public synchronized long writeBytesPerSecond(int age) {
+        return writeBytesPerSecond[slot(age)];
+    }
+
+    public synchronized double averageCpu(int samples) {
+        int count = Math.min(samples, size);
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double sum = 0;
+        for (int age = 0; age < count; age++) {
+            sum += cpu[slot(age)];
+        }
+        return sum / count;
+    }
+
+    private int slot(int age) {
+        if (age < 0 || age >= size) {
+            throw new IndexOutOfBoundsException("Muestra " + age + " fuera del historial (" + size + ")");
+        }
+        return Math.floorMod(next - 1 - age, times.length);
+    }
+}
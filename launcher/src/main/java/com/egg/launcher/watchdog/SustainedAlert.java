@@ -0,0 +1,41 @@
+package com.egg.launcher.watchdog;
+
+// Alerta que solo salta tras varias muestras seguidas por encima del umbral y solo
+// se retira tras otras tantas por debajo, para no avisar por un pico aislado.
+class SustainedAlert {
+
+    static final int UNCHANGED = 0;
+    static final int RAISED = 1;
+    static final int CLEARED = 2;
+
+    private final int requiredSamples;
+    private int breaches;
+    private int recoveries;
+    private boolean active;
+
+    SustainedAlert(int requiredSamples) {
+        this.requiredSamples = Math.max(1, requiredSamples);
+    }
+
+    int update(boolean breached) {
+        if (breached) {
+            recoveries = 0;
+            if (++breaches >= requiredSamples && !active) {
+                active = true;
+                return RAISED;
+            }
+        } else {
+            breaches = 0;
+            if (active && ++recoveries >= requiredSamples) {
+                active = false;
+                recoveries = 0;
+                return CLEARED;
+            }
+        }
+        return UNCHANGED;
+    }
+
+    boolean isActive() {
+        return active;
+    }
+}
@@ -0,0 +1,186 @@
+package com.egg.launcher.watchdog;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Resumen de varios volcados de "jcmd <pid> Thread.print" tomados con unos segundos
+// de separación: los hilos que más CPU consumieron entre el primero y el último, los
+// que siguen en el mismo marco en todos (bucles o esperas activas), los bloqueados con
+// el hilo que tiene el monitor y el estado del hilo principal del servidor.
+class ThreadDumpSummary {
+
+    private static final String SERVER_THREAD = "Server thread";
+    private static final int TOP_THREADS = 5;
+    private static final int SERVER_FRAMES = 12;
+
+    static final class ThreadInfo {
+        final String name;
+        final double cpuMillis;
+        String state = "";
+        final List<String> frames = new ArrayList<>();
+        final List<String> lockedMonitors = new ArrayList<>();
+        String waitingLock;
+
+        ThreadInfo(String name, double cpuMillis) {
+            this.name = name;
+            this.cpuMillis = cpuMillis;
+        }
+
+        String topFrame() {
+            return frames.isEmpty() ? "(sin marcos Java)" : frames.get(0);
+        }
+    }
+
+    private final List<Map<String, ThreadInfo>> dumps = new ArrayList<>();
+    private final List<Long> dumpTimes = new ArrayList<>();
+    private boolean deadlockReported;
+
+    void addDump(long time, String text) {
+        Map<String, ThreadInfo> threads = new LinkedHashMap<>();
+        ThreadInfo current = null;
+        for (String line : text.split("\r?\n")) {
+            if (line.startsWith("\"")) {
+                int close = line.indexOf('"', 1);
+                if (close < 0) {
+                    continue;
+                }
+                // Los nombres repetidos se numeran para poder seguir cada hilo entre volcados
+                String name = uniqueName(threads, line.substring(1, close));
+                current = new ThreadInfo(name, parseCpu(line));
+                threads.put(name, current);
+            } else if (line.startsWith("Found ") && line.contains("deadlock")) {
+                deadlockReported = true;
+                current = null;
+            } else if (current != null) {
+                String trimmed = line.trim();
+                if (trimmed.startsWith("java.lang.Thread.State: ")) {
+                    current.state = trimmed.substring("java.lang.Thread.State: ".length());
+                } else if (trimmed.startsWith("at ")) {
+                    current.frames.add(trimmed.substring(3));
+                } else if (trimmed.startsWith("- waiting to lock <")) {
+                    current.waitingLock = lockAddress(trimmed);
+                } else if (trimmed.startsWith("- locked <")) {
+                    current.lockedMonitors.add(lockAddress(trimmed));
+                }
+            }
+        }
+        dumps.add(threads);
+        dumpTimes.add(time);
+    }
+
+    String render() {
+        StringBuilder out = new StringBuilder();
+        if (dumps.isEmpty()) {
+            return "No se pudo obtener ningun volcado de hilos.\n";
+        }
+        Map<String, ThreadInfo> first = dumps.get(0);
+        Map<String, ThreadInfo> last = dumps.get(dumps.size() - 1);
+        long window = dumpTimes.get(dumpTimes.size() - 1) - dumpTimes.get(0);
+        out.append(String.format("%d volcados de hilos en %d ms, %d hilos.%n", dumps.size(), window, last.size()));
+        if (deadlockReported) {
+            out.append("¡La JVM detecto un deadlock entre hilos Java! Ver el final de los volcados.\n");
+        }
+
+        // CPU consumida entre el primer y el último volcado (JDK 11+ informa "cpu=" por hilo)
+        if (dumps.size() > 1) {
+            List<String> names = new ArrayList<>(last.keySet());
+            names.removeIf(name -> !first.containsKey(name) || Double.isNaN(last.get(name).cpuMillis));
+            names.sort(Comparator.comparingDouble(name -> -(last.get(name).cpuMillis - first.get(name).cpuMillis)));
+            out.append("\nHilos con mas CPU:\n");
+            for (String name : names.subList(0, Math.min(TOP_THREADS, names.size()))) {
+                ThreadInfo thread = last.get(name);
+                double cpu = thread.cpuMillis - first.get(name).cpuMillis;
+                out.append(String.format("  %-40s %8.0f ms (%3.0f%% de un nucleo) %-14s %s%n", name, cpu,
+                                         window > 0 ? 100 * cpu / window : 0, thread.state, thread.topFrame()));
+            }
+        }
+
+        // Mismo marco en todos los volcados mientras está en ejecución: bucle o espera activa.
+        // Los métodos nativos (epoll, lectura de sockets) figuran como RUNNABLE estando ociosos
+        if (dumps.size() > 1) {
+            List<String> stuck = new ArrayList<>();
+            for (ThreadInfo thread : last.values()) {
+                if (!thread.state.equals("RUNNABLE") || thread.frames.isEmpty() || thread.topFrame().endsWith("Native Method)")) {
+                    continue;
+                }
+                boolean same = true;
+                for (Map<String, ThreadInfo> dump : dumps) {
+                    ThreadInfo earlier = dump.get(thread.name);
+                    same &= earlier != null && earlier.state.equals("RUNNABLE") && earlier.topFrame().equals(thread.topFrame());
+                }
+                if (same) {
+                    stuck.add(String.format("  %-40s %s%n", thread.name, thread.topFrame()));
+                }
+            }
+            if (!stuck.isEmpty()) {
+                out.append("\nEn ejecucion en el mismo punto en todos los volcados:\n");
+                stuck.forEach(out::append);
+            }
+        }
+
+        List<String> blocked = new ArrayList<>();
+        for (ThreadInfo thread : last.values()) {
+            if (thread.state.startsWith("BLOCKED") && thread.waitingLock != null) {
+                blocked.add(String.format("  %-40s espera <%s>, retenido por %s, en %s%n", thread.name, thread.waitingLock,
+                                          owner(last, thread.waitingLock), thread.topFrame()));
+            }
+        }
+        if (!blocked.isEmpty()) {
+            out.append("\nHilos bloqueados:\n");
+            blocked.forEach(out::append);
+        }
+
+        ThreadInfo server = last.get(SERVER_THREAD);
+        if (server != null) {
+            out.append("\nHilo principal del servidor: ");
+            for (Map<String, ThreadInfo> dump : dumps) {
+                ThreadInfo state = dump.get(SERVER_THREAD);
+                out.append(state != null ? state.state : "?").append(' ');
+            }
+            out.append('\n');
+            for (String frame : server.frames.subList(0, Math.min(SERVER_FRAMES, server.frames.size()))) {
+                out.append("    at ").append(frame).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    private static String owner(Map<String, ThreadInfo> threads, String lock) {
+        for (ThreadInfo thread : threads.values()) {
+            if (thread.lockedMonitors.contains(lock)) {
+                return "\"" + thread.name + "\"";
+            }
+        }
+        return "(desconocido)";
+    }
+
+    private static String uniqueName(Map<String, ThreadInfo> threads, String name) {
+        String unique = name;
+        for (int i = 2; threads.containsKey(unique); i++) {
+            unique = name + " (" + i + ")";
+        }
+        return unique;
+    }
+
+    private static double parseCpu(String header) {
+        int start = header.indexOf(" cpu=");
+        if (start < 0) {
+            return Double.NaN;
+        }
+        int end = header.indexOf("ms", start);
+        try {
+            return end < 0 ? Double.NaN : Double.parseDouble(header.substring(start + 5, end));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static String lockAddress(String line) {
+        int start = line.indexOf('<');
+        int end = line.indexOf('>', start);
+        return end > start ? line.substring(start + 1, end) : line;
+    }
+}
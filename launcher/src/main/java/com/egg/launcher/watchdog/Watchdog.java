@@ -1,54 +1,168 @@
 package com.egg.launcher.watchdog;
 
+import com.egg.launcher.config.ConfigView;
+import com.egg.launcher.jvm.SharedSystemInfo;
+import com.egg.launcher.log.LogEntry;
+import com.egg.launcher.log.LogLevel;
+import com.egg.launcher.log.LogQuery;
+import com.egg.launcher.log.LogTail;
+import com.egg.launcher.perf.GcLogMonitor;
+import com.egg.launcher.perf.TickAnalyzer;
+import com.egg.launcher.runtime.ScheduledTask;
+import com.egg.launcher.runtime.TaskScope;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import oshi.SystemInfo;
-import oshi.hardware.CentralProcessor;
 import oshi.hardware.GlobalMemory;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 
 public class Watchdog implements Runnable {
 
     private static final Logger logger = LoggerFactory.getLogger(Watchdog.class);
     private static final int CHECK_INTERVAL_SECONDS = 15;
-    private static final int FREEZE_THRESHOLD_SECONDS = 60;
-    private static final double CPU_LOAD_THRESHOLD = 90.0;
+    private static final int FREEZE_CHECK_MILLIS = 1000;
+    private static final int DIAGNOSTIC_LOG_MINUTES = 2;
+    // Etapas de un congelamiento, protegidas por el monitor del Watchdog
+    private static final int STAGE_NONE = 0;
+    private static final int STAGE_WARNED = 1;
+    private static final int STAGE_DIAGNOSED = 2;
+    private static final int STAGE_RESTARTING = 3;
 
-    private final SystemInfo systemInfo = new SystemInfo();
-    private final CentralProcessor processor = systemInfo.getHardware().getProcessor();
+    // Acciones que escalate() deja pendientes para ejecutar fuera del monitor
+    private static final int ACTION_NONE = 0;
+    private static final int ACTION_DIAGNOSE = 1;
+    private static final int ACTION_RESTART = 2;
+    private static final String[] STAGE_NAMES = {"ninguna", "aviso", "diagnostico", "reinicio"};
+    // Una hora de muestras a intervalos de 15 s
+    private static final int HISTORY_SIZE = 240;
+
+    private final SystemInfo systemInfo = SharedSystemInfo.get();
     private final GlobalMemory memory = systemInfo.getHardware().getMemory();
 
     private final Process serverProcess;
     private final Runnable restartCallback;
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
-    private final AtomicLong lastHeartbeat = new AtomicLong(System.currentTimeMillis());
-    private final AtomicBoolean isServerResponding = new AtomicBoolean(true);
+    private final TickAnalyzer tickAnalyzer;
+    private final GcLogMonitor gcLogMonitor;
+    private final ProcessSampler sampler;
+    private final ConfigView config;
+    private final int cpuThreshold;
+    private final long rssThresholdBytes;
+    private final int threadThreshold;
+    private final int openFilesThreshold;
+    private final int alertSamples;
+    private final SustainedAlert cpuAlert;
+    private final SustainedAlert rssAlert;
+    private final SustainedAlert threadAlert;
+    private final SustainedAlert openFilesAlert;
+    private final TaskScope scope;
+    private final String threadName;
+    private ScheduledTask metricsTask;
+    private ScheduledTask freezeTask;
+    private final HeartbeatStats heartbeatStats = new HeartbeatStats();
+    private final FreezeForensics forensics;
+    private final long createdAt = System.currentTimeMillis();
+    private volatile FreezeThresholds thresholds;
+    private volatile LongConsumer firstHeartbeatListener;
+    private long lastHeartbeat;
+    private int freezeStage = STAGE_NONE;
 
-    public Watchdog(Process serverProcess, Runnable restartCallback) {
+    // baseDir: directorio de la instancia, donde van sus pruebas de congelamiento; scope: el del
+    // proceso del servidor, que se cierra cuando termina
+    public Watchdog(Process serverProcess, Runnable restartCallback, TickAnalyzer tickAnalyzer, GcLogMonitor gcLogMonitor,
+                    ConfigView config, Path baseDir, TaskScope scope) {
         this.serverProcess = serverProcess;
         this.restartCallback = restartCallback;
+        this.tickAnalyzer = tickAnalyzer;
+        this.gcLogMonitor = gcLogMonitor;
+        this.config = config;
+        this.sampler = new ProcessSampler(systemInfo, serverProcess.pid(), HISTORY_SIZE);
+        this.forensics = new FreezeForensics(baseDir, config);
+        this.scope = scope;
+        this.threadName = config.threadName("egg-watchdog");
+
+        this.cpuThreshold = config.getInt("watchdog.cpuThresholdPercent", 90);
+        this.threadThreshold = config.getInt("watchdog.threadThreshold", 2000);
+        this.openFilesThreshold = config.getInt("watchdog.openFilesThreshold", 10000);
+        // Sin umbral configurado, el 90% de la RAM física
+        long rssThresholdMB = config.getLong("watchdog.rssThresholdMB", 0);
+        this.rssThresholdBytes = rssThresholdMB > 0 ? rssThresholdMB * 1024 * 1024 : memory.getTotal() / 10 * 9;
+        // Las alertas exigen varias muestras seguidas (por defecto, un minuto)
+        this.alertSamples = config.getInt("watchdog.alertSamples", 4);
+        this.cpuAlert = new SustainedAlert(alertSamples);
+        this.rssAlert = new SustainedAlert(alertSamples);
+        this.threadAlert = new SustainedAlert(alertSamples);
+        this.openFilesAlert = new SustainedAlert(alertSamples);
     }
 
-    public void start() {
+    public synchronized void start() {
         logger.info("Iniciando Watchdog con un intervalo de {} segundos.", CHECK_INTERVAL_SECONDS);
-        scheduler.scheduleAtFixedRate(this, 0, CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        thresholds = FreezeThresholds.from(heartbeatStats, config);
+        metricsTask = scope.scheduleAtFixedRate(threadName, this, 0, CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        // Los latidos se vigilan cada segundo, en su propia tarea, para que una muestra lenta
+        // de las métricas no retrase la detección de un bloqueo
+        freezeTask = scope.scheduleAtFixedRate(threadName + "-freeze", this::checkServerResponsiveness, FREEZE_CHECK_MILLIS,
+                                               FREEZE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
     }
 
     public void stop() {
         logger.info("Deteniendo Watchdog...");
-        scheduler.shutdownNow();
+        ScheduledTask metrics;
+        ScheduledTask freeze;
+        synchronized (this) {
+            metrics = metricsTask;
+            freeze = freezeTask;
+        }
+        if (metrics != null) {
+            metrics.cancel(true);
+        }
+        if (freeze != null) {
+            freeze.cancel(true);
+        }
+    }
+
+    // Recibe los milisegundos desde el lanzamiento del proceso hasta el primer latido
+    public void setFirstHeartbeatListener(LongConsumer listener) {
+        this.firstHeartbeatListener = listener;
+    }
+
+    // Hora del último latido, 0 si todavía no ha llegado ninguno
+    public synchronized long getLastHeartbeat() {
+        return lastHeartbeat;
     }
 
+    public ResourceHistory getResourceHistory() {
+        return sampler.getHistory();
+    }
+
+    // Cada intervalo entre latidos, incluidas las pausas de las que el servidor se recupera,
+    // alimenta la estadística con la que se calculan los umbrales. El tiempo en pausas
+    // stop-the-world del GC no cuenta: no es un congelamiento del servidor
     public void receiveHeartbeat() {
-        lastHeartbeat.set(System.currentTimeMillis());
-        if (!isServerResponding.get()) {
-            logger.info("El servidor ha vuelto a responder.");
-            isServerResponding.set(true);
+        long now = System.currentTimeMillis();
+        boolean first;
+        synchronized (this) {
+            first = lastHeartbeat == 0;
+            if (first) {
+                logger.info("Primer latido del servidor recibido a los {} ms del lanzamiento. Deteccion de congelamientos activa.",
+                            now - createdAt);
+            } else {
+                heartbeatStats.record(now - lastHeartbeat - gcLogMonitor.pausedMillisBetween(lastHeartbeat, now));
+            }
+            if (freezeStage != STAGE_NONE && freezeStage != STAGE_RESTARTING) {
+                logger.info("El servidor ha vuelto a responder tras {} ms sin latidos (etapa alcanzada: {}).",
+                            now - lastHeartbeat, STAGE_NAMES[freezeStage]);
+                freezeStage = STAGE_NONE;
+            }
+            lastHeartbeat = now;
+        }
+        // Fuera del monitor: el listener puede escribir a disco
+        LongConsumer listener = firstHeartbeatListener;
+        if (first && listener != null) {
+            listener.accept(now - createdAt);
         }
     }
 
@@ -61,35 +175,125 @@ public class Watchdog implements Runnable {
         }
 
         logSystemMetrics();
-        checkServerResponsiveness();
+        thresholds = FreezeThresholds.from(heartbeatStats, config);
     }
 
     private void logSystemMetrics() {
-        double cpuLoad = processor.getSystemCpuLoad(1000) * 100;
+        // La primera muestra solo sirve de referencia para la siguiente
+        if (!sampler.sample()) {
+            return;
+        }
+        ResourceHistory history = sampler.getHistory();
+        double cpu = history.cpu(0);
+        long residentBytes = history.residentBytes(0);
+        int threads = history.threads(0);
+        int openFiles = history.openFiles(0);
         long usedMemoryMB = (memory.getTotal() - memory.getAvailable()) / (1024 * 1024);
         long totalMemoryMB = memory.getTotal() / (1024 * 1024);
 
-        logger.info(String.format("Métricas del sistema -> CPU: %.2f%%, RAM: %d/%d MB", cpuLoad, usedMemoryMB, totalMemoryMB));
+        logger.info(String.format("Métricas del servidor -> CPU: %.1f%% (sistema %.1f%%), RSS: %d MB, hilos: %d, archivos: %s, "
+                                  + "disco: %d/%d KB/s, TPS: %.1f | RAM del sistema: %d/%d MB",
+                                  cpu, history.systemCpu(0), residentBytes / (1024 * 1024), threads,
+                                  openFiles < 0 ? "?" : String.valueOf(openFiles), history.readBytesPerSecond(0) / 1024,
+                                  history.writeBytesPerSecond(0) / 1024, tickAnalyzer.getTps(), usedMemoryMB, totalMemoryMB));
+
+        report(cpuAlert.update(cpu > cpuThreshold), "CPU",
+               String.format("el servidor usa mas del %d%% de la CPU (media reciente %.1f%%)", cpuThreshold, history.averageCpu(alertSamples)));
+        report(rssAlert.update(residentBytes > rssThresholdBytes), "memoria",
+               String.format("la memoria residente del servidor supera %d MB (%d MB)", rssThresholdBytes / (1024 * 1024),
+                             residentBytes / (1024 * 1024)));
+        report(threadAlert.update(threads > threadThreshold), "hilos",
+               String.format("el servidor tiene mas de %d hilos (%d)", threadThreshold, threads));
+        report(openFilesAlert.update(openFiles > openFilesThreshold), "archivos abiertos",
+               String.format("el servidor tiene mas de %d archivos abiertos (%d)", openFilesThreshold, openFiles));
+    }
 
-        if (cpuLoad > CPU_LOAD_THRESHOLD) {
-            logger.warn("¡ALERTA! El uso de la CPU es superior al {}%.", CPU_LOAD_THRESHOLD);
+    private void report(int transition, String name, String description) {
+        if (transition == SustainedAlert.RAISED) {
+            logger.warn("¡ALERTA! De forma sostenida, {}.", description);
+        } else if (transition == SustainedAlert.CLEARED) {
+            logger.info("Alerta de {} resuelta.", name);
         }
     }
 
+    // Aviso, diagnóstico y reinicio según cuánto supera el silencio a los umbrales aprendidos.
+    // Hasta el primer latido no se actúa: un servidor con muchos mods tarda minutos en arrancar.
     private void checkServerResponsiveness() {
-        long timeSinceLastHeartbeat = (System.currentTimeMillis() - lastHeartbeat.get()) / 1000;
+        int actions;
+        long heartbeat;
+        synchronized (this) {
+            actions = escalate();
+            heartbeat = lastHeartbeat;
+        }
 
-        if (timeSinceLastHeartbeat > FREEZE_THRESHOLD_SECONDS) {
-            if (isServerResponding.get()) {
-                logger.error("¡El servidor ha dejado de responder por más de {} segundos!", FREEZE_THRESHOLD_SECONDS);
-                isServerResponding.set(false);
-                triggerRestart();
-            }
-        } else {
-            if (!isServerResponding.get()) {
-                 logger.info("El servidor ha recuperado la capacidad de respuesta.");
+        // El diagnóstico y las pruebas se toman fuera del monitor para no frenar la recepción de
+        // latidos justo cuando el servidor está a punto de congelarse
+        if ((actions & ACTION_DIAGNOSE) != 0) {
+            captureDiagnostics();
+        }
+        if ((actions & ACTION_RESTART) == 0) {
+            return;
+        }
+        forensics.capture(serverProcess.pid(), "freeze");
+        synchronized (this) {
+            if (lastHeartbeat != heartbeat) {
+                logger.warn("El servidor volvio a enviar latidos durante la captura de pruebas. Se cancela el reinicio.");
+                freezeStage = STAGE_NONE;
+                return;
             }
-            isServerResponding.set(true);
+        }
+        triggerRestart();
+    }
+
+    // Avanza las etapas con el monitor tomado; devuelve qué hacer después, ya fuera de él
+    private int escalate() {
+        if (lastHeartbeat == 0 || freezeStage == STAGE_RESTARTING || !serverProcess.isAlive()) {
+            return ACTION_NONE;
+        }
+        int actions = ACTION_NONE;
+        long now = System.currentTimeMillis();
+        long gcPause = gcLogMonitor.pausedMillisBetween(lastHeartbeat, now);
+        long silence = now - lastHeartbeat - gcPause;
+        FreezeThresholds current = thresholds;
+        if (gcPause > 0 && silence >= current.warnMillis) {
+            logger.info("Se descuentan {} ms de pausas de GC del silencio del servidor.", gcPause);
+        }
+
+        if (freezeStage < STAGE_WARNED && silence >= current.warnMillis) {
+            freezeStage = STAGE_WARNED;
+            logger.warn("Sin latidos del servidor desde hace {} ms, por encima del umbral de aviso de {} ms ({}).",
+                        silence, current.warnMillis, current.explanation);
+        }
+        if (freezeStage < STAGE_DIAGNOSED && silence >= current.diagnosticsMillis) {
+            freezeStage = STAGE_DIAGNOSED;
+            logger.error("Sin latidos del servidor desde hace {} ms, por encima del umbral de diagnostico de {} ms. "
+                         + "Capturando diagnostico...", silence, current.diagnosticsMillis);
+            actions |= ACTION_DIAGNOSE;
+        }
+        if (silence >= current.restartMillis) {
+            freezeStage = STAGE_RESTARTING;
+            logger.error("¡El servidor lleva {} ms sin latidos, por encima del umbral de reinicio de {} ms ({})!",
+                         silence, current.restartMillis, current.explanation);
+            actions |= ACTION_RESTART;
+        }
+        return actions;
+    }
+
+    private void captureDiagnostics() {
+        ResourceHistory history = sampler.getHistory();
+        if (history.size() > 0) {
+            logger.error(String.format("Estado del proceso: CPU %.1f%%, RSS %d MB, hilos %d, TPS %.1f", history.cpu(0),
+                                       history.residentBytes(0) / (1024 * 1024), history.threads(0), tickAnalyzer.getTps()));
+        }
+        logger.error("{}", gcLogMonitor.summary());
+        List<LogEntry> warnings = LogTail.get().query(LogQuery.lastMinutes(DIAGNOSTIC_LOG_MINUTES)
+                                                              .minLevel(LogLevel.WARN)
+                                                              .source(LogTail.SOURCE_SERVER)
+                                                              .instance(config.getInstanceId())
+                                                              .limit(20));
+        logger.error("Avisos del servidor en los ultimos {} minutos: {}", DIAGNOSTIC_LOG_MINUTES, warnings.size());
+        for (LogEntry entry : warnings) {
+            logger.error("  {}", entry);
         }
     }
 
@@ -99,7 +303,7 @@ public class Watchdog implements Runnable {
         // Llamar al callback para reiniciar el servidor de forma segura
         // (que debería incluir backups, etc.)
         if (restartCallback != null) {
-            new Thread(restartCallback).start();
+            scope.fork(threadName + "-restart", restartCallback);
         }
 
         // Detener el watchdog actual
@@ -1,6 +1,10 @@
 package com.egg.plugins.camera;
 
 import com.egg.launcher.plugin.EggPlugin;
+import com.egg.launcher.plugin.EventBus;
+import com.egg.launcher.plugin.EventHandler;
+import com.egg.launcher.plugin.event.PlayerJoinEvent;
+import com.egg.launcher.plugin.event.PlayerLeaveEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -8,14 +12,28 @@ public class CameraPlugin implements EggPlugin {
 
     private static final Logger logger = LoggerFactory.getLogger(CameraPlugin.class);
 
+    @Override
+    public void registerListeners(EventBus bus) {
+        bus.register(this, this);
+    }
+
     @Override
     public void onEnable() {
         logger.info("¡Plugin 'camera-controller' activado!");
-        // Aquí se registrarían los listeners de eventos, etc.
     }
 
     @Override
     public void onDisable() {
         logger.info("Plugin 'camera-controller' desactivado.");
     }
+
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        logger.debug("Jugador {} conectado; se preparara su camara.", event.getPlayerId());
+    }
+
+    @EventHandler
+    public void onPlayerLeave(PlayerLeaveEvent event) {
+        logger.debug("Jugador {} desconectado; se libera su camara.", event.getPlayerId());
+    }
 }
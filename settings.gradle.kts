@@ -11,3 +11,4 @@ pluginManagement {
 rootProject.name = "EGG-HYBRID-SERVER"
 
 include("launcher")
+include("benchmarks")
@@ -1,3 +1,9 @@
 @echo off
 set JAVA_CMD=java
-%JAVA_CMD% -Xms2G -Xmx4G -jar launcher.jar
+rem El launcher solo necesita un heap pequeno: la JVM del servidor la dimensiona el (ver jvm.* en egg-launcher.yml)
+if "%LAUNCHER_OPTS%"=="" set LAUNCHER_OPTS=-Xms128M -Xmx1G -XX:+UseSerialGC
+rem Archivo AppCDS del launcher: se genera al salir del primer arranque y se usa en los siguientes
+set CDS_ARCHIVE=cache\cds\launcher.jsa
+if not exist cache\cds mkdir cache\cds
+if exist %CDS_ARCHIVE% (set CDS_OPTS=-XX:SharedArchiveFile=%CDS_ARCHIVE%) else (set CDS_OPTS=-XX:ArchiveClassesAtExit=%CDS_ARCHIVE%)
+%JAVA_CMD% %LAUNCHER_OPTS% %CDS_OPTS% -jar launcher.jar
@@ -1,3 +1,13 @@
 #!/bin/bash
 JAVA_CMD=${JAVA_CMD:-java}
-$JAVA_CMD -Xms2G -Xmx4G -jar launcher.jar
+# El launcher solo necesita un heap pequeño: la JVM del servidor la dimensiona él (ver jvm.* en egg-launcher.yml)
+LAUNCHER_OPTS=${LAUNCHER_OPTS:--Xms128M -Xmx1G -XX:+UseSerialGC}
+# Archivo AppCDS del launcher: se genera al salir del primer arranque y se usa en los siguientes
+CDS_ARCHIVE=cache/cds/launcher.jsa
+mkdir -p cache/cds
+if [ -f "$CDS_ARCHIVE" ]; then
+    CDS_OPTS="-XX:SharedArchiveFile=$CDS_ARCHIVE"
+else
+    CDS_OPTS="-XX:ArchiveClassesAtExit=$CDS_ARCHIVE"
+fi
+$JAVA_CMD $LAUNCHER_OPTS $CDS_OPTS -jar launcher.jar